@@ -0,0 +1,77 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Shared dictionary of the few distinct class and department names. Students
+// hold a small code instead of their own String, so each value is stored once
+// however many students share it, equality is an int comparison, and
+// group-by reports can index arrays by code instead of hashing strings.
+// Codes are handed out in first-seen order and never change while the
+// program runs; they are not written to disk.
+class AttributeDictionary {
+    // Codes are kept in a short per student
+    static final int MAX_CODES = 1 << 16;
+
+    static final AttributeDictionary CLASSES = new AttributeDictionary("class");
+    static final AttributeDictionary DEPARTMENTS = new AttributeDictionary("department");
+
+    private final String attribute;
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    // Readers need no lock: add() only fills the slot past the last code, and
+    // republishes the array (volatile) and the code (ConcurrentHashMap) after
+    // the write, so a reader holding a code always sees its value
+    private volatile String[] values = new String[16];
+    private int size;
+
+    private AttributeDictionary(String attribute) {
+        this.attribute = attribute;
+    }
+
+    // Code for the value, adding it if it is new
+    public int code(String value) {
+        Integer code = codes.get(value);
+        return code != null ? code : add(value);
+    }
+
+    private synchronized int add(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        if (size == MAX_CODES) {
+            throw new IllegalArgumentException("Too many distinct " + attribute + " names (limit " + MAX_CODES + ")");
+        }
+        String[] grown = values;
+        if (size == grown.length) {
+            grown = Arrays.copyOf(grown, size * 2);
+        }
+        grown[size] = value;
+        values = grown;
+        codes.put(value, size);
+        return size++;
+    }
+
+    // Code of a value already in the dictionary, or -1
+    public int find(String value) {
+        Integer code = codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    public String value(int code) {
+        return values[code];
+    }
+
+    // Codes in use are 0 .. size() - 1
+    public int size() {
+        return codes.size();
+    }
+
+    // Marks the codes whose value matches ignoring case, for filters typed by users
+    public boolean[] matchingIgnoreCase(String value) {
+        String[] snapshot = values;
+        boolean[] matches = new boolean[snapshot.length];
+        for (int c = 0; c < snapshot.length && snapshot[c] != null; c++) {
+            matches[c] = snapshot[c].equalsIgnoreCase(value);
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,318 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+
+// Compact binary storage that replaces Java serialization.
+//
+// File layout (version 1, all integers big-endian):
+//
+//   header      magic "SRMB" (4 bytes)
+//               u16 version
+//               u8  marks per record (subject count)
+//               u8  reserved, always 0
+//               i32 record count
+//               i32 dictionary size
+//   dictionary  per string: u16 byte length, UTF-8 bytes
+//   records     per record: i32 roll number,
+//                           i32 name, i32 class, i32 department (dictionary indexes),
+//                           u8 mark for each subject
+//   trailer     i32 CRC32 of every byte before the trailer
+//
+// Saves go to a temporary file that replaces the data file only once complete
+// and forced to disk, so a crash leaves either the old file or the new one.
+class BinaryDataStorage implements DataStorage {
+    static final String DATA_FILE = "student_data.bin";
+    static final int MAGIC = 0x53524D42; // "SRMB"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    private final Path dataFile;
+
+    public BinaryDataStorage() {
+        this(Paths.get(DATA_FILE));
+    }
+
+    public BinaryDataStorage(Path dataFile) {
+        this.dataFile = dataFile;
+    }
+
+    public Path getDataFile() {
+        return dataFile;
+    }
+
+    @Override
+    public void saveData(StudentRecord[] records) throws IOException {
+        Map<String, Integer> codes = new HashMap<>();
+        List<String> dictionary = new ArrayList<>();
+        int[] refs = new int[records.length * 3];
+        for (int i = 0; i < records.length; i++) {
+            Student s = records[i].getStudent();
+            refs[i * 3] = intern(s.getName(), codes, dictionary);
+            refs[i * 3 + 1] = intern(s.getClassName(), codes, dictionary);
+            refs[i * 3 + 2] = intern(s.getDepartment(), codes, dictionary);
+        }
+
+        Path tmp = dataFile.resolveSibling(dataFile.getFileName() + ".tmp");
+        try (ChannelOutput out = new ChannelOutput(FileChannel.open(tmp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))) {
+            out.ensure(HEADER_BYTES);
+            out.buf.putInt(MAGIC);
+            out.buf.putShort((short) VERSION);
+            out.buf.put((byte) Result.SUBJECT_COUNT);
+            out.buf.put((byte) 0);
+            out.buf.putInt(records.length);
+            out.buf.putInt(dictionary.size());
+
+            for (String str : dictionary) {
+                byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+                if (bytes.length > 0xFFFF) {
+                    throw new IOException("String too long to store: " + str.length() + " characters");
+                }
+                out.ensure(2 + bytes.length);
+                out.buf.putShort((short) bytes.length);
+                out.buf.put(bytes);
+            }
+
+            for (int i = 0; i < records.length; i++) {
+                Result r = records[i].getResult();
+                out.ensure(16 + Result.SUBJECT_COUNT);
+                out.buf.putInt(records[i].getStudent().getRollNumber());
+                out.buf.putInt(refs[i * 3]);
+                out.buf.putInt(refs[i * 3 + 1]);
+                out.buf.putInt(refs[i * 3 + 2]);
+                for (int subject = 0; subject < Result.SUBJECT_COUNT; subject++) {
+                    out.buf.put((byte) r.getMark(subject));
+                }
+            }
+            out.writeChecksum();
+        }
+        replace(tmp, dataFile);
+    }
+
+    // The source must already be forced to disk. The directory is synced
+    // after the rename so the new name survives a crash too; the journal is
+    // emptied right after a checkpoint and must not outlive it.
+    static void replace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        syncDirectory(target.toAbsolutePath().getParent());
+    }
+
+    private static void syncDirectory(Path dir) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(dir, StandardOpenOption.READ);
+        } catch (IOException e) {
+            // Some platforms (Windows) cannot open a directory; there the rename is as durable as it gets
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    @Override
+    public StudentRecord[] loadData() throws IOException {
+        try (ChannelInput in = new ChannelInput(FileChannel.open(dataFile, StandardOpenOption.READ))) {
+            in.ensure(HEADER_BYTES);
+            if (in.buf.getInt() != MAGIC) {
+                throw new IOException(dataFile + " is not a student data file");
+            }
+            int version = in.buf.getShort() & 0xFFFF;
+            if (version != VERSION) {
+                throw new IOException("Unsupported data file version " + version);
+            }
+            int subjects = in.buf.get() & 0xFF;
+            if (subjects != Result.SUBJECT_COUNT) {
+                throw new IOException("Data file has " + subjects + " subjects, expected " + Result.SUBJECT_COUNT);
+            }
+            in.buf.get();
+            int count = in.buf.getInt();
+            int dictionarySize = in.buf.getInt();
+            if (count < 0 || dictionarySize < 0) {
+                throw new IOException("Corrupt data file header");
+            }
+
+            String[] dictionary = new String[dictionarySize];
+            byte[] scratch = new byte[256];
+            for (int i = 0; i < dictionarySize; i++) {
+                in.ensure(2);
+                int len = in.buf.getShort() & 0xFFFF;
+                in.ensure(len);
+                if (len > scratch.length) {
+                    scratch = new byte[Math.max(len, scratch.length * 2)];
+                }
+                in.buf.get(scratch, 0, len);
+                dictionary[i] = new String(scratch, 0, len, StandardCharsets.UTF_8);
+            }
+
+            StudentRecord[] records = new StudentRecord[count];
+            int[] marks = new int[subjects];
+            // File dictionary index -> class and department code, looked up once per distinct value
+            int[] classCodes = new int[dictionarySize];
+            int[] departmentCodes = new int[dictionarySize];
+            Arrays.fill(classCodes, -1);
+            Arrays.fill(departmentCodes, -1);
+            for (int i = 0; i < count; i++) {
+                in.ensure(16 + subjects);
+                int roll = in.buf.getInt();
+                String name = lookup(dictionary, in.buf.getInt());
+                int cls = code(AttributeDictionary.CLASSES, classCodes, dictionary, in.buf.getInt());
+                int dept = code(AttributeDictionary.DEPARTMENTS, departmentCodes, dictionary, in.buf.getInt());
+                for (int subject = 0; subject < subjects; subject++) {
+                    marks[subject] = in.buf.get() & 0xFF;
+                }
+                try {
+                    records[i] = new StudentRecord(new Student(name, roll, cls, dept),
+                            new Result(marks));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException("Corrupt record for roll number " + roll + ": " + e.getMessage());
+                }
+            }
+            in.verifyChecksum();
+            return records;
+        }
+    }
+
+    // Rewrites a Java-serialized data file in the binary format.
+    public static int convertLegacy(String serFile, Path binFile) throws IOException, ClassNotFoundException {
+        StudentRecord[] records = new FileDataStorage(serFile).loadData();
+        new BinaryDataStorage(binFile).saveData(records);
+        return records.length;
+    }
+
+    private static int intern(String value, Map<String, Integer> codes, List<String> dictionary) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = dictionary.size();
+            codes.put(value, code);
+            dictionary.add(value);
+        }
+        return code;
+    }
+
+    private static int code(AttributeDictionary attribute, int[] codes, String[] dictionary, int index)
+            throws IOException {
+        String value = lookup(dictionary, index);
+        if (codes[index] < 0) {
+            codes[index] = attribute.code(value);
+        }
+        return codes[index];
+    }
+
+    private static String lookup(String[] dictionary, int index) throws IOException {
+        if (index < 0 || index >= dictionary.length) {
+            throw new IOException("Corrupt data file: dictionary index " + index + " out of range");
+        }
+        return dictionary[index];
+    }
+
+    // Buffered channel writer that checksums every byte it flushes
+    static final class ChannelOutput implements Closeable {
+        final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        private final FileChannel channel;
+        private final CRC32 crc = new CRC32();
+
+        ChannelOutput(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void ensure(int bytes) throws IOException {
+            if (buf.remaining() < bytes) {
+                flush();
+                if (buf.remaining() < bytes) {
+                    throw new IOException("Value of " + bytes + " bytes exceeds the write buffer");
+                }
+            }
+        }
+
+        void flush() throws IOException {
+            buf.flip();
+            crc.update(buf.duplicate());
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+            buf.clear();
+        }
+
+        // Ends the file: writes the checksum and forces everything to disk
+        void writeChecksum() throws IOException {
+            flush();
+            buf.putInt((int) crc.getValue());
+            flush();
+            channel.force(true);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                buf.flip();
+                while (buf.hasRemaining()) {
+                    channel.write(buf);
+                }
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    // Buffered channel reader that checksums every byte it consumes
+    static final class ChannelInput implements Closeable {
+        final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        private final FileChannel channel;
+        private final CRC32 crc = new CRC32();
+        private boolean eof;
+
+        ChannelInput(FileChannel channel) {
+            this.channel = channel;
+            buf.limit(0);
+        }
+
+        void ensure(int bytes) throws IOException {
+            if (buf.remaining() >= bytes) {
+                return;
+            }
+            checksumConsumed();
+            buf.compact();
+            while (buf.position() < bytes && !eof) {
+                if (channel.read(buf) < 0) {
+                    eof = true;
+                }
+            }
+            buf.flip();
+            if (buf.remaining() < bytes) {
+                throw new EOFException("Data file is truncated");
+            }
+        }
+
+        // Feeds everything consumed since the last refill into the checksum
+        private void checksumConsumed() {
+            ByteBuffer consumed = buf.duplicate();
+            consumed.flip();
+            crc.update(consumed);
+        }
+
+        void verifyChecksum() throws IOException {
+            checksumConsumed();
+            buf.compact().flip();
+            ensure(4);
+            int expected = buf.getInt();
+            if (expected != (int) crc.getValue()) {
+                throw new IOException("Data file checksum mismatch");
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// Compressed bitmaps of record slots for the attributes filters ask about:
+// each subject's marks in bands of ten, every grade, pass/fail, and every
+// class and department code. Kept in step with the store like the other
+// indexes, so a query combines a few bitmaps instead of testing every record.
+// Bitmaps returned here are the index's own; callers must not change them.
+class BitmapIndex implements RecordStore.Listener {
+    static final int BAND_WIDTH = 10;
+    // 0-9, 10-19, ..., 90-99 and 100 on its own
+    static final int BANDS = 100 / BAND_WIDTH + 1;
+
+    private static final CompressedBitmap EMPTY = new CompressedBitmap();
+
+    private final CompressedBitmap live = new CompressedBitmap();
+    private final CompressedBitmap failed = new CompressedBitmap();
+    private final CompressedBitmap[][] bands = new CompressedBitmap[Result.SUBJECT_COUNT][BANDS];
+    private final CompressedBitmap[] grades = new CompressedBitmap[Grade.values().length];
+    // By dictionary code
+    private final List<CompressedBitmap> departments = new ArrayList<>();
+    private final List<CompressedBitmap> classes = new ArrayList<>();
+
+    public BitmapIndex() {
+        for (CompressedBitmap[] subject : bands) {
+            for (int b = 0; b < BANDS; b++) {
+                subject[b] = new CompressedBitmap();
+            }
+        }
+        for (int g = 0; g < grades.length; g++) {
+            grades[g] = new CompressedBitmap();
+        }
+    }
+
+    public static int bandOf(int mark) {
+        return mark / BAND_WIDTH;
+    }
+
+    public CompressedBitmap live() {
+        return live;
+    }
+
+    public CompressedBitmap failed() {
+        return failed;
+    }
+
+    public CompressedBitmap band(int subject, int band) {
+        return bands[subject][band];
+    }
+
+    public CompressedBitmap grade(Grade grade) {
+        return grades[grade.ordinal()];
+    }
+
+    public CompressedBitmap department(int code) {
+        return byCode(departments, code);
+    }
+
+    public CompressedBitmap className(int code) {
+        return byCode(classes, code);
+    }
+
+    private static CompressedBitmap byCode(List<CompressedBitmap> list, int code) {
+        return code < list.size() ? list.get(code) : EMPTY;
+    }
+
+    private static CompressedBitmap forUpdate(List<CompressedBitmap> list, int code) {
+        while (list.size() <= code) {
+            list.add(new CompressedBitmap());
+        }
+        return list.get(code);
+    }
+
+    private void add(int slot, StudentRecord rec) {
+        Result r = rec.getResult();
+        live.add(slot);
+        if (!r.isPass()) {
+            failed.add(slot);
+        }
+        for (int subject = 0; subject < Result.SUBJECT_COUNT; subject++) {
+            bands[subject][bandOf(r.getMark(subject))].add(slot);
+        }
+        grades[r.getGrade().ordinal()].add(slot);
+        forUpdate(departments, rec.getStudent().getDepartmentCode()).add(slot);
+        forUpdate(classes, rec.getStudent().getClassCode()).add(slot);
+    }
+
+    private void remove(int slot, StudentRecord rec) {
+        Result r = rec.getResult();
+        live.remove(slot);
+        failed.remove(slot);
+        for (int subject = 0; subject < Result.SUBJECT_COUNT; subject++) {
+            bands[subject][bandOf(r.getMark(subject))].remove(slot);
+        }
+        grades[r.getGrade().ordinal()].remove(slot);
+        forUpdate(departments, rec.getStudent().getDepartmentCode()).remove(slot);
+        forUpdate(classes, rec.getStudent().getClassCode()).remove(slot);
+    }
+
+    @Override
+    public void recordAdded(int slot, StudentRecord rec) {
+        add(slot, rec);
+    }
+
+    @Override
+    public void recordUpdated(int slot, StudentRecord old, StudentRecord rec) {
+        remove(slot, old);
+        add(slot, rec);
+    }
+
+    @Override
+    public void recordRemoved(int slot, StudentRecord old) {
+        remove(slot, old);
+    }
+
+    // Slots are visited in ascending order, so every bitmap is built by appending
+    @Override
+    public void storeReset(RecordStore store) {
+        live.clear();
+        failed.clear();
+        for (CompressedBitmap[] subject : bands) {
+            for (CompressedBitmap b : subject) {
+                b.clear();
+            }
+        }
+        for (CompressedBitmap b : grades) {
+            b.clear();
+        }
+        departments.clear();
+        classes.clear();
+        for (int slot = 0; slot < store.slotLimit(); slot++) {
+            StudentRecord rec = store.get(slot);
+            if (rec != null) {
+                add(slot, rec);
+            }
+        }
+    }
+}
@@ -0,0 +1,277 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.zip.CRC32;
+
+// Append-only write-ahead journal of record changes made since the last
+// checkpoint of the main data file.
+//
+// File layout (all integers big-endian):
+//
+//   header   magic "SRMJ" (4 bytes), u16 version, u8 subject count, u8 reserved
+//   entries  i32 payload length, payload, i32 CRC32 of the payload
+//
+//   payload  u8 type, i32 roll number, then
+//            ADD:    u16 length + UTF-8 bytes for name, class and department,
+//                    u8 mark for each subject
+//            UPDATE: u8 mark for each subject
+//            DELETE: nothing
+//
+// Every entry carries the full new state of one student, so replaying the
+// journal over a snapshot that already contains some of its changes (a crash
+// between checkpoint and reset) still ends in the same state.
+class ChangeJournal implements Closeable {
+    static final String JOURNAL_FILE = "student_data.journal";
+    static final int MAGIC = 0x53524D4A; // "SRMJ"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 8;
+
+    private static final byte ADD = 1;
+    private static final byte UPDATE = 2;
+    private static final byte DELETE = 3;
+
+    private final Path file;
+    private FileChannel channel;
+    private ByteBuffer entry = ByteBuffer.allocate(256);
+    private final CRC32 crc = new CRC32();
+    private int pendingEntries;
+
+    public ChangeJournal() {
+        this(Paths.get(JOURNAL_FILE));
+    }
+
+    public ChangeJournal(Path file) {
+        this.file = file;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    // Entries written since the last checkpoint, including replayed ones
+    public int pendingEntries() {
+        return pendingEntries;
+    }
+
+    // Applies every intact entry to the store and opens the journal for
+    // appending. A torn entry at the end (crash mid-write) is discarded. If
+    // the file is not a journal this program can read, it is left untouched
+    // and the journal stays closed, so later changes fail instead of
+    // writing over it.
+    public int replay(RecordStore store) throws IOException {
+        close();
+        FileChannel opened = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            int applied = replay(opened, store);
+            channel = opened;
+            pendingEntries = applied;
+            return applied;
+        } catch (IOException | RuntimeException e) {
+            try {
+                opened.close();
+            } catch (IOException closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            throw e;
+        }
+    }
+
+    private int replay(FileChannel channel, RecordStore store) throws IOException {
+        if (channel.size() < HEADER_BYTES) {
+            writeHeader(channel);
+            return 0;
+        }
+        ByteBuffer data = ByteBuffer.allocate((int) Math.min(channel.size(), Integer.MAX_VALUE));
+        while (data.hasRemaining() && channel.read(data, data.position()) > 0) {
+            // keep reading until the buffer is full
+        }
+        data.flip();
+        if (data.getInt() != MAGIC) {
+            throw new IOException(file + " is not a student data journal");
+        }
+        int version = data.getShort() & 0xFFFF;
+        if (version != VERSION) {
+            throw new IOException("Unsupported journal version " + version);
+        }
+        int subjects = data.get() & 0xFF;
+        if (subjects != Result.SUBJECT_COUNT) {
+            throw new IOException("Journal has " + subjects + " subjects, expected " + Result.SUBJECT_COUNT);
+        }
+        data.get();
+
+        int applied = 0;
+        int end = data.position();
+        while (data.remaining() >= 4) {
+            int length = data.getInt();
+            if (length <= 0 || data.remaining() < length + 4) {
+                break;
+            }
+            ByteBuffer payload = data.slice();
+            payload.limit(length);
+            data.position(data.position() + length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if (data.getInt() != (int) crc.getValue()) {
+                break;
+            }
+            apply(payload, store);
+            applied++;
+            end = data.position();
+        }
+        channel.truncate(end);
+        channel.position(end);
+        return applied;
+    }
+
+    public void logAdd(StudentRecord rec) throws IOException {
+        Student s = rec.getStudent();
+        byte[] name = encode(s.getName());
+        byte[] cls = encode(s.getClassName());
+        byte[] dept = encode(s.getDepartment());
+        begin(ADD, s.getRollNumber(), 6 + name.length + cls.length + dept.length + Result.SUBJECT_COUNT);
+        putString(name);
+        putString(cls);
+        putString(dept);
+        putMarks(rec.getResult());
+        commit();
+    }
+
+    public void logUpdate(int roll, Result result) throws IOException {
+        begin(UPDATE, roll, Result.SUBJECT_COUNT);
+        putMarks(result);
+        commit();
+    }
+
+    public void logDelete(int roll) throws IOException {
+        begin(DELETE, roll, 0);
+        commit();
+    }
+
+    // Called once the main data file holds every journaled change
+    public void reset() throws IOException {
+        checkOpen();
+        channel.truncate(0);
+        channel.position(0);
+        writeHeader(channel);
+        pendingEntries = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void apply(ByteBuffer payload, RecordStore store) throws IOException {
+        byte type = payload.get();
+        int roll = payload.getInt();
+        switch (type) {
+            case ADD -> {
+                Student s = new Student(getString(payload), roll, getString(payload), getString(payload));
+                StudentRecord rec = new StudentRecord(s, getMarks(payload));
+                if (!store.contains(roll)) {
+                    store.add(rec);
+                }
+            }
+            case UPDATE -> {
+                Result result = getMarks(payload);
+                int slot = store.find(roll);
+                if (slot != RollNumberIndex.NOT_FOUND) {
+                    store.set(slot, new StudentRecord(store.get(slot).getStudent(), result));
+                }
+            }
+            case DELETE -> {
+                int slot = store.find(roll);
+                if (slot != RollNumberIndex.NOT_FOUND) {
+                    store.remove(slot);
+                }
+            }
+            default -> throw new IOException("Unknown journal entry type " + type);
+        }
+    }
+
+    private void writeHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC);
+        header.putShort((short) VERSION);
+        header.put((byte) Result.SUBJECT_COUNT);
+        header.put((byte) 0);
+        header.flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        channel.force(false);
+    }
+
+    private void begin(byte type, int roll, int bodyBytes) {
+        int needed = 4 + 5 + bodyBytes + 4;
+        if (entry.capacity() < needed) {
+            entry = ByteBuffer.allocate(Math.max(needed, entry.capacity() * 2));
+        }
+        entry.clear();
+        entry.putInt(5 + bodyBytes);
+        entry.put(type);
+        entry.putInt(roll);
+    }
+
+    private void checkOpen() throws IOException {
+        if (channel == null) {
+            throw new IOException("Journal " + file + " is not open; the change was not saved");
+        }
+    }
+
+    private void commit() throws IOException {
+        checkOpen();
+        crc.reset();
+        crc.update(entry.array(), 4, entry.position() - 4);
+        entry.putInt((int) crc.getValue());
+        entry.flip();
+        while (entry.hasRemaining()) {
+            channel.write(entry);
+        }
+        channel.force(false);
+        pendingEntries++;
+    }
+
+    private void putString(byte[] bytes) {
+        entry.putShort((short) bytes.length);
+        entry.put(bytes);
+    }
+
+    private void putMarks(Result result) {
+        for (int subject = 0; subject < Result.SUBJECT_COUNT; subject++) {
+            entry.put((byte) result.getMark(subject));
+        }
+    }
+
+    private static byte[] encode(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IOException("String too long to journal: " + value.length() + " characters");
+        }
+        return bytes;
+    }
+
+    private static String getString(ByteBuffer payload) {
+        int length = payload.getShort() & 0xFFFF;
+        String value = new String(payload.array(), payload.arrayOffset() + payload.position(), length, StandardCharsets.UTF_8);
+        payload.position(payload.position() + length);
+        return value;
+    }
+
+    private static Result getMarks(ByteBuffer payload) throws IOException {
+        int[] marks = new int[Result.SUBJECT_COUNT];
+        for (int subject = 0; subject < marks.length; subject++) {
+            marks[subject] = payload.get() & 0xFF;
+        }
+        try {
+            return new Result(marks);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt journal entry: " + e.getMessage());
+        }
+    }
+}
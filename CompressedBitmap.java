@@ -0,0 +1,485 @@
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// Compressed bitmap of non-negative ints (record slots) in the style of
+// Roaring: values are split by their high 16 bits into containers, and each
+// container is a sorted array of the low 16 bits while it holds at most 4096
+// values, or a 65536-bit bitset once it is denser than that. Sparse sets
+// (one grade, one department) cost two bytes per member, dense ones (pass)
+// one bit per slot. AND, OR and AND NOT work container by container, and an
+// array container intersected with anything only probes its own members, so
+// combining a selective bitmap with a large one stays cheap.
+class CompressedBitmap {
+    private static final int ARRAY_MAX = 4096;
+    private static final int WORDS = 1 << 10;
+
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int size;
+
+    public void add(int value) {
+        char key = (char) (value >>> 16);
+        // Rebuilds add slots in ascending order, always to the last container
+        int i = size > 0 && keys[size - 1] == key ? size - 1 : find(key);
+        if (i < 0) {
+            i = -i - 1;
+            insertAt(i, key, new ArrayContainer(new char[4], 0));
+        }
+        containers[i] = containers[i].add((char) value);
+    }
+
+    public void remove(int value) {
+        int i = find((char) (value >>> 16));
+        if (i < 0) {
+            return;
+        }
+        Container c = containers[i].remove((char) value);
+        if (c.cardinality() == 0) {
+            System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+            System.arraycopy(containers, i + 1, containers, i, size - i - 1);
+            containers[--size] = null;
+        } else {
+            containers[i] = c;
+        }
+    }
+
+    public boolean contains(int value) {
+        int i = find((char) (value >>> 16));
+        return i >= 0 && containers[i].contains((char) value);
+    }
+
+    public int cardinality() {
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            n += containers[i].cardinality();
+        }
+        return n;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        keys = new char[4];
+        containers = new Container[4];
+        size = 0;
+    }
+
+    public CompressedBitmap copy() {
+        CompressedBitmap out = new CompressedBitmap();
+        for (int i = 0; i < size; i++) {
+            out.append(keys[i], containers[i].copy());
+        }
+        return out;
+    }
+
+    // Approximate heap taken by the containers
+    public long sizeInBytes() {
+        long bytes = 16L + keys.length * 2L + containers.length * 4L;
+        for (int i = 0; i < size; i++) {
+            bytes += containers[i].sizeInBytes();
+        }
+        return bytes;
+    }
+
+    // Calls the action for every value in ascending order
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    public int[] toArray() {
+        int[] out = new int[cardinality()];
+        int[] n = new int[1];
+        forEach(v -> out[n[0]++] = v);
+        return out;
+    }
+
+    public static CompressedBitmap and(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap out = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                Container c = a.containers[i].and(b.containers[j]);
+                if (c.cardinality() > 0) {
+                    out.append(a.keys[i], c);
+                }
+                i++;
+                j++;
+            }
+        }
+        return out;
+    }
+
+    public static CompressedBitmap or(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap out = new CompressedBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.size || j < b.size) {
+            if (j == b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+                out.append(a.keys[i], a.containers[i++].copy());
+            } else if (i == a.size || a.keys[i] > b.keys[j]) {
+                out.append(b.keys[j], b.containers[j++].copy());
+            } else {
+                out.append(a.keys[i], a.containers[i++].or(b.containers[j++]));
+            }
+        }
+        return out;
+    }
+
+    // Values of a that are not in b
+    public static CompressedBitmap andNot(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap out = new CompressedBitmap();
+        int j = 0;
+        for (int i = 0; i < a.size; i++) {
+            while (j < b.size && b.keys[j] < a.keys[i]) {
+                j++;
+            }
+            Container c = j < b.size && b.keys[j] == a.keys[i]
+                    ? a.containers[i].andNot(b.containers[j]) : a.containers[i].copy();
+            if (c.cardinality() > 0) {
+                out.append(a.keys[i], c);
+            }
+        }
+        return out;
+    }
+
+    private int find(char key) {
+        int lo = 0;
+        int hi = size - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid] < key) {
+                lo = mid + 1;
+            } else if (keys[mid] > key) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(lo + 1);
+    }
+
+    private void insertAt(int i, char key, Container c) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(containers, i, containers, i + 1, size - i);
+        keys[i] = key;
+        containers[i] = c;
+        size++;
+    }
+
+    // Keys arrive in ascending order when building results
+    private void append(char key, Container c) {
+        insertAt(size, key, c);
+    }
+
+    // The low 16 bits of the values sharing one high half. add and remove may
+    // return a different container when the representation changes.
+    private abstract static class Container {
+        abstract Container add(char v);
+
+        abstract Container remove(char v);
+
+        abstract boolean contains(char v);
+
+        abstract int cardinality();
+
+        abstract Container and(Container other);
+
+        abstract Container or(Container other);
+
+        abstract Container andNot(Container other);
+
+        abstract Container copy();
+
+        abstract long sizeInBytes();
+
+        abstract void forEach(int high, IntConsumer action);
+
+        // Array when sparse enough, else bitset
+        static Container of(long[] words, int cardinality) {
+            if (cardinality > ARRAY_MAX) {
+                return new BitsetContainer(words, cardinality);
+            }
+            char[] values = new char[Math.max(1, cardinality)];
+            int n = 0;
+            for (int w = 0; w < WORDS; w++) {
+                for (long bits = words[w]; bits != 0; bits &= bits - 1) {
+                    values[n++] = (char) (w << 6 | Long.numberOfTrailingZeros(bits));
+                }
+            }
+            return new ArrayContainer(values, n);
+        }
+    }
+
+    private static final class ArrayContainer extends Container {
+        private char[] values;
+        private int n;
+
+        ArrayContainer(char[] values, int n) {
+            this.values = values;
+            this.n = n;
+        }
+
+        @Override
+        Container add(char v) {
+            int i = n == 0 || v > values[n - 1] ? -n - 1 : Arrays.binarySearch(values, 0, n, v);
+            if (i >= 0) {
+                return this;
+            }
+            if (n == ARRAY_MAX) {
+                BitsetContainer bits = toBitset();
+                return bits.add(v);
+            }
+            i = -i - 1;
+            if (n == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, n * 2));
+            }
+            System.arraycopy(values, i, values, i + 1, n - i);
+            values[i] = v;
+            n++;
+            return this;
+        }
+
+        @Override
+        Container remove(char v) {
+            int i = Arrays.binarySearch(values, 0, n, v);
+            if (i >= 0) {
+                System.arraycopy(values, i + 1, values, i, n - i - 1);
+                n--;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char v) {
+            return Arrays.binarySearch(values, 0, n, v) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return n;
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] out = new char[Math.max(1, n)];
+            int k = 0;
+            if (other instanceof ArrayContainer a) {
+                int i = 0;
+                int j = 0;
+                while (i < n && j < a.n) {
+                    if (values[i] < a.values[j]) {
+                        i++;
+                    } else if (values[i] > a.values[j]) {
+                        j++;
+                    } else {
+                        out[k++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < n; i++) {
+                    if (other.contains(values[i])) {
+                        out[k++] = values[i];
+                    }
+                }
+            }
+            return new ArrayContainer(out, k);
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof ArrayContainer a && n + a.n <= ARRAY_MAX) {
+                char[] out = new char[Math.max(1, n + a.n)];
+                int i = 0;
+                int j = 0;
+                int k = 0;
+                while (i < n || j < a.n) {
+                    if (j == a.n || (i < n && values[i] < a.values[j])) {
+                        out[k++] = values[i++];
+                    } else if (i == n || values[i] > a.values[j]) {
+                        out[k++] = a.values[j++];
+                    } else {
+                        out[k++] = values[i++];
+                        j++;
+                    }
+                }
+                return new ArrayContainer(out, k);
+            }
+            return other instanceof ArrayContainer ? toBitset().or(other) : other.or(this);
+        }
+
+        @Override
+        Container andNot(Container other) {
+            char[] out = new char[Math.max(1, n)];
+            int k = 0;
+            for (int i = 0; i < n; i++) {
+                if (!other.contains(values[i])) {
+                    out[k++] = values[i];
+                }
+            }
+            return new ArrayContainer(out, k);
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(1, n)), n);
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 32L + values.length * 2L;
+        }
+
+        @Override
+        void forEach(int high, IntConsumer action) {
+            for (int i = 0; i < n; i++) {
+                action.accept(high | values[i]);
+            }
+        }
+
+        BitsetContainer toBitset() {
+            long[] words = new long[WORDS];
+            for (int i = 0; i < n; i++) {
+                words[values[i] >>> 6] |= 1L << values[i];
+            }
+            return new BitsetContainer(words, n);
+        }
+    }
+
+    private static final class BitsetContainer extends Container {
+        private final long[] words;
+        private int cardinality;
+
+        BitsetContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char v) {
+            long bit = 1L << v;
+            if ((words[v >>> 6] & bit) == 0) {
+                words[v >>> 6] |= bit;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char v) {
+            long bit = 1L << v;
+            if ((words[v >>> 6] & bit) != 0) {
+                words[v >>> 6] &= ~bit;
+                cardinality--;
+                if (cardinality <= ARRAY_MAX) {
+                    return Container.of(words, cardinality);
+                }
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char v) {
+            return (words[v >>> 6] & (1L << v)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            long[] o = ((BitsetContainer) other).words;
+            long[] out = new long[WORDS];
+            int card = 0;
+            for (int w = 0; w < WORDS; w++) {
+                out[w] = words[w] & o[w];
+                card += Long.bitCount(out[w]);
+            }
+            return Container.of(out, card);
+        }
+
+        @Override
+        Container or(Container other) {
+            long[] out = words.clone();
+            int card = cardinality;
+            if (other instanceof ArrayContainer a) {
+                for (int i = 0; i < a.n; i++) {
+                    char v = a.values[i];
+                    if ((out[v >>> 6] & (1L << v)) == 0) {
+                        out[v >>> 6] |= 1L << v;
+                        card++;
+                    }
+                }
+                return new BitsetContainer(out, card);
+            }
+            long[] o = ((BitsetContainer) other).words;
+            card = 0;
+            for (int w = 0; w < WORDS; w++) {
+                out[w] |= o[w];
+                card += Long.bitCount(out[w]);
+            }
+            return new BitsetContainer(out, card);
+        }
+
+        @Override
+        Container andNot(Container other) {
+            long[] out = words.clone();
+            int card = cardinality;
+            if (other instanceof ArrayContainer a) {
+                for (int i = 0; i < a.n; i++) {
+                    char v = a.values[i];
+                    if ((out[v >>> 6] & (1L << v)) != 0) {
+                        out[v >>> 6] &= ~(1L << v);
+                        card--;
+                    }
+                }
+                return Container.of(out, card);
+            }
+            long[] o = ((BitsetContainer) other).words;
+            card = 0;
+            for (int w = 0; w < WORDS; w++) {
+                out[w] &= ~o[w];
+                card += Long.bitCount(out[w]);
+            }
+            return Container.of(out, card);
+        }
+
+        @Override
+        Container copy() {
+            return new BitsetContainer(words.clone(), cardinality);
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 24L + WORDS * 8L;
+        }
+
+        @Override
+        void forEach(int high, IntConsumer action) {
+            for (int w = 0; w < WORDS; w++) {
+                for (long bits = words[w]; bits != 0; bits &= bits - 1) {
+                    action.accept(high | w << 6 | Long.numberOfTrailingZeros(bits));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+// Batch import of student rows from a CSV file:
+//
+//   name,roll,class,department,maths,science,english,computer science
+//
+// with one marks column per subject of the SubjectSchema, in its order.
+//
+// The file is streamed in batches. Each batch is parsed and validated in
+// parallel while the next one is being read, then inserted in file order so
+// duplicate roll numbers are reported against the earliest row.
+class CsvImporter {
+    static final int BATCH_LINES = 8192;
+    static final int COLUMNS = 4 + Result.SUBJECT_COUNT;
+    // Accepted headings of the name, roll, class and department columns
+    private static final List<Set<String>> HEADINGS = List.of(Set.of("name"),
+            Set.of("roll", "roll number", "roll no"), Set.of("class"), Set.of("department", "dept"));
+
+    private final RecordStore store;
+    private final PrintStream errors;
+    private int imported;
+    private int rejected;
+
+    public CsvImporter(RecordStore store, PrintStream errors) {
+        this.store = store;
+        this.errors = errors;
+    }
+
+    public int getImported() {
+        return imported;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public void importFile(Path csv) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            int lineNumber = 0;
+            CompletableFuture<ParsedBatch> pending = null;
+            while (true) {
+                List<String> lines = new ArrayList<>(BATCH_LINES);
+                int firstLine = lineNumber + 1;
+                String line;
+                while (lines.size() < BATCH_LINES && (line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (lineNumber == 1 && isHeader(line)) {
+                        errors.println("Line 1: skipped the header row");
+                        firstLine++;
+                        continue;
+                    }
+                    lines.add(line);
+                }
+                if (lines.isEmpty()) {
+                    break;
+                }
+                int batchStart = firstLine;
+                CompletableFuture<ParsedBatch> parsed = CompletableFuture.supplyAsync(() -> parseBatch(lines, batchStart));
+                if (pending != null) {
+                    insert(pending.join());
+                }
+                pending = parsed;
+            }
+            if (pending != null) {
+                insert(pending.join());
+            }
+        }
+    }
+
+    // Only a line naming every column counts as the header, so a file
+    // without one keeps its first row whatever the student is called
+    static boolean isHeader(String line) {
+        List<String> fields;
+        try {
+            fields = splitFields(line);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (fields.size() != COLUMNS) {
+            return false;
+        }
+        for (int column = 0; column < 4; column++) {
+            if (!HEADINGS.get(column).contains(fields.get(column).trim().toLowerCase(Locale.ROOT))) {
+                return false;
+            }
+        }
+        for (int subject = 0; subject < Result.SUBJECT_COUNT; subject++) {
+            String heading = fields.get(4 + subject).trim();
+            SubjectSchema.Subject s = SubjectSchema.ACTIVE.subject(subject);
+            if (!heading.equalsIgnoreCase(s.name) && !heading.equalsIgnoreCase(s.heading)
+                    && SubjectSchema.ACTIVE.find(heading) != subject) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ParsedBatch parseBatch(List<String> lines, int firstLine) {
+        ParsedBatch batch = new ParsedBatch(firstLine, lines.size());
+        IntStream.range(0, lines.size()).parallel().forEach(i -> {
+            try {
+                batch.records[i] = parseRow(lines.get(i));
+            } catch (IllegalArgumentException e) {
+                batch.errors[i] = e.getMessage();
+            }
+        });
+        return batch;
+    }
+
+    // Applies the same rules as interactive entry: numeric roll number and
+    // marks, with the range check left to the Result constructor.
+    // Blank lines yield null and are skipped.
+    static StudentRecord parseRow(String line) {
+        if (line.isBlank()) {
+            return null;
+        }
+        List<String> fields = splitFields(line);
+        if (fields.size() != COLUMNS) {
+            throw new IllegalArgumentException("Expected " + COLUMNS + " fields but found " + fields.size());
+        }
+        int roll = parseInt(fields.get(1), "roll number");
+        int[] marks = new int[Result.SUBJECT_COUNT];
+        for (int subject = 0; subject < marks.length; subject++) {
+            marks[subject] = parseInt(fields.get(4 + subject), "marks");
+        }
+        Student s = new Student(fields.get(0), roll, fields.get(2), fields.get(3));
+        return new StudentRecord(s, new Result(marks));
+    }
+
+    private static int parseInt(String field, String what) {
+        try {
+            return Integer.parseInt(field.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + what + ": '" + field + "'");
+        }
+    }
+
+    // Comma-separated fields; double quotes may wrap a field and "" escapes a quote
+    static List<String> splitFields(String line) {
+        List<String> fields = new ArrayList<>(COLUMNS);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private void insert(ParsedBatch batch) {
+        store.ensureCapacity(store.slotLimit() + batch.records.length);
+        for (int i = 0; i < batch.records.length; i++) {
+            StudentRecord rec = batch.records[i];
+            String error = batch.errors[i];
+            if (rec != null && store.contains(rec.getStudent().getRollNumber())) {
+                error = "Roll number " + rec.getStudent().getRollNumber() + " already exists";
+            }
+            if (error != null) {
+                errors.println("Line " + (batch.firstLine + i) + ": " + error);
+                rejected++;
+            } else if (rec != null) {
+                store.add(rec);
+                imported++;
+            }
+        }
+    }
+
+    private static final class ParsedBatch {
+        final int firstLine;
+        final StudentRecord[] records;
+        final String[] errors;
+
+        ParsedBatch(int firstLine, int size) {
+            this.firstLine = firstLine;
+            this.records = new StudentRecord[size];
+            this.errors = new String[size];
+        }
+    }
+}
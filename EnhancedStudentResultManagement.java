@@ -1,94 +1,197 @@
 import java.util.*;
 import java.io.*;
+import java.nio.file.*;
+import java.nio.charset.StandardCharsets;
 
 // Make all classes Serializable for file operations
 class Student implements Serializable {
     private static final long serialVersionUID = 1L;
+    // Class and department are kept as shared dictionary codes but serialized
+    // as the strings they always were, so old .ser files still load
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("name", String.class),
+            new ObjectStreamField("rollNumber", int.class),
+            new ObjectStreamField("className", String.class),
+            new ObjectStreamField("department", String.class)};
     private String name;
     private int rollNumber;
-    private String className;
-    private String department;
+    private transient short classCode;
+    private transient short departmentCode;
 
     public Student(String name, int rollNumber, String className, String department) {
+        this(name, rollNumber, AttributeDictionary.CLASSES.code(className), AttributeDictionary.DEPARTMENTS.code(department));
+    }
+
+    public Student(String name, int rollNumber, int classCode, int departmentCode) {
         this.name = name;
         this.rollNumber = rollNumber;
-        this.className = className;
-        this.department = department;
+        this.classCode = (short) classCode;
+        this.departmentCode = (short) departmentCode;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("name", name);
+        fields.put("rollNumber", rollNumber);
+        fields.put("className", getClassName());
+        fields.put("department", getDepartment());
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        name = (String) fields.get("name", null);
+        rollNumber = fields.get("rollNumber", 0);
+        classCode = (short) AttributeDictionary.CLASSES.code((String) fields.get("className", null));
+        departmentCode = (short) AttributeDictionary.DEPARTMENTS.code((String) fields.get("department", null));
     }
 
     // Getters and Setters
     public String getName() { return name; }
     public int getRollNumber() { return rollNumber; }
-    public String getClassName() { return className; }
-    public String getDepartment() { return department; }
+    public String getClassName() { return AttributeDictionary.CLASSES.value(getClassCode()); }
+    public String getDepartment() { return AttributeDictionary.DEPARTMENTS.value(getDepartmentCode()); }
+    public int getClassCode() { return Short.toUnsignedInt(classCode); }
+    public int getDepartmentCode() { return Short.toUnsignedInt(departmentCode); }
     
     @Override
     public String toString() {
-        return String.format("%-15s %-10d %-10s %-12s", name, rollNumber, className, department);
+        return String.format("%-15s %-10d %-10s %-12s", name, rollNumber, getClassName(), getDepartment());
     }
 }
 
 class Result implements Serializable {
     private static final long serialVersionUID = 1L;
-    private int maths;
-    private int science;
-    private int english;
-    private int computerScience;
+    public static final int SUBJECT_COUNT = SubjectSchema.ACTIVE.size();
+    public static final String[] SUBJECT_NAMES = SubjectSchema.ACTIVE.names();
+    public static final int PASS_MARK = 40;
+    // The four original subjects stay in the serialized form so .ser files
+    // written before the schema existed still load, and the other way round
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("maths", int.class),
+            new ObjectStreamField("science", int.class),
+            new ObjectStreamField("english", int.class),
+            new ObjectStreamField("computerScience", int.class),
+            new ObjectStreamField("marks", byte[].class)};
+    private static final String[] LEGACY_FIELDS = {"maths", "science", "english", "computerScience"};
+    // Marks fit in 7 bits, so up to eight subjects pack into the low 56 bits
+    // of one long; larger schemas keep one byte per subject in an array
+    // instead. The grade, looked up once, sits in the top three bits, which
+    // keeps a result at 24 bytes against the 32 four int fields took.
+    private static final int BITS = 7;
+    private static final int PACKED_SUBJECTS = 8;
+    private static final long MARKS_MASK = (1L << (PACKED_SUBJECTS * BITS)) - 1;
+    private static final int GRADE_SHIFT = 61;
+    private static final Grade[] GRADES = Grade.values();
+    private long packed;
+    private byte[] wide;
 
-    public Result(int maths, int science, int english, int computerScience) {
-        if (!isValidMarks(maths) || !isValidMarks(science) || 
-            !isValidMarks(english) || !isValidMarks(computerScience)) {
-            throw new IllegalArgumentException("Marks must be between 0 and 100");
+    public Result(int... marks) {
+        if (marks.length != SUBJECT_COUNT) {
+            throw new IllegalArgumentException("Expected marks for " + SUBJECT_COUNT + " subjects but got " + marks.length);
         }
-        this.maths = maths;
-        this.science = science;
-        this.english = english;
-        this.computerScience = computerScience;
+        for (int mark : marks) {
+            if (!isValidMarks(mark)) {
+                throw new IllegalArgumentException("Marks must be between 0 and 100");
+            }
+        }
+        store(marks);
     }
 
-    private boolean isValidMarks(int marks) {
+    // Sets the marks and caches the grade; results never change after that
+    private void store(int[] marks) {
+        packed = 0;
+        if (marks.length > PACKED_SUBJECTS) {
+            wide = new byte[marks.length];
+            for (int subject = 0; subject < marks.length; subject++) {
+                wide[subject] = (byte) marks[subject];
+            }
+        } else {
+            for (int subject = 0; subject < marks.length; subject++) {
+                packed |= (long) marks[subject] << (subject * BITS);
+            }
+        }
+        packed |= (long) Grade.forTotal(totalMarks()).ordinal() << GRADE_SHIFT;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        byte[] marks = new byte[SUBJECT_COUNT];
+        for (int subject = 0; subject < marks.length; subject++) {
+            marks[subject] = (byte) getMark(subject);
+            if (subject < LEGACY_FIELDS.length) {
+                fields.put(LEGACY_FIELDS[subject], getMark(subject));
+            }
+        }
+        fields.put("marks", marks);
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        byte[] stored = (byte[]) fields.get("marks", null);
+        int[] marks = new int[stored != null ? stored.length : LEGACY_FIELDS.length];
+        for (int subject = 0; subject < marks.length; subject++) {
+            marks[subject] = stored != null ? stored[subject] : fields.get(LEGACY_FIELDS[subject], 0);
+            if (!isValidMarks(marks[subject])) {
+                throw new InvalidObjectException("Marks must be between 0 and 100");
+            }
+        }
+        if (marks.length != SUBJECT_COUNT) {
+            throw new InvalidObjectException("Result has " + marks.length + " subjects, expected " + SUBJECT_COUNT);
+        }
+        store(marks);
+    }
+
+    private static boolean isValidMarks(int marks) {
         return marks >= 0 && marks <= 100;
     }
 
-    public int getMaths() { return maths; }
-    public int getScience() { return science; }
-    public int getEnglish() { return english; }
-    public int getComputerScience() { return computerScience; }
+    // Marks by subject position, in schema order
+    public int getMark(int subject) {
+        Objects.checkIndex(subject, SUBJECT_COUNT);
+        return wide != null ? wide[subject] : (int) (packed >>> (subject * BITS)) & 0x7F;
+    }
 
     public int totalMarks() {
-        return maths + science + english + computerScience;
+        if (wide != null) {
+            int total = 0;
+            for (byte mark : wide) {
+                total += mark;
+            }
+            return total;
+        }
+        int total = 0;
+        for (long rest = packed & MARKS_MASK; rest != 0; rest >>>= BITS) {
+            total += (int) rest & 0x7F;
+        }
+        return total;
     }
 
     public float averageMarks() {
-        return totalMarks() / 4.0f;
+        return totalMarks() / (float) SUBJECT_COUNT;
+    }
+
+    // Looked up once from the total; results are immutable
+    public Grade getGrade() {
+        return GRADES[(int) (packed >>> GRADE_SHIFT)];
     }
 
     public String grade() {
-        float avg = averageMarks();
-        if (avg >= 90) return "A+";
-        else if (avg >= 80) return "A";
-        else if (avg >= 70) return "B";
-        else if (avg >= 60) return "C";
-        else if (avg >= 50) return "D";
-        else if (avg >= 40) return "E";
-        else return "F";
+        return getGrade().label();
     }
 
     public String getRemarks() {
-        return switch (grade()) {
-            case "A+" -> "Outstanding";
-            case "A" -> "Excellent";
-            case "B" -> "Very Good";
-            case "C" -> "Good";
-            case "D" -> "Average";
-            case "E" -> "Poor";
-            case "F" -> "Fail";
-            default -> "No Remarks";
-        };
+        return getGrade().remarks();
     }
-    
+
     public boolean isPass() {
-        return maths >= 40 && science >= 40 && english >= 40 && computerScience >= 40;
+        for (int subject = 0; subject < SUBJECT_COUNT; subject++) {
+            if (getMark(subject) < PASS_MARK) {
+                return false;
+            }
+        }
+        return true;
     }
 }
 
@@ -115,18 +218,27 @@ class StudentManagementException extends Exception {
 
 // Implement the DataStorage interface
 class FileDataStorage implements DataStorage {
-    private static final String DATA_FILE = "student_data.ser";
+    static final String DATA_FILE = "student_data.ser";
+    private final String dataFile;
+
+    public FileDataStorage() {
+        this(DATA_FILE);
+    }
+
+    public FileDataStorage(String dataFile) {
+        this.dataFile = dataFile;
+    }
     
     @Override
     public void saveData(StudentRecord[] records) throws IOException {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(DATA_FILE))) {
+        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(dataFile))) {
             oos.writeObject(records);
         }
     }
     
     @Override
     public StudentRecord[] loadData() throws IOException, ClassNotFoundException {
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(DATA_FILE))) {
+        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(dataFile))) {
             return (StudentRecord[]) ois.readObject();
         }
     }
@@ -138,30 +250,84 @@ interface DataStorage {
 }
 
 public class EnhancedStudentResultManagement {
-    private static Scanner sc = new Scanner(System.in);
-    private static StudentRecord[] records = new StudentRecord[0];
-    private static final FileDataStorage dataStorage = new FileDataStorage();
+    // Time spent waiting for the user is left out of the operation timings
+    private static final InputClock inputClock = new InputClock(System.in);
+    private static Scanner sc = new Scanner(inputClock);
+    private static final RecordStore store = new RecordStore();
+    private static final StatisticsEngine statistics = new StatisticsEngine();
+    private static final RankIndex rankIndex = new RankIndex();
+    private static final NameIndex nameIndex = new NameIndex();
+    private static final BitmapIndex bitmapIndex = new BitmapIndex();
+    private static final ReportCardCache reportCards = new ReportCardCache();
+    private static final OperationMetrics metrics = new OperationMetrics();
+    private static final DataStorage dataStorage = openDataStorage();
+    private static final DataStorage meteredStorage = new MeteredDataStorage(dataStorage, metrics);
+    private static final ChangeJournal journal = new ChangeJournal();
+    // Journaled changes are folded into the data file after this many entries
+    private static final int CHECKPOINT_INTERVAL = 1000;
+    // Rows per page in console listings; 0 shows everything at once
+    private static int pageSize = 50;
+    // Set while only one department's shards are loaded
+    private static String loadedDepartment;
+    // Opened on first use
+    private static ResultHistory history;
+
+    static {
+        store.addListener(statistics);
+        store.addListener(rankIndex);
+        store.addListener(nameIndex);
+        store.addListener(bitmapIndex);
+        store.addListener(reportCards);
+        reportCards.register();
+        if (dataStorage instanceof RecordStore.Listener listener) {
+            store.addListener(listener);
+        }
+    }
 
     public static void main(String[] args) {
+        String department = null;
+        if (args.length > 0) {
+            if (!args[0].equals("--department")) {
+                runCommand(args);
+                return;
+            }
+            if (args.length < 2) {
+                System.out.println("Usage: java EnhancedStudentResultManagement --department <name>");
+                return;
+            }
+            department = args[1];
+        }
+
         System.out.println("=== Enhanced Student Result Management System ===");
         
-        try {
-            // Try to load existing data using the DataStorage implementation
-            records = dataStorage.loadData();
-            System.out.println("Loaded existing student data.");
-        } catch (Exception e) {
-            System.out.println("No existing data found. Starting fresh.");
+        if (department == null) {
+            try {
+                loadExistingData();
+            } catch (IOException | ClassNotFoundException e) {
+                System.out.println("Error loading " + dataLocation() + ": " + e.getMessage());
+                System.out.println("Not starting, so the saved data is not overwritten. Fix or move the file aside and try again.");
+                return;
+            }
+        } else if (!loadDepartment(department)) {
+            return;
         }
 
-        if (records.length == 0) {
+        if (store.isEmpty()) {
             System.out.println("Please enter student data first.");
-            records = inputStudentData();
+            try {
+                inputStudentData();
+            } catch (IOException e) {
+                System.out.println("Error saving data: " + e.getMessage());
+            }
         }
 
         boolean exit = false;
         while (!exit) {
             displayMenu();
             int choice = getValidatedIntInput("Enter your choice: ");
+            long start = System.nanoTime();
+            long waited = inputClock.waitedNanos();
+            boolean failed = false;
             
             try {
                 switch (choice) {
@@ -178,16 +344,439 @@ public class EnhancedStudentResultManagement {
                     case 11 -> generateReportCard();
                     case 12 -> displaySubjectWiseAnalysis();
                     case 13 -> saveDataToFile();
-                    case 14 -> exit = true;
+                    case 14 -> displayGroupAnalysis(GroupByAnalytics.GroupBy.DEPARTMENT);
+                    case 15 -> displayGroupAnalysis(GroupByAnalytics.GroupBy.CLASS);
+                    case 16 -> displayStudentRank();
+                    case 17 -> displayTopStudents();
+                    case 18 -> exportStudentList();
+                    case 19 -> setPageSize();
+                    case 20 -> exportReportCards();
+                    case 21 -> displayMetrics();
+                    case 22 -> queryStudents();
+                    case 23 -> termHistory();
+                    case 24 -> exit = true;
                     default -> System.out.println("Invalid choice! Please try again.");
                 }
             } catch (Exception e) {
+                failed = true;
                 System.out.println("Error: " + e.getMessage());
             }
+            if (choice >= 1 && choice <= MENU_OPERATIONS.length) {
+                metrics.record(MENU_OPERATIONS[choice - 1], start + inputClock.waitedNanos() - waited, failed);
+            }
         }
+        closeData();
         System.out.println("Thank you for using the system!");
     }
 
+    // Folds any journaled changes into the data file before shutting down
+    private static void closeData() {
+        try {
+            if (journal.pendingEntries() > 0) {
+                checkpoint();
+            }
+            journal.close();
+        } catch (IOException e) {
+            System.out.println("Error saving data: " + e.getMessage());
+        }
+    }
+
+    // Sharded storage once the data has been split with --shard, otherwise one binary file
+    private static DataStorage openDataStorage() {
+        Path shardDir = Paths.get(ShardedDataStorage.SHARD_DIR);
+        if (ShardedDataStorage.exists(shardDir)) {
+            return new ShardedDataStorage(shardDir);
+        }
+        return new BinaryDataStorage();
+    }
+
+    private static String dataLocation() {
+        return dataStorage instanceof ShardedDataStorage shards
+                ? shards.getDirectory().toString() : BinaryDataStorage.DATA_FILE;
+    }
+
+    // Loads the last checkpoint and replays any journaled changes on top of it.
+    // Only a missing data file means starting fresh; a file or journal that
+    // cannot be read is an error, since the next checkpoint would otherwise
+    // replace it with whatever little is in the store.
+    private static void loadExistingData() throws IOException, ClassNotFoundException {
+        migrateLegacyData();
+        if (dataStorage instanceof BinaryDataStorage binary && Files.notExists(binary.getDataFile())) {
+            System.out.println("No existing data found. Starting fresh.");
+        } else {
+            int skipped = store.replaceAll(meteredStorage.loadData());
+            if (dataStorage instanceof ShardedDataStorage shards) {
+                shards.markClean();
+            }
+            System.out.println("Loaded existing student data.");
+            if (skipped > 0) {
+                System.out.println("Skipped " + skipped + " record(s) with duplicate roll numbers.");
+            }
+        }
+
+        int recovered = journal.replay(store);
+        if (recovered > 0) {
+            System.out.println("Recovered " + recovered + " unsaved change(s) from the journal.");
+        }
+    }
+
+    // Non-interactive commands given on the command line
+    private static void runCommand(String[] args) {
+        try {
+            switch (args[0]) {
+                case "--convert-legacy" -> {
+                    String serFile = args.length > 1 ? args[1] : FileDataStorage.DATA_FILE;
+                    Path binFile = Paths.get(args.length > 2 ? args[2] : BinaryDataStorage.DATA_FILE);
+                    int count = BinaryDataStorage.convertLegacy(serFile, binFile);
+                    System.out.println("Converted " + count + " records from " + serFile + " to " + binFile);
+                }
+                case "--import" -> {
+                    if (args.length < 2) {
+                        System.out.println("Usage: java EnhancedStudentResultManagement --import <file.csv>");
+                        return;
+                    }
+                    importCsv(Paths.get(args[1]));
+                }
+                case "--group-by" -> {
+                    if (args.length < 2) {
+                        System.out.println("Usage: java EnhancedStudentResultManagement --group-by <department|class>");
+                        return;
+                    }
+                    GroupByAnalytics.GroupBy groupBy = GroupByAnalytics.GroupBy.parse(args[1]);
+                    loadExistingData();
+                    journal.close();
+                    displayGroupAnalysis(groupBy);
+                }
+                case "--generate" -> {
+                    if (args.length < 3) {
+                        System.out.println("Usage: java EnhancedStudentResultManagement --generate <count> <binFile>");
+                        return;
+                    }
+                    int count = Integer.parseInt(args[1]);
+                    Path binFile = Paths.get(args[2]);
+                    new BinaryDataStorage(binFile).saveData(SyntheticData.generate(count));
+                    System.out.println("Generated " + count + " synthetic students in " + binFile);
+                }
+                case "--shard" -> {
+                    boolean byClass = args.length > 1
+                            && GroupByAnalytics.GroupBy.parse(args[1]) == GroupByAnalytics.GroupBy.CLASS;
+                    loadExistingData();
+                    ShardedDataStorage shards = ShardedDataStorage.create(Paths.get(ShardedDataStorage.SHARD_DIR), byClass);
+                    shards.saveData(store.toArray());
+                    journal.reset();
+                    journal.close();
+                    Path binary = Paths.get(BinaryDataStorage.DATA_FILE);
+                    if (Files.exists(binary)) {
+                        Files.move(binary, Paths.get(BinaryDataStorage.DATA_FILE + ".bak"), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    System.out.println("Split " + store.size() + " students into " + shards.shardCount()
+                            + " shard(s) in " + shards.getDirectory());
+                }
+                case "--report-cards" -> {
+                    if (args.length < 2) {
+                        System.out.println("Usage: java EnhancedStudentResultManagement --report-cards <dir> [text|html|both [department]]");
+                        return;
+                    }
+                    Set<ReportCardExporter.Format> formats = ReportCardExporter.Format.parse(args.length > 2 ? args[2] : "both");
+                    String department = args.length > 3 ? args[3] : null;
+                    // One department's shards are enough when the data is sharded
+                    if (department != null && dataStorage instanceof ShardedDataStorage) {
+                        if (!loadDepartment(department)) {
+                            return;
+                        }
+                    } else {
+                        loadExistingData();
+                    }
+                    journal.close();
+                    writeReportCards(Paths.get(args[1]), formats, department);
+                }
+                case "--query" -> {
+                    if (args.length < 2) {
+                        System.out.println("Usage: java EnhancedStudentResultManagement --query \"<query>\"");
+                        return;
+                    }
+                    StudentQuery query = StudentQuery.parse(String.join(" ", Arrays.copyOfRange(args, 1, args.length)));
+                    loadExistingData();
+                    journal.close();
+                    pageSize = 0;
+                    runQuery(query);
+                }
+                case "--mapped-report" -> {
+                    if (args.length < 2 && dataStorage instanceof ShardedDataStorage) {
+                        System.out.println("The data is sharded; give a binary data file to map.");
+                        return;
+                    }
+                    mappedReport(Paths.get(args.length > 1 ? args[1] : BinaryDataStorage.DATA_FILE));
+                }
+                case "--stream-report" -> {
+                    List<Path> files = new ArrayList<>();
+                    for (int i = 1; i < args.length; i++) {
+                        files.add(Paths.get(args[i]));
+                    }
+                    if (files.isEmpty()) {
+                        if (dataStorage instanceof ShardedDataStorage shards) {
+                            files.addAll(shards.shardFiles());
+                        } else if (dataStorage instanceof BinaryDataStorage) {
+                            files.add(Paths.get(BinaryDataStorage.DATA_FILE));
+                        } else {
+                            System.out.println("Only binary data files can be streamed; run with --convert-legacy first.");
+                            return;
+                        }
+                    }
+                    streamReport(files);
+                }
+                case "--close-term" -> {
+                    if (args.length < 2) {
+                        System.out.println("Usage: java EnhancedStudentResultManagement --close-term <term name>");
+                        return;
+                    }
+                    loadExistingData();
+                    journal.close();
+                    closeTerm(String.join(" ", Arrays.copyOfRange(args, 1, args.length)));
+                }
+                case "--history" -> {
+                    String report = args.length > 1 ? args[1] : "departments";
+                    loadExistingData();
+                    journal.close();
+                    List<ResultHistory.Term> timeline = history().timeline(store.toArray());
+                    pageSize = 0;
+                    switch (report) {
+                        case "improved" -> displayMostImproved(timeline, Math.max(0, timeline.size() - 2),
+                                timeline.size() - 1, args.length > 2 ? Integer.parseInt(args[2]) : 10);
+                        case "departments" -> history().printDepartmentTrend(timeline, System.out);
+                        default -> System.out.println("Usage: java EnhancedStudentResultManagement --history [improved [count]|departments]");
+                    }
+                }
+                case "--server" -> {
+                    int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+                    loadExistingData();
+                    ResultServer server = new ResultServer(store, statistics, rankIndex, nameIndex, metrics, reportCards);
+                    server.start(port);
+                    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                        server.stop();
+                        closeData();
+                    }));
+                    System.out.println("Serving on http://localhost:" + server.getPort() + "/ - press Ctrl+C to stop.");
+                }
+                default -> {
+                    System.out.println("Unknown option: " + args[0]);
+                    System.out.println("Usage: java EnhancedStudentResultManagement [--convert-legacy [serFile [binFile]] "
+                            + "| --import <file.csv> | --group-by <department|class> | --generate <count> <binFile> | --report-cards <dir> [text|html|both [department]] | --query <query> | --mapped-report [binFile] | --stream-report [binFile...] | --close-term <name> | --history [improved [count]|departments] | --server [port] | --shard [department|class] | --department <name>]");
+                }
+            }
+        } catch (Exception e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+
+    // Statistics for the whole roster read in place from the memory-mapped
+    // data file: nothing is loaded, and the heap holds only the counters
+    private static void mappedReport(Path file) throws IOException {
+        long start = System.nanoTime();
+        MappedRecordStore mapped = MappedRecordStore.open(file);
+        long opened = System.nanoTime();
+
+        StatisticsEngine.Histogram totals = new StatisticsEngine.Histogram(Result.SUBJECT_COUNT * 100);
+        StatisticsEngine.Histogram[] subjects = new StatisticsEngine.Histogram[Result.SUBJECT_COUNT];
+        for (int subject = 0; subject < subjects.length; subject++) {
+            subjects[subject] = new StatisticsEngine.Histogram(100);
+        }
+        int passed = 0;
+        MappedRecordStore.Row row = mapped.row();
+        for (int i = 0; i < mapped.size(); i++) {
+            row.moveTo(i);
+            int total = 0;
+            boolean pass = true;
+            for (int subject = 0; subject < subjects.length; subject++) {
+                int mark = row.mark(subject);
+                subjects[subject].add(mark);
+                total += mark;
+                pass &= mark >= Result.PASS_MARK;
+            }
+            totals.add(total);
+            if (pass) {
+                passed++;
+            }
+        }
+        SortedMap<String, GroupByAnalytics.GroupStats> departments =
+                GroupByAnalytics.compute(mapped, GroupByAnalytics.GroupBy.DEPARTMENT);
+        long scanned = System.nanoTime();
+
+        int count = totals.count();
+        System.out.println("\n===== Mapped Report: " + file + " =====");
+        System.out.println("Total Students: " + count);
+        if (count > 0) {
+            System.out.println("Class Average: " + String.format("%.2f", totals.sum() / (float) count));
+            System.out.println("Highest Total: " + totals.max());
+            System.out.println("Lowest Total: " + totals.min());
+            System.out.println("Median Total: " + String.format("%.1f", totals.median()));
+            System.out.println("Students Passed: " + passed);
+            System.out.println("Pass Percentage: " + String.format("%.2f%%", passed / (float) count * 100));
+            System.out.printf("\n%-15s %-8s %-8s %-8s %-12s\n", "Subject", "Average", "Highest", "Lowest", "Pass %");
+            System.out.println("=".repeat(55));
+            for (int subject = 0; subject < subjects.length; subject++) {
+                StatisticsEngine.Histogram marks = subjects[subject];
+                System.out.printf("%-15s %-8.2f %-8d %-8d %-12.2f\n", Result.SUBJECT_NAMES[subject], marks.average(),
+                        marks.max(), marks.min(), marks.countAtLeast(Result.PASS_MARK) / (float) count * 100);
+            }
+        }
+        GroupByAnalytics.print(departments, GroupByAnalytics.GroupBy.DEPARTMENT, System.out);
+        Runtime rt = Runtime.getRuntime();
+        System.out.printf("\nMapped in %d ms, scanned in %d ms; heap in use %d MB.\n",
+                (opened - start) / 1_000_000, (scanned - opened) / 1_000_000, (rt.totalMemory() - rt.freeMemory()) >> 20);
+        if (file.equals(Paths.get(BinaryDataStorage.DATA_FILE))
+                && Files.exists(journal.getFile()) && Files.size(journal.getFile()) > ChangeJournal.HEADER_BYTES) {
+            System.out.println("Changes not yet checkpointed from the journal are not included.");
+        }
+    }
+
+    // Statistics, topper and failed students in a single pass over the data
+    // files, read a chunk at a time. Only the counters, the topper and the
+    // rows being printed are on the heap, so files larger than the heap work.
+    private static void streamReport(List<Path> files) throws IOException {
+        long start = System.nanoTime();
+        StatisticsEngine.Histogram totals = new StatisticsEngine.Histogram(Result.SUBJECT_COUNT * 100);
+        StatisticsEngine.Histogram[] subjects = new StatisticsEngine.Histogram[Result.SUBJECT_COUNT];
+        for (int subject = 0; subject < subjects.length; subject++) {
+            subjects[subject] = new StatisticsEngine.Histogram(100);
+        }
+        int passed = 0;
+        StudentRecord topper = null;
+        TableRenderer failed = null;
+        try {
+            for (Path file : files) {
+                try (RecordStream in = RecordStream.open(file)) {
+                    while (in.next()) {
+                        int total = in.totalMarks();
+                        for (int subject = 0; subject < subjects.length; subject++) {
+                            subjects[subject].add(in.mark(subject));
+                        }
+                        totals.add(total);
+                        // Same tie-break as the rank index: lower roll number wins
+                        if (topper == null || total > topper.getResult().totalMarks()
+                                || total == topper.getResult().totalMarks()
+                                && in.rollNumber() < topper.getStudent().getRollNumber()) {
+                            topper = in.toRecord();
+                        }
+                        if (in.isPass()) {
+                            passed++;
+                        } else {
+                            if (failed == null) {
+                                System.out.println("\n===== Failed Students =====");
+                                failed = new TableRenderer(TableRenderer.console(), false);
+                                failed.header();
+                            }
+                            failed.row(in.toRecord());
+                        }
+                    }
+                }
+            }
+        } finally {
+            // Rows printed so far come out whole even if a file turns out to be corrupt
+            if (failed != null) {
+                failed.flush();
+            }
+        }
+        if (failed == null && totals.count() > 0) {
+            System.out.println("No failed students! All students passed.");
+        }
+
+        int count = totals.count();
+        if (count == 0) {
+            System.out.println("No students available.");
+        } else {
+            System.out.println("\n===== Class Statistics =====");
+            System.out.println("Total Students: " + count);
+            System.out.println("Class Average: " + String.format("%.2f", totals.sum() / (float) count));
+            System.out.println("Highest Total: " + totals.max());
+            System.out.println("Lowest Total: " + totals.min());
+            System.out.println("Median Total: " + String.format("%.1f", totals.median()));
+            System.out.println("90th Percentile Total: " + totals.percentile(90));
+            System.out.println("Students Passed: " + passed);
+            System.out.println("Pass Percentage: " + String.format("%.2f%%", passed / (float) count * 100));
+            System.out.println("\n===== Subject-wise Analysis =====");
+            System.out.printf("%-15s %-8s %-8s %-8s %-12s\n", "Subject", "Average", "Highest", "Lowest", "Pass %");
+            System.out.println("=".repeat(55));
+            for (int subject = 0; subject < subjects.length; subject++) {
+                StatisticsEngine.Histogram marks = subjects[subject];
+                System.out.printf("%-15s %-8.2f %-8d %-8d %-12.2f\n", Result.SUBJECT_NAMES[subject], marks.average(),
+                        marks.max(), marks.min(), marks.countAtLeast(Result.PASS_MARK) / (float) count * 100);
+            }
+            System.out.println("\n===== Class Topper =====");
+            TableRenderer table = new TableRenderer(TableRenderer.console(), false);
+            table.header();
+            table.row(topper);
+            table.flush();
+        }
+        Runtime rt = Runtime.getRuntime();
+        System.out.printf("\nStreamed %d students from %d file(s) in %d ms; heap in use %d MB.\n",
+                count, files.size(), (System.nanoTime() - start) / 1_000_000, (rt.totalMemory() - rt.freeMemory()) >> 20);
+        if (Files.exists(journal.getFile()) && Files.size(journal.getFile()) > ChangeJournal.HEADER_BYTES) {
+            System.out.println("Changes not yet checkpointed from the journal are not included.");
+        }
+    }
+
+    // Bulk rows bypass the journal; the import ends with a checkpoint instead
+    private static void importCsv(Path csv) throws IOException, ClassNotFoundException {
+        loadExistingData();
+        CsvImporter importer = new CsvImporter(store, System.out);
+        long start = System.nanoTime();
+        importer.importFile(csv);
+        checkpoint();
+        journal.close();
+        System.out.printf("Imported %d student(s), rejected %d row(s) in %d ms.\n",
+                importer.getImported(), importer.getRejected(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Works on one department's shards only, leaving the rest on disk. Unsaved
+    // changes in the journal may belong to any department, so they are first
+    // recovered into a full load and checkpointed.
+    private static boolean loadDepartment(String department) {
+        if (!(dataStorage instanceof ShardedDataStorage shards)) {
+            System.out.println("Working on a single department needs sharded data; run with --shard first.");
+            return false;
+        }
+        try {
+            if (Files.exists(journal.getFile()) && Files.size(journal.getFile()) > ChangeJournal.HEADER_BYTES) {
+                System.out.println("Recovering unsaved changes for all departments first.");
+                loadExistingData();
+                checkpoint();
+            } else {
+                journal.replay(store);
+            }
+            long start = System.nanoTime();
+            StudentRecord[] records = shards.loadDepartment(department);
+            metrics.record("storage.loadDepartment", start);
+            store.replaceAll(records);
+            shards.markClean();
+            loadedDepartment = department;
+            System.out.printf("Loaded department %s: %d of %d students.\n",
+                    department, store.size(), shards.totalCount());
+            return true;
+        } catch (IOException | ClassNotFoundException e) {
+            System.out.println("Error loading department " + department + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    // One-time upgrade of the old serialized data file to the binary format
+    private static void migrateLegacyData() throws IOException, ClassNotFoundException {
+        Path legacy = Paths.get(FileDataStorage.DATA_FILE);
+        Path binary = Paths.get(BinaryDataStorage.DATA_FILE);
+        if (dataStorage instanceof BinaryDataStorage && Files.notExists(binary) && Files.exists(legacy)) {
+            int count = BinaryDataStorage.convertLegacy(FileDataStorage.DATA_FILE, binary);
+            System.out.println("Converted " + count + " records from " + legacy + " to " + binary);
+        }
+    }
+
+    // Metric names for menu choices 1..23
+    private static final String[] MENU_OPERATIONS = {
+            "menu.displayAll", "menu.sortByTotal", "menu.sortByName", "menu.search", "menu.classStatistics",
+            "menu.topper", "menu.failedStudents", "menu.addStudent", "menu.updateMarks", "menu.deleteStudent",
+            "menu.reportCard", "menu.subjectAnalysis", "menu.save", "menu.departmentAnalysis", "menu.classAnalysis",
+            "menu.rank", "menu.topN", "menu.exportList", "menu.pageSize", "menu.exportReportCards", "menu.metrics",
+            "menu.query", "menu.history"};
+
     private static void displayMenu() {
         System.out.println("\n===== MAIN MENU =====");
         System.out.println("1. Display All Students");
@@ -203,21 +792,68 @@ public class EnhancedStudentResultManagement {
         System.out.println("11. Generate Report Card");
         System.out.println("12. Subject-wise Analysis");
         System.out.println("13. Save Data to File");
-        System.out.println("14. Exit");
+        System.out.println("14. Department-wise Analysis");
+        System.out.println("15. Class-wise Analysis");
+        System.out.println("16. Student Rank");
+        System.out.println("17. Top N Students");
+        System.out.println("18. Export Student List to File");
+        System.out.println("19. Set Listing Page Size");
+        System.out.println("20. Export Report Cards to Folder");
+        System.out.println("21. Operation Metrics");
+        System.out.println("22. Query Students");
+        System.out.println("23. Term History");
+        System.out.println("24. Exit");
     }
 
-    // File Operations using DataStorage implementation
+    // Every change is already in the journal, so saving only reports what
+    // is still waiting for the next checkpoint into the data file
     private static void saveDataToFile() {
-        try {
-            dataStorage.saveData(records);
-            System.out.println("Data saved successfully!");
-        } catch (IOException e) {
-            System.out.println("Error saving data: " + e.getMessage());
+        System.out.println("Data saved successfully!");
+        if (journal.pendingEntries() > 0) {
+            System.out.println(journal.pendingEntries() + " change(s) will be merged into "
+                    + dataLocation() + " at the next checkpoint.");
+        }
+    }
+
+    // File Operations using DataStorage implementation
+    private static void checkpoint() throws IOException {
+        meteredStorage.saveData(store.toArray());
+        journal.reset();
+    }
+
+    private static void maybeCheckpoint() throws IOException {
+        if (journal.pendingEntries() >= CHECKPOINT_INTERVAL) {
+            checkpoint();
+        }
+    }
+
+    // All changes go through these so the journal sees them before the store does
+    static void addRecord(StudentRecord rec) throws IOException {
+        // With one department loaded, other departments' roll numbers are only on disk
+        if (dataStorage instanceof ShardedDataStorage shards
+                && shards.isStoredElsewhere(rec.getStudent().getRollNumber())) {
+            throw new IllegalArgumentException("Roll number already exists: " + rec.getStudent().getRollNumber());
         }
+        journal.logAdd(rec);
+        store.add(rec);
+        maybeCheckpoint();
+    }
+
+    static void updateResult(int slot, Result result) throws IOException {
+        StudentRecord rec = store.get(slot);
+        journal.logUpdate(rec.getStudent().getRollNumber(), result);
+        store.set(slot, new StudentRecord(rec.getStudent(), result));
+        maybeCheckpoint();
+    }
+
+    static void removeRecord(int slot) throws IOException {
+        journal.logDelete(store.get(slot).getStudent().getRollNumber());
+        store.remove(slot);
+        maybeCheckpoint();
     }
 
     // Add student functionality
-    private static void addNewStudent() {
+    private static void addNewStudent() throws IOException {
         System.out.println("\n=== Add New Student ===");
         
         System.out.print("Name: ");
@@ -226,11 +862,9 @@ public class EnhancedStudentResultManagement {
         int roll = getValidatedIntInput("Roll Number: ");
         
         // Check if roll number already exists
-        for (StudentRecord rec : records) {
-            if (rec.getStudent().getRollNumber() == roll) {
-                System.out.println("Error: Roll number already exists!");
-                return;
-            }
+        if (store.contains(roll)) {
+            System.out.println("Error: Roll number already exists!");
+            return;
         }
         
         System.out.print("Class: ");
@@ -239,19 +873,14 @@ public class EnhancedStudentResultManagement {
         System.out.print("Department: ");
         String dept = sc.nextLine();
 
-        int maths = getValidatedMarkInput("Marks in Maths: ");
-        int science = getValidatedMarkInput("Marks in Science: ");
-        int english = getValidatedMarkInput("Marks in English: ");
-        int cs = getValidatedMarkInput("Marks in Computer Science: ");
+        int[] marks = readMarks("Marks in %s: ");
 
         try {
             Student s = new Student(name, roll, cls, dept);
-            Result r = new Result(maths, science, english, cs);
+            Result r = new Result(marks);
             StudentRecord newRecord = new StudentRecord(s, r);
             
-            // Add to records array
-            records = Arrays.copyOf(records, records.length + 1);
-            records[records.length - 1] = newRecord;
+            addRecord(newRecord);
             
             System.out.println("Student added successfully!");
         } catch (IllegalArgumentException e) {
@@ -260,173 +889,93 @@ public class EnhancedStudentResultManagement {
     }
 
     // Update marks functionality
-    private static void updateStudentMarks() {
+    private static void updateStudentMarks() throws IOException {
         System.out.print("Enter roll number to update marks: ");
         int roll = sc.nextInt();
         sc.nextLine();
         
-        for (int i = 0; i < records.length; i++) {
-            if (records[i].getStudent().getRollNumber() == roll) {
-                System.out.println("Updating marks for: " + records[i].getStudent().getName());
-                
-                int maths = getValidatedMarkInput("New Maths marks: ");
-                int science = getValidatedMarkInput("New Science marks: ");
-                int english = getValidatedMarkInput("New English marks: ");
-                int cs = getValidatedMarkInput("New Computer Science marks: ");
-                
-                try {
-                    Result newResult = new Result(maths, science, english, cs);
-                    records[i] = new StudentRecord(records[i].getStudent(), newResult);
-                    System.out.println("Marks updated successfully!");
-                } catch (IllegalArgumentException e) {
-                    System.out.println("Error: " + e.getMessage());
-                }
-                return;
-            }
+        int i = store.find(roll);
+        if (i == RollNumberIndex.NOT_FOUND) {
+            System.out.println("Student with roll number " + roll + " not found!");
+            return;
+        }
+        StudentRecord rec = store.get(i);
+        System.out.println("Updating marks for: " + rec.getStudent().getName());
+        
+        int[] marks = readMarks("New %s marks: ");
+        
+        try {
+            Result newResult = new Result(marks);
+            updateResult(i, newResult);
+            System.out.println("Marks updated successfully!");
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
         }
-        System.out.println("Student with roll number " + roll + " not found!");
     }
 
     // NEW: Delete student functionality
-    private static void deleteStudent() {
+    private static void deleteStudent() throws IOException {
         System.out.print("Enter roll number to delete: ");
         int roll = sc.nextInt();
         sc.nextLine();
         
-        for (int i = 0; i < records.length; i++) {
-            if (records[i].getStudent().getRollNumber() == roll) {
-                System.out.println("Are you sure you want to delete " + records[i].getStudent().getName() + "? (yes/no)");
-                String confirmation = sc.nextLine();
-                
-                if (confirmation.equalsIgnoreCase("yes")) {
-                    // Create new array without the student to delete
-                    StudentRecord[] newRecords = new StudentRecord[records.length - 1];
-                    for (int j = 0, k = 0; j < records.length; j++) {
-                        if (j != i) {
-                            newRecords[k++] = records[j];
-                        }
-                    }
-                    records = newRecords;
-                    System.out.println("Student deleted successfully!");
-                } else {
-                    System.out.println("Deletion cancelled.");
-                }
-                return;
-            }
+        int i = store.find(roll);
+        if (i == RollNumberIndex.NOT_FOUND) {
+            System.out.println("Student with roll number " + roll + " not found!");
+            return;
+        }
+        System.out.println("Are you sure you want to delete " + store.get(i).getStudent().getName() + "? (yes/no)");
+        String confirmation = sc.nextLine();
+        
+        if (confirmation.equalsIgnoreCase("yes")) {
+            removeRecord(i);
+            System.out.println("Student deleted successfully!");
+        } else {
+            System.out.println("Deletion cancelled.");
         }
-        System.out.println("Student with roll number " + roll + " not found!");
     }
 
     // NEW: Subject-wise analysis
     private static void displaySubjectWiseAnalysis() {
-        int mathsSum = 0, scienceSum = 0, englishSum = 0, csSum = 0;
-        int mathsMax = Integer.MIN_VALUE, scienceMax = Integer.MIN_VALUE;
-        int englishMax = Integer.MIN_VALUE, csMax = Integer.MIN_VALUE;
-        int mathsMin = Integer.MAX_VALUE, scienceMin = Integer.MAX_VALUE;
-        int englishMin = Integer.MAX_VALUE, csMin = Integer.MAX_VALUE;
-        int mathsPass = 0, sciencePass = 0, englishPass = 0, csPass = 0;
-        
-        for (StudentRecord rec : records) {
-            // Maths
-            int maths = rec.getResult().getMaths();
-            mathsSum += maths;
-            mathsMax = Math.max(mathsMax, maths);
-            mathsMin = Math.min(mathsMin, maths);
-            if (maths >= 40) mathsPass++;
-            
-            // Science
-            int science = rec.getResult().getScience();
-            scienceSum += science;
-            scienceMax = Math.max(scienceMax, science);
-            scienceMin = Math.min(scienceMin, science);
-            if (science >= 40) sciencePass++;
-            
-            // English
-            int english = rec.getResult().getEnglish();
-            englishSum += english;
-            englishMax = Math.max(englishMax, english);
-            englishMin = Math.min(englishMin, english);
-            if (english >= 40) englishPass++;
-            
-            // Computer Science
-            int cs = rec.getResult().getComputerScience();
-            csSum += cs;
-            csMax = Math.max(csMax, cs);
-            csMin = Math.min(csMin, cs);
-            if (cs >= 40) csPass++;
-        }
-        
-        int totalStudents = records.length;
-        
         System.out.println("\n===== Subject-wise Analysis =====");
         System.out.printf("%-15s %-8s %-8s %-8s %-12s\n", 
             "Subject", "Average", "Highest", "Lowest", "Pass %");
         System.out.println("=".repeat(55));
         
-        System.out.printf("%-15s %-8.2f %-8d %-8d %-12.2f\n", 
-            "Mathematics", mathsSum/(float)totalStudents, mathsMax, mathsMin, 
-            (mathsPass/(float)totalStudents)*100);
-            
-        System.out.printf("%-15s %-8.2f %-8d %-8d %-12.2f\n", 
-            "Science", scienceSum/(float)totalStudents, scienceMax, scienceMin, 
-            (sciencePass/(float)totalStudents)*100);
-            
-        System.out.printf("%-15s %-8.2f %-8d %-8d %-12.2f\n", 
-            "English", englishSum/(float)totalStudents, englishMax, englishMin, 
-            (englishPass/(float)totalStudents)*100);
-            
-        System.out.printf("%-15s %-8.2f %-8d %-8d %-12.2f\n", 
-            "Computer Science", csSum/(float)totalStudents, csMax, csMin, 
-            (csPass/(float)totalStudents)*100);
+        for (int subject = 0; subject < Result.SUBJECT_COUNT; subject++) {
+            StatisticsEngine.Histogram marks = statistics.subject(subject);
+            System.out.printf("%-15s %-8.2f %-8d %-8d %-12.2f\n", 
+                Result.SUBJECT_NAMES[subject], marks.average(), marks.max(), marks.min(), 
+                (marks.countAtLeast(Result.PASS_MARK)/(float)marks.count())*100);
+        }
+    }
+
+    private static void displayGroupAnalysis(GroupByAnalytics.GroupBy groupBy) {
+        GroupByAnalytics.print(GroupByAnalytics.compute(store.snapshot(), groupBy), groupBy, System.out);
     }
 
     // Generate detailed report card
     private static void generateReportCard() {
         int roll = getValidatedIntInput("Enter roll number for report card: ");
         
-        for (StudentRecord rec : records) {
-            if (rec.getStudent().getRollNumber() == roll) {
-                System.out.println("\n" + "=".repeat(50));
-                System.out.println("           REPORT CARD");
-                System.out.println("=".repeat(50));
-                System.out.println("Name: " + rec.getStudent().getName());
-                System.out.println("Roll No: " + rec.getStudent().getRollNumber());
-                System.out.println("Class: " + rec.getStudent().getClassName());
-                System.out.println("Department: " + rec.getStudent().getDepartment());
-                System.out.println("-".repeat(50));
-                System.out.println("SUBJECTS\tMARKS\tSTATUS");
-                System.out.println("-".repeat(50));
-                System.out.printf("Mathematics\t%d\t%s\n", rec.getResult().getMaths(), 
-                    rec.getResult().getMaths() >= 40 ? "PASS" : "FAIL");
-                System.out.printf("Science\t\t%d\t%s\n", rec.getResult().getScience(),
-                    rec.getResult().getScience() >= 40 ? "PASS" : "FAIL");
-                System.out.printf("English\t\t%d\t%s\n", rec.getResult().getEnglish(),
-                    rec.getResult().getEnglish() >= 40 ? "PASS" : "FAIL");
-                System.out.printf("Computer Science\t%d\t%s\n", rec.getResult().getComputerScience(),
-                    rec.getResult().getComputerScience() >= 40 ? "PASS" : "FAIL");
-                System.out.println("-".repeat(50));
-                System.out.printf("TOTAL MARKS: %d/400\n", rec.getResult().totalMarks());
-                System.out.printf("AVERAGE: %.2f%%\n", rec.getResult().averageMarks());
-                System.out.printf("GRADE: %s\n", rec.getResult().grade());
-                System.out.printf("REMARKS: %s\n", rec.getResult().getRemarks());
-                System.out.printf("OVERALL STATUS: %s\n", rec.getResult().isPass() ? "PASS" : "FAIL");
-                System.out.println("=".repeat(50));
-                return;
-            }
+        StudentRecord rec = store.findByRoll(roll);
+        if (rec == null) {
+            System.out.println("Student not found!");
+            return;
         }
-        System.out.println("Student not found!");
+        System.out.print("\n" + new String(reportCards.get(rec), StandardCharsets.UTF_8));
     }
 
     // Input student data
-    private static StudentRecord[] inputStudentData() {
+    private static void inputStudentData() throws IOException {
         int n = getValidatedIntInput("Enter number of students: ");
         
         if (n <= 0) {
             System.out.println("Invalid number of students.");
-            return new StudentRecord[0];
+            return;
         }
 
-        StudentRecord[] newRecords = new StudentRecord[n];
+        store.ensureCapacity(store.slotLimit() + n);
 
         for (int i = 0; i < n; i++) {
             System.out.println("\nEnter details for student " + (i + 1));
@@ -435,6 +984,11 @@ public class EnhancedStudentResultManagement {
             String name = sc.nextLine();
             
             int roll = getValidatedIntInput("Roll Number: ");
+            if (store.contains(roll)) {
+                System.out.println("Error: Roll number already exists!");
+                i--;
+                continue;
+            }
             
             System.out.print("Class: ");
             String cls = sc.nextLine();
@@ -442,21 +996,17 @@ public class EnhancedStudentResultManagement {
             System.out.print("Department: ");
             String dept = sc.nextLine();
 
-            int maths = getValidatedMarkInput("Marks in Maths: ");
-            int science = getValidatedMarkInput("Marks in Science: ");
-            int english = getValidatedMarkInput("Marks in English: ");
-            int cs = getValidatedMarkInput("Marks in Computer Science: ");
+            int[] marks = readMarks("Marks in %s: ");
 
             try {
                 Student s = new Student(name, roll, cls, dept);
-                Result r = new Result(maths, science, english, cs);
-                newRecords[i] = new StudentRecord(s, r);
+                Result r = new Result(marks);
+                addRecord(new StudentRecord(s, r));
             } catch (IllegalArgumentException e) {
                 System.out.println("Error: " + e.getMessage());
                 i--;
             }
         }
-        return newRecords;
     }
 
     private static int getValidatedIntInput(String prompt) {
@@ -473,6 +1023,15 @@ public class EnhancedStudentResultManagement {
         }
     }
 
+    // One mark per subject in the schema, prompting with each subject's label
+    private static int[] readMarks(String prompt) {
+        int[] marks = new int[Result.SUBJECT_COUNT];
+        for (int subject = 0; subject < marks.length; subject++) {
+            marks[subject] = getValidatedMarkInput(String.format(prompt, SubjectSchema.ACTIVE.subject(subject).label));
+        }
+        return marks;
+    }
+
     private static int getValidatedMarkInput(String prompt) {
         while (true) {
             int mark = getValidatedIntInput(prompt);
@@ -483,106 +1042,199 @@ public class EnhancedStudentResultManagement {
         }
     }
 
-    private static void displayAllStudents() {
+    private static void displayAllStudents() throws IOException {
         System.out.println("\n===== All Student Results =====");
-        displayStudentTable(records);
+        displayStudentTable(Arrays.asList(store.snapshot().toArray()));
     }
 
-    private static void displaySortedByTotalMarks() {
-        StudentRecord[] sortedRecords = records.clone();
-        Arrays.sort(sortedRecords, (a, b) -> 
-            b.getResult().totalMarks() - a.getResult().totalMarks());
-        
+    // Rank order comes from the rank index: highest total first, ties by roll number
+    private static void displaySortedByTotalMarks() throws IOException {
         System.out.println("\n===== Student Results (Sorted by Total Marks) =====");
-        displayStudentTable(sortedRecords);
+        displayStudentTable(recordsForRolls(rankIndex.page(0, rankIndex.size())));
     }
 
-    private static void displaySortedByName() {
-        StudentRecord[] sortedRecords = records.clone();
-        Arrays.sort(sortedRecords, (a, b) -> 
-            a.getStudent().getName().compareToIgnoreCase(b.getStudent().getName()));
-        
+    private static void displayStudentRank() {
+        int roll = getValidatedIntInput("Enter roll number: ");
+        StudentRecord rec = store.findByRoll(roll);
+        if (rec == null) {
+            System.out.println("Student with roll number " + roll + " not found!");
+            return;
+        }
+        System.out.printf("%s (Roll No %d) is ranked %d of %d with %d marks.\n",
+                rec.getStudent().getName(), roll, rankIndex.rankOf(rec), rankIndex.size(),
+                rec.getResult().totalMarks());
+    }
+
+    private static void displayTopStudents() throws IOException {
+        int n = getValidatedIntInput("How many top students to show? ");
+        if (n <= 0) {
+            System.out.println("Please enter a positive number.");
+            return;
+        }
+        System.out.println("\n===== Top " + n + " Students =====");
+        displayStudentTable(recordsForRolls(rankIndex.topK(n)));
+    }
+
+    // Listings resolve every row against one store snapshot, so a report
+    // shows the roster as it was at a single moment
+    private static List<StudentRecord> recordsForRolls(int[] rolls) {
+        RecordStore.Snapshot snapshot = store.snapshot();
+        List<StudentRecord> recs = new ArrayList<>(rolls.length);
+        for (int roll : rolls) {
+            recs.add(snapshot.get(store.find(roll)));
+        }
+        return recs;
+    }
+
+    // Name order comes from the name index, which keeps names pre-folded and sorted
+    private static void displaySortedByName() throws IOException {
         System.out.println("\n===== Student Results (Sorted by Name) =====");
-        displayStudentTable(sortedRecords);
+        displayStudentTable(recordsForRolls(nameIndex.inNameOrder()));
+    }
+
+    private static void displayStudentTable(List<StudentRecord> rows) throws IOException {
+        showTable(rows, true);
+    }
+
+    // Shared console listing; long tables are shown a page at a time
+    private static void showTable(List<StudentRecord> rows, boolean withRemarks) throws IOException {
+        TableRenderer table = new TableRenderer(TableRenderer.console(), withRemarks);
+        if (pageSize <= 0 || rows.size() <= pageSize) {
+            table.header();
+            table.rows(rows);
+            table.flush();
+            return;
+        }
+        int pages = (rows.size() + pageSize - 1) / pageSize;
+        int page = 0;
+        while (true) {
+            int from = page * pageSize;
+            table.header();
+            table.rows(rows.subList(from, Math.min(rows.size(), from + pageSize)));
+            table.flush();
+            System.out.printf("Page %d of %d - [n]ext, [p]revious, [q]uit: ", page + 1, pages);
+            String command = sc.nextLine().trim().toLowerCase();
+            if (command.startsWith("q")) {
+                return;
+            } else if (command.startsWith("p")) {
+                page = Math.max(0, page - 1);
+            } else if (page + 1 < pages) {
+                page++;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static void exportStudentList() throws IOException {
+        System.out.println("Order: 1. Roll order  2. Total marks  3. Name");
+        int order = getValidatedIntInput("Choose order: ");
+        List<StudentRecord> rows = switch (order) {
+            case 1 -> Arrays.asList(store.snapshot().toArray());
+            case 2 -> recordsForRolls(rankIndex.page(0, rankIndex.size()));
+            case 3 -> recordsForRolls(nameIndex.inNameOrder());
+            default -> null;
+        };
+        if (rows == null) {
+            System.out.println("Invalid order!");
+            return;
+        }
+        System.out.print("File name: ");
+        Path file = Paths.get(sc.nextLine().trim());
+        try (Writer out = Files.newBufferedWriter(file)) {
+            TableRenderer table = new TableRenderer(out, true);
+            table.header();
+            table.rows(rows);
+        }
+        System.out.println("Wrote " + rows.size() + " students to " + file);
     }
 
-    private static void displayStudentTable(StudentRecord[] records) {
-        System.out.printf("%-15s %-10s %-10s %-12s %-7s %-8s %-8s %-10s %-7s %-8s %-6s %-12s\n",
-                "Name", "Roll No", "Class", "Department", "Maths", "Science", "English", "Comp Sci", "Total", "Average", "Grade", "Remarks");
-        System.out.println("=".repeat(130));
+    private static void exportReportCards() throws IOException {
+        System.out.print("Department (blank for all students): ");
+        String department = sc.nextLine().trim();
+        System.out.print("Format (text, html or both): ");
+        Set<ReportCardExporter.Format> formats = ReportCardExporter.Format.parse(sc.nextLine());
+        System.out.print("Output folder: ");
+        Path dir = Paths.get(sc.nextLine().trim());
+        writeReportCards(dir, formats, department.isEmpty() ? null : department);
+    }
 
-        for (StudentRecord rec : records) {
-            System.out.printf("%-15s %-10d %-10s %-12s %-7d %-8d %-8d %-10d %-7d %-8.2f %-6s %-12s\n",
-                    rec.getStudent().getName(),
-                    rec.getStudent().getRollNumber(),
-                    rec.getStudent().getClassName(),
-                    rec.getStudent().getDepartment(),
-                    rec.getResult().getMaths(),
-                    rec.getResult().getScience(),
-                    rec.getResult().getEnglish(),
-                    rec.getResult().getComputerScience(),
-                    rec.getResult().totalMarks(),
-                    rec.getResult().averageMarks(),
-                    rec.getResult().grade(),
-                    rec.getResult().getRemarks());
+    private static void writeReportCards(Path dir, Set<ReportCardExporter.Format> formats, String department)
+            throws IOException {
+        long start = System.nanoTime();
+        int count = new ReportCardExporter(dir, formats).export(store.snapshot().toArray(), department);
+        if (count == 0) {
+            System.out.println(department == null ? "No students to export." : "No students in department " + department + ".");
+            return;
         }
+        System.out.printf("Wrote report cards for %d student(s) to %s in %d ms.\n",
+                count, dir, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static void displayMetrics() {
+        System.out.println("\n===== Operation Metrics =====");
+        System.out.print(metrics.report());
+        System.out.print(reportCards.report());
+        System.out.println("Also published over JMX under " + OperationMetrics.JMX_DOMAIN + ":type=Operation and type=Cache.");
+        System.out.print("Reset all metrics? (y/n): ");
+        if (sc.nextLine().trim().equalsIgnoreCase("y")) {
+            metrics.reset();
+            reportCards.resetCounters();
+            System.out.println("Metrics reset.");
+        }
+    }
+
+    private static void setPageSize() {
+        int size = getValidatedIntInput("Rows per page (0 to show everything at once): ");
+        pageSize = Math.max(0, size);
+        System.out.println(pageSize == 0 ? "Paging disabled." : "Listings now show " + pageSize + " rows per page.");
     }
 
-    private static void searchStudent() {
+    private static void searchStudent() throws IOException {
         System.out.print("Enter student name or roll number to search: ");
         String searchTerm = sc.nextLine();
         
-        boolean found = false;
+        StudentRecord byRoll = null;
+        try {
+            byRoll = store.findByRoll(Integer.parseInt(searchTerm));
+        } catch (NumberFormatException e) {
+            // Not a roll number, match by name only
+        }
         
-        for (StudentRecord rec : records) {
-            if (rec.getStudent().getName().equalsIgnoreCase(searchTerm) || 
-                String.valueOf(rec.getStudent().getRollNumber()).equals(searchTerm)) {
-                
-                if (!found) {
-                    System.out.println("\n===== Search Results =====");
-                    System.out.printf("%-15s %-10s %-10s %-12s %-7s %-8s %-8s %-10s %-7s %-8s %-6s\n",
-                            "Name", "Roll No", "Class", "Department", "Maths", "Science", "English", "Comp Sci", "Total", "Average", "Grade");
-                    System.out.println("=".repeat(110));
-                    found = true;
-                }
-                
-                System.out.printf("%-15s %-10d %-10s %-12s %-7d %-8d %-8d %-10d %-7d %-8.2f %-6s\n",
-                        rec.getStudent().getName(),
-                        rec.getStudent().getRollNumber(),
-                        rec.getStudent().getClassName(),
-                        rec.getStudent().getDepartment(),
-                        rec.getResult().getMaths(),
-                        rec.getResult().getScience(),
-                        rec.getResult().getEnglish(),
-                        rec.getResult().getComputerScience(),
-                        rec.getResult().totalMarks(),
-                        rec.getResult().averageMarks(),
-                        rec.getResult().grade());
+        List<StudentRecord> matches = new ArrayList<>();
+        if (byRoll != null) {
+            matches.add(byRoll);
+        }
+        for (int roll : nameIndex.exact(searchTerm)) {
+            StudentRecord rec = store.findByRoll(roll);
+            if (rec != byRoll) {
+                matches.add(rec);
             }
         }
         
-        if (!found) {
+        String heading = "\n===== Search Results =====";
+        if (matches.isEmpty() && !searchTerm.isBlank()) {
+            // No exact hit, so fall back to names containing the search term
+            matches = recordsForRolls(nameIndex.substring(searchTerm));
+            heading = "\n===== Partial Name Matches =====";
+        }
+        
+        if (matches.isEmpty()) {
             System.out.println("No student found with the given search term.");
+            return;
         }
+        
+        System.out.println(heading);
+        showTable(matches, false);
     }
 
     private static void displayClassStatistics() {
-        int totalStudents = records.length;
-        int passed = 0;
-        int totalMarksSum = 0;
-        int maxTotal = Integer.MIN_VALUE;
-        int minTotal = Integer.MAX_VALUE;
-
-        for (StudentRecord rec : records) {
-            int total = rec.getResult().totalMarks();
-            totalMarksSum += total;
-            maxTotal = Math.max(maxTotal, total);
-            minTotal = Math.min(minTotal, total);
-            
-            if (rec.getResult().isPass()) {
-                passed++;
-            }
-        }
+        StatisticsEngine.Histogram totals = statistics.totals();
+        int totalStudents = totals.count();
+        int passed = statistics.passed();
+        long totalMarksSum = totals.sum();
+        int maxTotal = totals.max();
+        int minTotal = totals.min();
 
         float classAverage = totalMarksSum / (float) totalStudents;
         float passPercentage = (passed / (float) totalStudents) * 100;
@@ -592,75 +1244,198 @@ public class EnhancedStudentResultManagement {
         System.out.println("Class Average: " + String.format("%.2f", classAverage));
         System.out.println("Highest Total: " + maxTotal);
         System.out.println("Lowest Total: " + minTotal);
+        if (totalStudents > 0) {
+            System.out.println("Median Total: " + String.format("%.1f", totals.median()));
+            System.out.println("90th Percentile Total: " + totals.percentile(90));
+        }
         System.out.println("Students Passed: " + passed);
         System.out.println("Pass Percentage: " + String.format("%.2f%%", passPercentage));
     }
 
-    private static void displayTopper() {
-        if (records.length == 0) {
+    private static void displayTopper() throws IOException {
+        if (store.isEmpty()) {
             System.out.println("No students available.");
             return;
         }
         
-        StudentRecord topper = records[0];
-        for (StudentRecord rec : records) {
-            if (rec.getResult().totalMarks() > topper.getResult().totalMarks()) {
-                topper = rec;
-            }
-        }
+        StudentRecord topper = store.findByRoll(rankIndex.topK(1)[0]);
 
         System.out.println("\n===== Class Topper =====");
-        System.out.printf("%-15s %-10s %-10s %-12s %-7s %-8s %-8s %-10s %-7s %-8s %-6s\n",
-                "Name", "Roll No", "Class", "Department", "Maths", "Science", "English", "Comp Sci", "Total", "Average", "Grade");
-        System.out.println("=".repeat(110));
-        System.out.printf("%-15s %-10d %-10s %-12s %-7d %-8d %-8d %-10d %-7d %-8.2f %-6s\n",
-                topper.getStudent().getName(),
-                topper.getStudent().getRollNumber(),
-                topper.getStudent().getClassName(),
-                topper.getStudent().getDepartment(),
-                topper.getResult().getMaths(),
-                topper.getResult().getScience(),
-                topper.getResult().getEnglish(),
-                topper.getResult().getComputerScience(),
-                topper.getResult().totalMarks(),
-                topper.getResult().averageMarks(),
-                topper.getResult().grade());
-    }
-
-    private static void displayFailedStudents() {
-        boolean hasFailures = false;
+        showTable(List.of(topper), false);
+    }
+
+    // Straight from the fail bitmap; passing students are never looked at
+    private static void displayFailedStudents() throws IOException {
+        List<StudentRecord> failed = recordsForSlots(bitmapIndex.failed());
         
-        for (StudentRecord rec : records) {
-            if (!rec.getResult().isPass()) {
-                if (!hasFailures) {
-                    System.out.println("\n===== Failed Students =====");
-                    System.out.printf("%-15s %-10s %-10s %-12s %-7s %-8s %-8s %-10s %-7s %-8s %-6s\n",
-                            "Name", "Roll No", "Class", "Department", "Maths", "Science", "English", "Comp Sci", "Total", "Average", "Grade");
-                    System.out.println("=".repeat(110));
-                    hasFailures = true;
+        if (failed.isEmpty()) {
+            System.out.println("No failed students! All students passed.");
+            return;
+        }
+        System.out.println("\n===== Failed Students =====");
+        showTable(failed, false);
+    }
+
+    private static void queryStudents() throws IOException {
+        System.out.println("Combine with and/or/not, e.g.: failed and department = CS");
+        System.out.println("  cs < 40 and (class = 10B or class = 10C)    grade = A+ and not dept = MECH");
+        System.out.print("Query: ");
+        runQuery(StudentQuery.parse(sc.nextLine()));
+    }
+
+    private static void runQuery(StudentQuery query) throws IOException {
+        long start = System.nanoTime();
+        List<StudentRecord> matches = recordsForSlots(query.evaluate(bitmapIndex, store));
+        long elapsed = System.nanoTime() - start;
+        if (matches.isEmpty()) {
+            System.out.println("No students match " + query + ".");
+            return;
+        }
+        System.out.println("\n===== Query: " + query + " =====");
+        showTable(matches, false);
+        System.out.printf("%d of %d student(s) matched in %.2f ms.\n", matches.size(), store.size(), elapsed / 1e6);
+    }
+
+    private static ResultHistory history() throws IOException {
+        if (history == null) {
+            history = ResultHistory.open(Paths.get(ResultHistory.HISTORY_FILE));
+        }
+        return history;
+    }
+
+    private static void termHistory() throws IOException {
+        List<ResultHistory.Term> timeline = history().timeline(store.toArray());
+        System.out.println("\n===== Term History =====");
+        if (timeline.size() == 1) {
+            System.out.println("No terms closed yet.");
+        } else {
+            for (int t = 0; t < timeline.size(); t++) {
+                System.out.printf("Term %d: %s (%d students)\n", t + 1, timeline.get(t).label,
+                        timeline.get(t).present.cardinality());
+            }
+        }
+        System.out.println("1. Close Current Term  2. Most Improved Students  3. Department Averages by Term  4. Student's Marks by Term");
+        int choice = getValidatedIntInput("Choose: ");
+        switch (choice) {
+            case 1 -> {
+                System.out.print("Name for the term being closed: ");
+                closeTerm(sc.nextLine().trim());
+            }
+            case 2 -> {
+                if (timeline.size() == 1) {
+                    System.out.println("Close a term first to compare against it.");
+                    return;
                 }
-                
-                System.out.printf("%-15s %-10d %-10s %-12s %-7d %-8d %-8d %-10d %-7d %-8.2f %-6s\n",
-                        rec.getStudent().getName(),
-                        rec.getStudent().getRollNumber(),
-                        rec.getStudent().getClassName(),
-                        rec.getStudent().getDepartment(),
-                        rec.getResult().getMaths(),
-                        rec.getResult().getScience(),
-                        rec.getResult().getEnglish(),
-                        rec.getResult().getComputerScience(),
-                        rec.getResult().totalMarks(),
-                        rec.getResult().averageMarks(),
-                        rec.getResult().grade());
+                int from = getValidatedIntInput("From term number: ") - 1;
+                int to = getValidatedIntInput("To term number: ") - 1;
+                int n = getValidatedIntInput("How many students to show? ");
+                displayMostImproved(timeline, from, to, n);
             }
+            case 3 -> history().printDepartmentTrend(timeline, System.out);
+            case 4 -> displayMarksByTerm(timeline, getValidatedIntInput("Enter roll number: "));
+            default -> System.out.println("Invalid choice!");
         }
-        
-        if (!hasFailures) {
-            System.out.println("No failed students! All students passed.");
+    }
+
+    // The current marks become a closed term; later updates start the next one
+    private static void closeTerm(String label) throws IOException {
+        if (loadedDepartment != null) {
+            System.out.println("Only department " + loadedDepartment + " is loaded; close terms with all students loaded.");
+            return;
         }
+        long start = System.nanoTime();
+        history().closeTerm(label, store.toArray());
+        System.out.printf("Closed term %s with %d student(s) in %d ms; %d term(s) in %s.\n", label, store.size(),
+                (System.nanoTime() - start) / 1_000_000, history().terms().size(), history().getFile());
     }
-}
 
+    private static void displayMostImproved(List<ResultHistory.Term> timeline, int from, int to, int n) {
+        if (timeline.size() == 1) {
+            System.out.println("No terms closed yet; close one with --close-term or menu option 23.");
+            return;
+        }
+        if (n <= 0) {
+            System.out.println("Please enter a positive number.");
+            return;
+        }
+        List<ResultHistory.Improvement> top = history.mostImproved(timeline, from, to, n);
+        System.out.println("\n===== Most Improved: " + timeline.get(from).label + " to " + timeline.get(to).label + " =====");
+        if (top.isEmpty()) {
+            System.out.println("No student has marks in both terms.");
+            return;
+        }
+        System.out.printf("%-15s %-10s %-12s %-8s %-8s %-8s\n", "Name", "Roll No", "Department", "From", "To", "Change");
+        System.out.println("=".repeat(66));
+        for (ResultHistory.Improvement imp : top) {
+            StudentRecord rec = store.findByRoll(imp.roll);
+            System.out.printf("%-15s %-10d %-12s %-8d %-8d %-+8d\n", rec == null ? "-" : rec.getStudent().getName(),
+                    imp.roll, AttributeDictionary.DEPARTMENTS.value(imp.departmentCode), imp.fromTotal, imp.toTotal, imp.gain());
+        }
+    }
 
+    private static void displayMarksByTerm(List<ResultHistory.Term> timeline, int roll) {
+        int[][] marks = history.marksByTerm(timeline, roll);
+        System.out.println("\n===== Marks by Term: Roll No " + roll + " =====");
+        System.out.printf("%-20s", "Term");
+        for (int subject = 0; subject < Result.SUBJECT_COUNT; subject++) {
+            System.out.printf(" %-10s", SubjectSchema.ACTIVE.subject(subject).heading);
+        }
+        System.out.printf(" %-7s %-6s\n", "Total", "Grade");
+        boolean any = false;
+        for (int t = 0; t < marks.length; t++) {
+            if (marks[t] == null) {
+                continue;
+            }
+            Result r = new Result(marks[t]);
+            System.out.printf("%-20s", timeline.get(t).label);
+            for (int subject = 0; subject < Result.SUBJECT_COUNT; subject++) {
+                System.out.printf(" %-10d", r.getMark(subject));
+            }
+            System.out.printf(" %-7d %-6s\n", r.totalMarks(), r.grade());
+            any = true;
+        }
+        if (!any) {
+            System.out.println("No marks recorded for roll number " + roll + ".");
+        }
+    }
+
+    private static List<StudentRecord> recordsForSlots(CompressedBitmap slots) {
+        RecordStore.Snapshot snapshot = store.snapshot();
+        List<StudentRecord> out = new ArrayList<>(slots.cardinality());
+        slots.forEach(slot -> out.add(snapshot.get(slot)));
+        return out;
+    }
+
+    // Counts how long reads of the console block, i.e. how long we wait for the user
+    private static final class InputClock extends FilterInputStream {
+        private long waited;
+
+        InputClock(InputStream in) {
+            super(in);
+        }
 
+        long waitedNanos() {
+            return waited;
+        }
+
+        @Override
+        public int read() throws IOException {
+            long start = System.nanoTime();
+            try {
+                return super.read();
+            } finally {
+                waited += System.nanoTime() - start;
+            }
+        }
 
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            long start = System.nanoTime();
+            try {
+                return super.read(b, off, len);
+            } finally {
+                waited += System.nanoTime() - start;
+            }
+        }
+    }
+}
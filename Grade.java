@@ -0,0 +1,104 @@
+// Letter grade and remark for a result. The grade depends only on the total
+// marks, so it is looked up in a table indexed by total (built once from the
+// grade boundaries) instead of recomputing the average and walking the
+// boundaries for every call.
+//
+// The boundaries are the minimum average for each grade from A+ down to E and
+// can be overridden with -Dgrade.boundaries=90,80,70,60,50,40 (descending).
+enum Grade {
+    A_PLUS("A+", "Outstanding"),
+    A("A", "Excellent"),
+    B("B", "Very Good"),
+    C("C", "Good"),
+    D("D", "Average"),
+    E("E", "Poor"),
+    F("F", "Fail");
+
+    static final String BOUNDARIES_PROPERTY = "grade.boundaries";
+    private static final float[] DEFAULT_BOUNDARIES = {90, 80, 70, 60, 50, 40};
+    private static final Grade[] VALUES = values();
+    private static final Grade[] BY_TOTAL = buildTable(loadBoundaries());
+
+    private final String label;
+    private final String remarks;
+
+    Grade(String label, String remarks) {
+        this.label = label;
+        this.remarks = remarks;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public String remarks() {
+        return remarks;
+    }
+
+    public static Grade forTotal(int total) {
+        return BY_TOTAL[total];
+    }
+
+    public static Grade fromLabel(String label) {
+        for (Grade g : VALUES) {
+            if (g.label.equals(label)) {
+                return g;
+            }
+        }
+        throw new IllegalArgumentException("Unknown grade " + label);
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+
+    // Same comparisons the old if-chain made on the float average
+    private static Grade[] buildTable(float[] boundaries) {
+        Grade[] table = new Grade[Result.SUBJECT_COUNT * 100 + 1];
+        for (int total = 0; total < table.length; total++) {
+            float avg = total / (float) Result.SUBJECT_COUNT;
+            Grade grade = F;
+            for (int g = 0; g < boundaries.length; g++) {
+                if (avg >= boundaries[g]) {
+                    grade = VALUES[g];
+                    break;
+                }
+            }
+            table[total] = grade;
+        }
+        return table;
+    }
+
+    private static float[] loadBoundaries() {
+        String spec = System.getProperty(BOUNDARIES_PROPERTY);
+        if (spec == null || spec.isBlank()) {
+            return DEFAULT_BOUNDARIES;
+        }
+        try {
+            return parseBoundaries(spec);
+        } catch (IllegalArgumentException e) {
+            System.out.println("Ignoring " + BOUNDARIES_PROPERTY + ": " + e.getMessage());
+            return DEFAULT_BOUNDARIES;
+        }
+    }
+
+    static float[] parseBoundaries(String spec) {
+        String[] parts = spec.split(",");
+        if (parts.length != VALUES.length - 1) {
+            throw new IllegalArgumentException("Expected " + (VALUES.length - 1)
+                    + " boundaries (A+ down to E) but found " + parts.length);
+        }
+        float[] boundaries = new float[parts.length];
+        for (int g = 0; g < parts.length; g++) {
+            boundaries[g] = Float.parseFloat(parts[g].trim());
+            if (!(boundaries[g] >= 0 && boundaries[g] <= 100)) {
+                throw new IllegalArgumentException("Boundary " + parts[g].trim() + " is outside 0-100");
+            }
+            if (g > 0 && boundaries[g] >= boundaries[g - 1]) {
+                throw new IllegalArgumentException("Boundaries must be in descending order: " + spec);
+            }
+        }
+        return boundaries;
+    }
+}
@@ -0,0 +1,273 @@
+import java.io.PrintStream;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.ToIntFunction;
+
+// Per-department or per-class statistics computed in parallel: the slot range
+// of a store snapshot is split recursively on a ForkJoinPool, each leaf fills
+// its own map of per-group accumulators and the halves are merged on the way
+// back up. Working from a snapshot keeps the report consistent even if the
+// store changes while it runs. Groups are found by the students' dictionary
+// codes, so leaves index an array instead of hashing strings.
+class GroupByAnalytics {
+    // Below this many slots a range is aggregated sequentially
+    private static final int LEAF_SLOTS = 16_384;
+    private static final Grade[] GRADES = Grade.values();
+
+    enum GroupBy {
+        DEPARTMENT("Department", AttributeDictionary.DEPARTMENTS, Student::getDepartmentCode),
+        CLASS("Class", AttributeDictionary.CLASSES, Student::getClassCode);
+
+        final String label;
+        final AttributeDictionary dictionary;
+        final ToIntFunction<Student> code;
+
+        GroupBy(String label, AttributeDictionary dictionary, ToIntFunction<Student> code) {
+            this.label = label;
+            this.dictionary = dictionary;
+            this.code = code;
+        }
+
+        static GroupBy parse(String name) {
+            return switch (name.toLowerCase(Locale.ROOT)) {
+                case "department", "dept" -> DEPARTMENT;
+                case "class" -> CLASS;
+                default -> throw new IllegalArgumentException("Cannot group by '" + name + "', use department or class");
+            };
+        }
+    }
+
+    // Mergeable accumulator for one group
+    static final class GroupStats {
+        final String key;
+        int count;
+        long totalSum;
+        int passed;
+        StudentRecord topper;
+        final int[] gradeCounts = new int[GRADES.length];
+
+        GroupStats(String key) {
+            this.key = key;
+        }
+
+        void add(StudentRecord rec) {
+            Result r = rec.getResult();
+            count++;
+            totalSum += r.totalMarks();
+            if (r.isPass()) {
+                passed++;
+            }
+            if (ranksAbove(r.totalMarks(), rec.getStudent().getRollNumber(), topper)) {
+                topper = rec;
+            }
+            gradeCounts[r.getGrade().ordinal()]++;
+        }
+
+        // Same as add(StudentRecord) for a row read in place from a mapped file;
+        // only a new topper is copied onto the heap
+        void add(MappedRecordStore.Row row) {
+            int total = row.totalMarks();
+            count++;
+            totalSum += total;
+            if (row.isPass()) {
+                passed++;
+            }
+            if (ranksAbove(total, row.rollNumber(), topper)) {
+                topper = row.toRecord();
+            }
+            gradeCounts[Grade.forTotal(total).ordinal()]++;
+        }
+
+        void merge(GroupStats other) {
+            count += other.count;
+            totalSum += other.totalSum;
+            passed += other.passed;
+            if (other.topper != null && ranksAbove(other.topper.getResult().totalMarks(),
+                    other.topper.getStudent().getRollNumber(), topper)) {
+                topper = other.topper;
+            }
+            for (int g = 0; g < gradeCounts.length; g++) {
+                gradeCounts[g] += other.gradeCounts[g];
+            }
+        }
+
+        // RankIndex order: highest total first, then lowest roll number, so
+        // the group topper is the one the topper report shows whatever the slots
+        private static boolean ranksAbove(int total, int roll, StudentRecord than) {
+            if (than == null) {
+                return true;
+            }
+            int thanTotal = than.getResult().totalMarks();
+            return total > thanTotal || total == thanTotal && roll < than.getStudent().getRollNumber();
+        }
+
+        float average() {
+            return totalSum / (float) count;
+        }
+
+        float passPercentage() {
+            return passed / (float) count * 100;
+        }
+    }
+
+    public static SortedMap<String, GroupStats> compute(RecordStore store, GroupBy groupBy) {
+        return compute(store.snapshot(), groupBy);
+    }
+
+    public static SortedMap<String, GroupStats> compute(RecordStore.Snapshot snapshot, GroupBy groupBy) {
+        return compute(snapshot, groupBy, ForkJoinPool.commonPool());
+    }
+
+    public static SortedMap<String, GroupStats> compute(RecordStore.Snapshot snapshot, GroupBy groupBy, ForkJoinPool pool) {
+        GroupStats[] groups = pool.invoke(new RangeTask(snapshot, groupBy, 0, snapshot.slotLimit()));
+        SortedMap<String, GroupStats> sorted = new TreeMap<>();
+        for (GroupStats stats : groups) {
+            if (stats != null) {
+                sorted.put(stats.key, stats);
+            }
+        }
+        return sorted;
+    }
+
+    // Same report straight from a mapped data file. Groups are keyed by
+    // dictionary code, so rows are aggregated without creating any objects.
+    public static SortedMap<String, GroupStats> compute(MappedRecordStore mapped, GroupBy groupBy) {
+        List<GroupStats> groups = ForkJoinPool.commonPool().invoke(new MappedRangeTask(mapped, groupBy, 0, mapped.size()));
+        SortedMap<String, GroupStats> sorted = new TreeMap<>();
+        for (GroupStats stats : groups) {
+            sorted.put(stats.key, stats);
+        }
+        return sorted;
+    }
+
+    // Accumulators indexed by dictionary code; null where no student has the code
+    private static final class RangeTask extends RecursiveTask<GroupStats[]> {
+        private static final long serialVersionUID = 1L;
+        private final RecordStore.Snapshot snapshot;
+        private final GroupBy groupBy;
+        private final int from;
+        private final int to;
+
+        RangeTask(RecordStore.Snapshot snapshot, GroupBy groupBy, int from, int to) {
+            this.snapshot = snapshot;
+            this.groupBy = groupBy;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected GroupStats[] compute() {
+            if (to - from <= LEAF_SLOTS) {
+                GroupStats[] groups = new GroupStats[groupBy.dictionary.size()];
+                for (int slot = from; slot < to; slot++) {
+                    StudentRecord rec = snapshot.get(slot);
+                    if (rec == null) {
+                        continue;
+                    }
+                    int code = groupBy.code.applyAsInt(rec.getStudent());
+                    if (code >= groups.length) {
+                        groups = Arrays.copyOf(groups, groupBy.dictionary.size());
+                    }
+                    if (groups[code] == null) {
+                        groups[code] = new GroupStats(groupBy.dictionary.value(code));
+                    }
+                    groups[code].add(rec);
+                }
+                return groups;
+            }
+            int mid = (from + to) >>> 1;
+            RangeTask right = new RangeTask(snapshot, groupBy, mid, to);
+            right.fork();
+            GroupStats[] left = new RangeTask(snapshot, groupBy, from, mid).compute();
+            GroupStats[] later = right.join();
+            if (later.length > left.length) {
+                left = Arrays.copyOf(left, later.length);
+            }
+            for (int code = 0; code < later.length; code++) {
+                if (later[code] == null) {
+                    continue;
+                }
+                if (left[code] == null) {
+                    left[code] = later[code];
+                } else {
+                    left[code].merge(later[code]);
+                }
+            }
+            return left;
+        }
+    }
+
+    public static void print(SortedMap<String, GroupStats> groups, GroupBy groupBy, PrintStream out) {
+        out.println("\n===== " + groupBy.label + "-wise Analysis =====");
+        if (groups.isEmpty()) {
+            out.println("No students available.");
+            return;
+        }
+        out.printf("%-15s %-9s %-8s %-8s %-15s %-6s %-5s %-5s %-5s %-5s %-5s %-5s %-5s\n",
+                groupBy.label, "Students", "Average", "Pass %", "Topper", "Total",
+                GRADES[0], GRADES[1], GRADES[2], GRADES[3], GRADES[4], GRADES[5], GRADES[6]);
+        out.println("=".repeat(110));
+        for (GroupStats g : groups.values()) {
+            int[] grades = g.gradeCounts;
+            out.printf("%-15s %-9d %-8.2f %-8.2f %-15s %-6d %-5d %-5d %-5d %-5d %-5d %-5d %-5d\n",
+                    g.key, g.count, g.average(), g.passPercentage(),
+                    g.topper.getStudent().getName(), g.topper.getResult().totalMarks(),
+                    grades[0], grades[1], grades[2], grades[3], grades[4], grades[5], grades[6]);
+        }
+    }
+
+    private static final class MappedRangeTask extends RecursiveTask<List<GroupStats>> {
+        private static final long serialVersionUID = 1L;
+        private final MappedRecordStore mapped;
+        private final GroupBy groupBy;
+        private final int from;
+        private final int to;
+
+        MappedRangeTask(MappedRecordStore mapped, GroupBy groupBy, int from, int to) {
+            this.mapped = mapped;
+            this.groupBy = groupBy;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<GroupStats> compute() {
+            if (to - from <= LEAF_SLOTS) {
+                // Dictionary code -> position in groups
+                RollNumberIndex positions = new RollNumberIndex();
+                List<GroupStats> groups = new ArrayList<>();
+                MappedRecordStore.Row row = mapped.row();
+                for (int i = from; i < to; i++) {
+                    row.moveTo(i);
+                    int code = groupBy == GroupBy.DEPARTMENT ? row.departmentCode() : row.classCode();
+                    int pos = positions.get(code);
+                    if (pos == RollNumberIndex.NOT_FOUND) {
+                        pos = groups.size();
+                        positions.put(code, pos);
+                        groups.add(new GroupStats(mapped.string(code)));
+                    }
+                    groups.get(pos).add(row);
+                }
+                return groups;
+            }
+            int mid = (from + to) >>> 1;
+            MappedRangeTask right = new MappedRangeTask(mapped, groupBy, mid, to);
+            right.fork();
+            List<GroupStats> left = new MappedRangeTask(mapped, groupBy, from, mid).compute();
+            Map<String, GroupStats> byKey = new HashMap<>();
+            for (GroupStats stats : left) {
+                byKey.put(stats.key, stats);
+            }
+            for (GroupStats stats : right.join()) {
+                GroupStats mine = byKey.get(stats.key);
+                if (mine == null) {
+                    left.add(stats);
+                } else {
+                    mine.merge(stats);
+                }
+            }
+            return left;
+        }
+    }
+}
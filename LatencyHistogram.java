@@ -0,0 +1,94 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Log-linear latency histogram in the style of HdrHistogram: every power of
+// two is split into 16 equal buckets, so any recorded value is reported to
+// within about 6% whether it is 3 microseconds or 3 minutes. Recording is a
+// couple of shifts and atomic increments, cheap enough to leave on around
+// every operation and safe to call from many threads at once.
+class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    // Longer values (about 4.9 hours in nanoseconds) land in the last bucket
+    private static final long MAX_VALUE = (1L << 44) - 1;
+    private static final int BUCKETS = indexFor(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        long value = Math.max(0, Math.min(nanos, MAX_VALUE));
+        counts.incrementAndGet(indexFor(value));
+        count.increment();
+        total.add(value);
+        max.accumulate(value);
+    }
+
+    // Values below 32 get a bucket each; above that, the four bits after the
+    // leading one pick the bucket within the value's power of two
+    private static int indexFor(long value) {
+        int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BITS);
+        return (shift << SUB_BITS) + (int) (value >>> shift);
+    }
+
+    // Largest value that falls in the same bucket
+    private static long highestInBucket(int index) {
+        if (index < 2 * SUB_COUNT) {
+            return index;
+        }
+        int shift = (index >>> SUB_BITS) - 1;
+        long sub = index - ((long) shift << SUB_BITS);
+        return ((sub + 1) << shift) - 1;
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long totalNanos() {
+        return total.sum();
+    }
+
+    public long maxNanos() {
+        return max.get();
+    }
+
+    public double meanNanos() {
+        long n = count();
+        return n == 0 ? 0 : (double) totalNanos() / n;
+    }
+
+    // Value at or below which the given percentage of recordings fall
+    public long percentileNanos(double percentile) {
+        long n = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            n += snapshot[i];
+        }
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(n * Math.min(100, percentile) / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestInBucket(i), maxNanos());
+            }
+        }
+        return maxNanos();
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        total.reset();
+        max.reset();
+    }
+}
@@ -0,0 +1,228 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Objects;
+
+// Read-only record store over a binary data file (see BinaryDataStorage)
+// mapped into memory instead of loaded. Records in that format are already
+// fixed-width rows, so row i is found by arithmetic and its fields are read
+// in place through a reusable Row cursor: no StudentRecord, Student, Result
+// or String is created per student. Opening only reads the header and walks
+// the string dictionary once, and both rows and strings stay in the page
+// cache rather than on the heap.
+//
+// The checksum is not verified on open (that would read the whole file);
+// dictionary indexes and marks are checked as they are read.
+class MappedRecordStore {
+    // Mappings are limited to 2 GB, so larger files are mapped in segments
+    // holding a whole number of rows
+    private static final int MAX_SEGMENT_BYTES = 1 << 30;
+    // Strings between checkpoints are found by walking their length prefixes
+    // in the mapping, so the heap holds one int per STRIDE strings
+    private static final int STRIDE = 256;
+
+    private final Path file;
+    private final int count;
+    private final int subjects;
+    private final int rowBytes;
+    private final int rowsPerSegment;
+    private final MappedByteBuffer[] segments;
+    private final MappedByteBuffer dictionary;
+    private final int dictionarySize;
+    // Offset in the dictionary mapping of every STRIDE-th string
+    private final int[] checkpoints;
+
+    private MappedRecordStore(Path file, int count, int subjects, MappedByteBuffer dictionary, int dictionarySize,
+                              int[] checkpoints, MappedByteBuffer[] segments, int rowsPerSegment) {
+        this.file = file;
+        this.count = count;
+        this.subjects = subjects;
+        this.rowBytes = 16 + subjects;
+        this.dictionary = dictionary;
+        this.dictionarySize = dictionarySize;
+        this.checkpoints = checkpoints;
+        this.segments = segments;
+        this.rowsPerSegment = rowsPerSegment;
+    }
+
+    public static MappedRecordStore open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        // Closing the reader closes the channel; the mappings taken from it stay valid
+        try (BinaryDataStorage.ChannelInput in = new BinaryDataStorage.ChannelInput(channel)) {
+            long fileSize = channel.size();
+            in.ensure(BinaryDataStorage.HEADER_BYTES);
+            if (in.buf.getInt() != BinaryDataStorage.MAGIC) {
+                throw new IOException(file + " is not a student data file");
+            }
+            int version = in.buf.getShort() & 0xFFFF;
+            if (version != BinaryDataStorage.VERSION) {
+                throw new IOException("Unsupported data file version " + version);
+            }
+            int subjects = in.buf.get() & 0xFF;
+            if (subjects != Result.SUBJECT_COUNT) {
+                throw new IOException("Data file has " + subjects + " subjects, expected " + Result.SUBJECT_COUNT);
+            }
+            in.buf.get();
+            int count = in.buf.getInt();
+            int dictionarySize = in.buf.getInt();
+            if (count < 0 || dictionarySize < 0) {
+                throw new IOException("Corrupt data file header");
+            }
+
+            // Each dictionary entry is a u16 length and UTF-8 bytes; note where every STRIDE-th one starts
+            long rowsStart = BinaryDataStorage.HEADER_BYTES;
+            int[] checkpoints = new int[(dictionarySize + STRIDE - 1) / STRIDE];
+            for (int i = 0; i < dictionarySize; i++) {
+                if (rowsStart - BinaryDataStorage.HEADER_BYTES > Integer.MAX_VALUE - 0x10001) {
+                    throw new IOException("String dictionary too large to map");
+                }
+                if (i % STRIDE == 0) {
+                    checkpoints[i / STRIDE] = (int) (rowsStart - BinaryDataStorage.HEADER_BYTES);
+                }
+                in.ensure(2);
+                int len = in.buf.getShort() & 0xFFFF;
+                in.ensure(len);
+                in.buf.position(in.buf.position() + len);
+                rowsStart += 2 + len;
+            }
+
+            int rowBytes = 16 + subjects;
+            long expected = rowsStart + (long) count * rowBytes + 4;
+            if (fileSize != expected) {
+                throw new IOException("Data file is " + fileSize + " bytes, expected " + expected);
+            }
+            MappedByteBuffer dictionary = channel.map(FileChannel.MapMode.READ_ONLY,
+                    BinaryDataStorage.HEADER_BYTES, rowsStart - BinaryDataStorage.HEADER_BYTES);
+            int rowsPerSegment = MAX_SEGMENT_BYTES / rowBytes;
+            MappedByteBuffer[] segments = new MappedByteBuffer[(count + rowsPerSegment - 1) / rowsPerSegment];
+            for (int s = 0; s < segments.length; s++) {
+                int rows = Math.min(rowsPerSegment, count - s * rowsPerSegment);
+                segments[s] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        rowsStart + (long) s * rowsPerSegment * rowBytes, (long) rows * rowBytes);
+            }
+            return new MappedRecordStore(file, count, subjects, dictionary, dictionarySize, checkpoints,
+                    segments, rowsPerSegment);
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // A new cursor; each thread needs its own
+    public Row row() {
+        return new Row();
+    }
+
+    // Decoded on every call; callers resolve a code once per group, not per row
+    public String string(int code) {
+        if (code < 0 || code >= dictionarySize) {
+            throw new IllegalStateException("Corrupt data file: dictionary index " + code + " out of range");
+        }
+        int offset = checkpoints[code / STRIDE];
+        for (int skip = code % STRIDE; skip > 0; skip--) {
+            offset += 2 + (dictionary.getShort(offset) & 0xFFFF);
+        }
+        byte[] bytes = new byte[dictionary.getShort(offset) & 0xFFFF];
+        dictionary.get(offset + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Cursor over one row at a time. moveTo() repositions it, and the getters
+    // read the current row straight from the mapped file.
+    final class Row {
+        private ByteBuffer segment;
+        private int base;
+        private int index = -1;
+
+        public Row moveTo(int row) {
+            Objects.checkIndex(row, count);
+            segment = segments[row / rowsPerSegment];
+            base = (row % rowsPerSegment) * rowBytes;
+            index = row;
+            return this;
+        }
+
+        public int index() {
+            return index;
+        }
+
+        public int rollNumber() {
+            return segment.getInt(base);
+        }
+
+        public int nameCode() {
+            return segment.getInt(base + 4);
+        }
+
+        public int classCode() {
+            return segment.getInt(base + 8);
+        }
+
+        public int departmentCode() {
+            return segment.getInt(base + 12);
+        }
+
+        public String name() {
+            return string(nameCode());
+        }
+
+        public String className() {
+            return string(classCode());
+        }
+
+        public String department() {
+            return string(departmentCode());
+        }
+
+        public int mark(int subject) {
+            Objects.checkIndex(subject, subjects);
+            int mark = segment.get(base + 16 + subject) & 0xFF;
+            if (mark > 100) {
+                throw new IllegalStateException("Corrupt record for roll number " + rollNumber() + ": mark " + mark);
+            }
+            return mark;
+        }
+
+        public int totalMarks() {
+            int total = 0;
+            for (int subject = 0; subject < subjects; subject++) {
+                total += mark(subject);
+            }
+            return total;
+        }
+
+        public float averageMarks() {
+            return totalMarks() / (float) subjects;
+        }
+
+        public boolean isPass() {
+            for (int subject = 0; subject < subjects; subject++) {
+                if (mark(subject) < Result.PASS_MARK) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public Grade grade() {
+            return Grade.forTotal(totalMarks());
+        }
+
+        // A heap copy of the current row, for code that needs a StudentRecord
+        public StudentRecord toRecord() {
+            int[] marks = new int[Result.SUBJECT_COUNT];
+            for (int subject = 0; subject < marks.length; subject++) {
+                marks[subject] = mark(subject);
+            }
+            return new StudentRecord(new Student(name(), rollNumber(), className(), department()), new Result(marks));
+        }
+    }
+}
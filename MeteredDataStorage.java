@@ -0,0 +1,38 @@
+import java.io.IOException;
+
+// Times every load and save of the wrapped storage as "storage.loadData" and
+// "storage.saveData", whichever format sits underneath.
+class MeteredDataStorage implements DataStorage {
+    private final DataStorage storage;
+    private final OperationMetrics metrics;
+
+    public MeteredDataStorage(DataStorage storage, OperationMetrics metrics) {
+        this.storage = storage;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void saveData(StudentRecord[] records) throws IOException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            storage.saveData(records);
+            failed = false;
+        } finally {
+            metrics.record("storage.saveData", start, failed);
+        }
+    }
+
+    @Override
+    public StudentRecord[] loadData() throws IOException, ClassNotFoundException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            StudentRecord[] records = storage.loadData();
+            failed = false;
+            return records;
+        } finally {
+            metrics.record("storage.loadData", start, failed);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+import java.util.*;
+
+// Case-insensitive name index kept in sync with the store.
+//
+// Names are folded once (the same per-character folding equalsIgnoreCase and
+// compareToIgnoreCase use) and kept in a sorted map, which gives exact
+// lookups in O(log n) and name-ordered iteration without sorting. Substring
+// queries go through a trigram index: only the names sharing the query's
+// rarest trigram are checked.
+class NameIndex implements RecordStore.Listener {
+    private final TreeMap<String, Entry> byName = new TreeMap<>();
+    private final Map<Long, Posting> trigrams = new HashMap<>();
+
+    // One distinct folded name and the roll numbers carrying it, ascending
+    private static final class Entry {
+        final String key;
+        int[] rolls = new int[1];
+        int size;
+        // Set once the last roll number is gone; the entry is then only a
+        // tombstone in its postings
+        boolean removed;
+
+        Entry(String key) {
+            this.key = key;
+        }
+
+        void add(int roll) {
+            int pos = Arrays.binarySearch(rolls, 0, size, roll);
+            if (pos >= 0) {
+                return;
+            }
+            pos = -pos - 1;
+            if (size == rolls.length) {
+                rolls = Arrays.copyOf(rolls, size * 2);
+            }
+            System.arraycopy(rolls, pos, rolls, pos + 1, size - pos);
+            rolls[pos] = roll;
+            size++;
+        }
+
+        void remove(int roll) {
+            int pos = Arrays.binarySearch(rolls, 0, size, roll);
+            if (pos >= 0) {
+                System.arraycopy(rolls, pos + 1, rolls, pos, size - pos - 1);
+                size--;
+            }
+        }
+    }
+
+    // Names containing one trigram. A removed name stays as a tombstone
+    // until tombstones make up half the list, so deleting a student costs
+    // O(1) amortized per trigram rather than a search through a common
+    // trigram's list.
+    private static final class Posting {
+        Entry[] entries = new Entry[2];
+        int size;
+        int dead;
+
+        int live() {
+            return size - dead;
+        }
+
+        void add(Entry e) {
+            // A name repeating a trigram is posted once
+            if (size > 0 && entries[size - 1] == e) {
+                return;
+            }
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            entries[size++] = e;
+        }
+
+        void removed() {
+            if (++dead * 2 > size) {
+                int k = 0;
+                for (int i = 0; i < size; i++) {
+                    if (!entries[i].removed) {
+                        entries[k++] = entries[i];
+                    }
+                }
+                Arrays.fill(entries, k, size, null);
+                size = k;
+                dead = 0;
+            }
+        }
+
+        List<Entry> asList() {
+            return Arrays.asList(entries).subList(0, size);
+        }
+    }
+
+    public static String fold(String name) {
+        char[] chars = name.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+        return new String(chars);
+    }
+
+    public int[] exact(String name) {
+        Entry e = byName.get(fold(name));
+        return e == null ? new int[0] : Arrays.copyOf(e.rolls, e.size);
+    }
+
+    // Rolls of every name containing the text anywhere, in name order
+    public int[] substring(String text) {
+        String part = fold(text);
+        if (part.length() < 3) {
+            return collect(filter(byName.values(), part));
+        }
+        Posting rarest = null;
+        for (int i = 0; i + 3 <= part.length(); i++) {
+            Posting posting = trigrams.get(trigram(part, i));
+            if (posting == null) {
+                return new int[0];
+            }
+            if (rarest == null || posting.live() < rarest.live()) {
+                rarest = posting;
+            }
+        }
+        List<Entry> matches = filter(rarest.asList(), part);
+        matches.sort(Comparator.comparing(e -> e.key));
+        return collect(matches);
+    }
+
+    // Every roll number in name order (ties by roll number)
+    public int[] inNameOrder() {
+        return collect(byName.values());
+    }
+
+    @Override
+    public void recordAdded(int slot, StudentRecord rec) {
+        add(rec.getStudent());
+    }
+
+    @Override
+    public void recordUpdated(int slot, StudentRecord old, StudentRecord rec) {
+        if (old.getStudent() != rec.getStudent()) {
+            remove(old.getStudent());
+            add(rec.getStudent());
+        }
+    }
+
+    @Override
+    public void recordRemoved(int slot, StudentRecord old) {
+        remove(old.getStudent());
+    }
+
+    @Override
+    public void storeReset(RecordStore store) {
+        byName.clear();
+        trigrams.clear();
+        for (StudentRecord rec : store) {
+            add(rec.getStudent());
+        }
+    }
+
+    private void add(Student s) {
+        String key = fold(s.getName());
+        Entry e = byName.get(key);
+        if (e == null) {
+            e = new Entry(key);
+            byName.put(key, e);
+            for (int i = 0; i + 3 <= key.length(); i++) {
+                trigrams.computeIfAbsent(trigram(key, i), t -> new Posting()).add(e);
+            }
+        }
+        e.add(s.getRollNumber());
+    }
+
+    private void remove(Student s) {
+        String key = fold(s.getName());
+        Entry e = byName.get(key);
+        if (e == null) {
+            return;
+        }
+        e.remove(s.getRollNumber());
+        if (e.size == 0) {
+            byName.remove(key);
+            e.removed = true;
+            for (int i = 0; i + 3 <= key.length(); i++) {
+                long t = trigram(key, i);
+                Posting posting = trigrams.get(t);
+                // The name was posted once per distinct trigram
+                if (posting == null || key.indexOf(key.substring(i, i + 3)) < i) {
+                    continue;
+                }
+                if (posting.live() == 1) {
+                    trigrams.remove(t);
+                } else {
+                    posting.removed();
+                }
+            }
+        }
+    }
+
+    private static long trigram(String key, int i) {
+        return ((long) key.charAt(i) << 32) | ((long) key.charAt(i + 1) << 16) | key.charAt(i + 2);
+    }
+
+    private static List<Entry> filter(Collection<Entry> entries, String part) {
+        List<Entry> matches = new ArrayList<>();
+        for (Entry e : entries) {
+            if (!e.removed && e.key.contains(part)) {
+                matches.add(e);
+            }
+        }
+        return matches;
+    }
+
+    private static int[] collect(Collection<Entry> entries) {
+        int n = 0;
+        for (Entry e : entries) {
+            n += e.size;
+        }
+        int[] rolls = new int[n];
+        int k = 0;
+        for (Entry e : entries) {
+            System.arraycopy(e.rolls, 0, rolls, k, e.size);
+            k += e.size;
+        }
+        return rolls;
+    }
+}
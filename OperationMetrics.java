@@ -0,0 +1,154 @@
+import javax.management.*;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency histograms and error counts per named operation (menu choices,
+// storage calls, HTTP routes). Each operation is also published as an MBean
+// under StudentResultManagement:type=Operation so jconsole or any JMX client
+// can watch it while the program runs.
+class OperationMetrics {
+    static final String JMX_DOMAIN = "StudentResultManagement";
+
+    private final Map<String, Stats> operations = new ConcurrentHashMap<>();
+
+    // Thrown-away work still took time; record it and count the failure
+    public void record(String operation, long startNanos, boolean failed) {
+        Stats stats = stats(operation);
+        stats.histogram.record(System.nanoTime() - startNanos);
+        if (failed) {
+            stats.errors.increment();
+        }
+    }
+
+    public void record(String operation, long startNanos) {
+        record(operation, startNanos, false);
+    }
+
+    public LatencyHistogram histogram(String operation) {
+        return stats(operation).histogram;
+    }
+
+    private Stats stats(String operation) {
+        Stats stats = operations.get(operation);
+        if (stats == null) {
+            stats = operations.computeIfAbsent(operation, Stats::new);
+            stats.register();
+        }
+        return stats;
+    }
+
+    public void reset() {
+        for (Stats stats : operations.values()) {
+            stats.reset();
+        }
+    }
+
+    // One line per operation, slowest total time first
+    public String report() {
+        List<Stats> list = new ArrayList<>(operations.values());
+        list.sort(Comparator.comparingLong((Stats s) -> s.histogram.totalNanos()).reversed());
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-32s %8s %6s %10s %9s %9s %9s %9s %9s\n",
+                "Operation", "Count", "Errors", "Total ms", "Mean ms", "p50 ms", "p90 ms", "p99 ms", "Max ms"));
+        out.append("-".repeat(111)).append('\n');
+        for (Stats s : list) {
+            if (s.getCount() == 0) {
+                continue;
+            }
+            out.append(String.format("%-32s %8d %6d %10.1f %9.3f %9.3f %9.3f %9.3f %9.3f\n",
+                    s.name, s.getCount(), s.getErrors(), s.getTotalMillis(), s.getMeanMillis(),
+                    s.getP50Millis(), s.getP90Millis(), s.getP99Millis(), s.getMaxMillis()));
+        }
+        return out.toString();
+    }
+
+    // Same figures as report(), as a JSON array for the server
+    public String toJson() {
+        List<Stats> list = new ArrayList<>(operations.values());
+        list.sort(Comparator.comparing((Stats s) -> s.name));
+        StringBuilder out = new StringBuilder("[");
+        for (Stats s : list) {
+            if (out.length() > 1) {
+                out.append(',');
+            }
+            out.append("{\"operation\":");
+            Json.quote(out, s.name);
+            out.append(",\"count\":").append(s.getCount())
+                    .append(",\"errors\":").append(s.getErrors())
+                    .append(",\"totalMillis\":").append(s.getTotalMillis())
+                    .append(",\"meanMillis\":").append(s.getMeanMillis())
+                    .append(",\"p50Millis\":").append(s.getP50Millis())
+                    .append(",\"p90Millis\":").append(s.getP90Millis())
+                    .append(",\"p99Millis\":").append(s.getP99Millis())
+                    .append(",\"maxMillis\":").append(s.getMaxMillis()).append('}');
+        }
+        return out.append(']').toString();
+    }
+
+    private static double millis(double nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static final class Stats implements OperationStatsMBean {
+        final String name;
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+
+        Stats(String name) {
+            this.name = name;
+        }
+
+        // Metrics must never break the operation they measure, so a JMX
+        // problem (e.g. a name already taken by another copy) is ignored
+        void register() {
+            try {
+                ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=Operation,name=" + ObjectName.quote(name));
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                if (!server.isRegistered(objectName)) {
+                    server.registerMBean(new StandardMBean(this, OperationStatsMBean.class), objectName);
+                }
+            } catch (JMException | SecurityException e) {
+                // Still recorded and shown by the metrics report
+            }
+        }
+
+        public long getCount() {
+            return histogram.count();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public double getTotalMillis() {
+            return millis(histogram.totalNanos());
+        }
+
+        public double getMeanMillis() {
+            return millis(histogram.meanNanos());
+        }
+
+        public double getP50Millis() {
+            return millis(histogram.percentileNanos(50));
+        }
+
+        public double getP90Millis() {
+            return millis(histogram.percentileNanos(90));
+        }
+
+        public double getP99Millis() {
+            return millis(histogram.percentileNanos(99));
+        }
+
+        public double getMaxMillis() {
+            return millis(histogram.maxNanos());
+        }
+
+        public void reset() {
+            histogram.reset();
+            errors.reset();
+        }
+    }
+}
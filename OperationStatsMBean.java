@@ -0,0 +1,21 @@
+// JMX view of one operation's latency histogram (JMX needs a public interface).
+// Times are in milliseconds.
+public interface OperationStatsMBean {
+    long getCount();
+
+    long getErrors();
+
+    double getTotalMillis();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP90Millis();
+
+    double getP99Millis();
+
+    double getMaxMillis();
+
+    void reset();
+}
@@ -0,0 +1,136 @@
+import java.util.Arrays;
+
+// Ranking of students by total marks, maintained on every store change.
+// Totals are bounded (0..100 per subject), so students sit in one bucket per total; each
+// bucket holds roll numbers in ascending order, which is the tie-break.
+// Rank order is therefore: highest total first, then lowest roll number.
+// Ranks, top-K and pages are answered by walking bucket sizes, never by sorting.
+class RankIndex implements RecordStore.Listener {
+    private static final int MAX_TOTAL = Result.SUBJECT_COUNT * 100;
+    private static final int[] EMPTY = new int[0];
+
+    private final int[][] buckets = new int[MAX_TOTAL + 1][];
+    private final int[] sizes = new int[MAX_TOTAL + 1];
+    private int count;
+
+    public RankIndex() {
+        Arrays.fill(buckets, EMPTY);
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // 1-based rank of a stored student, or -1 if the student is not indexed
+    public int rankOf(StudentRecord rec) {
+        int total = rec.getResult().totalMarks();
+        int pos = Arrays.binarySearch(buckets[total], 0, sizes[total], rec.getStudent().getRollNumber());
+        if (pos < 0) {
+            return -1;
+        }
+        int ahead = 0;
+        for (int t = MAX_TOTAL; t > total; t--) {
+            ahead += sizes[t];
+        }
+        return ahead + pos + 1;
+    }
+
+    public int[] topK(int k) {
+        return page(0, k);
+    }
+
+    // Roll numbers at ranks offset+1 .. offset+limit, in rank order
+    public int[] page(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit must not be negative");
+        }
+        int n = Math.max(0, Math.min(limit, count - offset));
+        int[] rolls = new int[n];
+        int filled = 0;
+        int skip = offset;
+        for (int t = MAX_TOTAL; t >= 0 && filled < n; t--) {
+            int size = sizes[t];
+            if (skip >= size) {
+                skip -= size;
+                continue;
+            }
+            int take = Math.min(size - skip, n - filled);
+            System.arraycopy(buckets[t], skip, rolls, filled, take);
+            filled += take;
+            skip = 0;
+        }
+        return rolls;
+    }
+
+    @Override
+    public void recordAdded(int slot, StudentRecord rec) {
+        insert(rec.getResult().totalMarks(), rec.getStudent().getRollNumber());
+    }
+
+    @Override
+    public void recordUpdated(int slot, StudentRecord old, StudentRecord rec) {
+        int oldTotal = old.getResult().totalMarks();
+        int newTotal = rec.getResult().totalMarks();
+        if (oldTotal != newTotal) {
+            delete(oldTotal, old.getStudent().getRollNumber());
+            insert(newTotal, rec.getStudent().getRollNumber());
+        }
+    }
+
+    @Override
+    public void recordRemoved(int slot, StudentRecord old) {
+        delete(old.getResult().totalMarks(), old.getStudent().getRollNumber());
+    }
+
+    // Bulk rebuild: append unsorted, then sort each bucket once
+    @Override
+    public void storeReset(RecordStore store) {
+        Arrays.fill(sizes, 0);
+        count = 0;
+        int[] needed = new int[MAX_TOTAL + 1];
+        for (StudentRecord rec : store) {
+            needed[rec.getResult().totalMarks()]++;
+        }
+        for (int t = 0; t <= MAX_TOTAL; t++) {
+            buckets[t] = needed[t] == 0 ? EMPTY : new int[needed[t]];
+        }
+        for (StudentRecord rec : store) {
+            int t = rec.getResult().totalMarks();
+            buckets[t][sizes[t]++] = rec.getStudent().getRollNumber();
+        }
+        for (int t = 0; t <= MAX_TOTAL; t++) {
+            Arrays.sort(buckets[t], 0, sizes[t]);
+            count += sizes[t];
+        }
+    }
+
+    private void insert(int total, int roll) {
+        int[] bucket = buckets[total];
+        int size = sizes[total];
+        int pos = Arrays.binarySearch(bucket, 0, size, roll);
+        if (pos >= 0) {
+            return;
+        }
+        pos = -pos - 1;
+        if (size == bucket.length) {
+            bucket = Arrays.copyOf(bucket, Math.max(4, size + (size >> 1)));
+            buckets[total] = bucket;
+        }
+        System.arraycopy(bucket, pos, bucket, pos + 1, size - pos);
+        bucket[pos] = roll;
+        sizes[total] = size + 1;
+        count++;
+    }
+
+    private void delete(int total, int roll) {
+        int[] bucket = buckets[total];
+        int size = sizes[total];
+        int pos = Arrays.binarySearch(bucket, 0, size, roll);
+        if (pos < 0) {
+            return;
+        }
+        System.arraycopy(bucket, pos + 1, bucket, pos, size - pos - 1);
+        sizes[total] = size - 1;
+        count--;
+    }
+}
@@ -0,0 +1,350 @@
+import java.util.*;
+
+// Growable record store with amortized O(1) appends and tombstone deletes.
+// A record keeps its slot until the store is compacted, so the roll number
+// index only has to be rebuilt on compaction, not on every delete.
+//
+// Slots live in fixed-size chunks so that snapshot() can hand out an
+// immutable view by copying only the chunk table. Chunks are shared with
+// every snapshot taken since they were last written; the next write to a
+// shared chunk copies it first (copy-on-write), so snapshots never see later
+// changes and writers never wait for readers.
+class RecordStore implements Iterable<StudentRecord> {
+    // Derived structures (columns, indexes, statistics) listen to the store
+    // so they stay in sync with every change
+    interface Listener {
+        void recordAdded(int slot, StudentRecord rec);
+
+        void recordUpdated(int slot, StudentRecord old, StudentRecord rec);
+
+        void recordRemoved(int slot, StudentRecord old);
+
+        // Slots were renumbered or the contents replaced wholesale; rebuild from the store
+        void storeReset(RecordStore store);
+    }
+
+    private static final int CHUNK_SHIFT = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    // Compact automatically once tombstones outnumber live records
+    private static final int MIN_TOMBSTONES_FOR_COMPACTION = 64;
+
+    private StudentRecord[][] chunks = new StudentRecord[0][];
+    // True while a chunk may be referenced by a snapshot
+    private boolean[] shared = new boolean[0];
+    // Last snapshot handed out; dropped on the next change
+    private Snapshot current;
+    private int limit;   // slots handed out so far, including tombstones
+    private int live;
+    private final RollNumberIndex rollIndex = new RollNumberIndex();
+    private final List<Listener> listeners = new ArrayList<>();
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+        listener.storeReset(this);
+    }
+
+    public int size() {
+        return live;
+    }
+
+    public boolean isEmpty() {
+        return live == 0;
+    }
+
+    // Upper bound (exclusive) for slot numbers; tombstoned slots return null from get()
+    public int slotLimit() {
+        return limit;
+    }
+
+    public int tombstones() {
+        return limit - live;
+    }
+
+    public StudentRecord get(int slot) {
+        Objects.checkIndex(slot, limit);
+        return chunks[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK];
+    }
+
+    public int find(int roll) {
+        return rollIndex.get(roll);
+    }
+
+    public boolean contains(int roll) {
+        return rollIndex.contains(roll);
+    }
+
+    public StudentRecord findByRoll(int roll) {
+        int slot = rollIndex.get(roll);
+        return slot == RollNumberIndex.NOT_FOUND ? null : chunks[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK];
+    }
+
+    public int add(StudentRecord rec) {
+        int roll = rec.getStudent().getRollNumber();
+        if (rollIndex.contains(roll)) {
+            throw new IllegalArgumentException("Roll number already exists: " + roll);
+        }
+        ensureCapacity(limit + 1);
+        int slot = limit++;
+        write(slot, rec);
+        live++;
+        rollIndex.put(roll, slot);
+        for (Listener l : listeners) {
+            l.recordAdded(slot, rec);
+        }
+        return slot;
+    }
+
+    // Appends every record whose roll number is not already present and
+    // returns how many were skipped as duplicates. Listeners get a single
+    // reset instead of one event per record.
+    public int addAll(StudentRecord[] recs) {
+        ensureCapacity(limit + recs.length);
+        int skipped = 0;
+        for (StudentRecord rec : recs) {
+            if (rec == null || rollIndex.contains(rec.getStudent().getRollNumber())) {
+                skipped++;
+                continue;
+            }
+            write(limit, rec);
+            rollIndex.put(rec.getStudent().getRollNumber(), limit);
+            limit++;
+            live++;
+        }
+        fireReset();
+        return skipped;
+    }
+
+    public int replaceAll(StudentRecord[] recs) {
+        clearSlots();
+        return addAll(recs);
+    }
+
+    // Replaces the record in a slot; the roll number must stay the same.
+    public StudentRecord set(int slot, StudentRecord rec) {
+        StudentRecord old = get(slot);
+        if (old == null) {
+            throw new IllegalStateException("Slot " + slot + " has been deleted");
+        }
+        if (old.getStudent().getRollNumber() != rec.getStudent().getRollNumber()) {
+            throw new IllegalArgumentException("Roll number of a stored record cannot change");
+        }
+        write(slot, rec);
+        for (Listener l : listeners) {
+            l.recordUpdated(slot, old, rec);
+        }
+        return old;
+    }
+
+    public StudentRecord remove(int slot) {
+        StudentRecord old = get(slot);
+        if (old == null) {
+            return null;
+        }
+        write(slot, null);
+        live--;
+        rollIndex.remove(old.getStudent().getRollNumber());
+        for (Listener l : listeners) {
+            l.recordRemoved(slot, old);
+        }
+        if (slot == limit - 1) {
+            // Trailing tombstones can be reclaimed immediately
+            while (limit > 0 && get(limit - 1) == null) {
+                limit--;
+            }
+        } else {
+            compactIfSparse();
+        }
+        return old;
+    }
+
+    public boolean compactIfSparse() {
+        int dead = tombstones();
+        if (dead >= MIN_TOMBSTONES_FOR_COMPACTION && dead > live) {
+            compact();
+            return true;
+        }
+        return false;
+    }
+
+    // Slides live records down over tombstones, preserving their order.
+    public void compact() {
+        if (tombstones() == 0) {
+            return;
+        }
+        int k = 0;
+        for (int i = 0; i < limit; i++) {
+            StudentRecord rec = get(i);
+            if (rec != null) {
+                if (k != i) {
+                    write(k, rec);
+                    rollIndex.put(rec.getStudent().getRollNumber(), k);
+                }
+                k++;
+            }
+        }
+        for (int i = k; i < limit; i++) {
+            write(i, null);
+        }
+        limit = k;
+        fireReset();
+    }
+
+    public void clear() {
+        clearSlots();
+        fireReset();
+    }
+
+    // Snapshots keep the old chunks; the store starts over with fresh ones
+    private void clearSlots() {
+        chunks = new StudentRecord[0][];
+        shared = new boolean[0];
+        current = null;
+        limit = 0;
+        live = 0;
+        rollIndex.clear();
+    }
+
+    private void fireReset() {
+        for (Listener l : listeners) {
+            l.storeReset(this);
+        }
+    }
+
+    // Growing adds chunks; records already stored are never copied
+    public void ensureCapacity(int capacity) {
+        int needed = (capacity + CHUNK_MASK) >>> CHUNK_SHIFT;
+        if (needed > chunks.length) {
+            int grown = Math.max(needed, chunks.length + (chunks.length >> 1));
+            int old = chunks.length;
+            chunks = Arrays.copyOf(chunks, grown);
+            shared = Arrays.copyOf(shared, grown);
+            for (int c = old; c < grown; c++) {
+                chunks[c] = new StudentRecord[CHUNK_SIZE];
+            }
+        }
+    }
+
+    private void write(int slot, StudentRecord rec) {
+        int c = slot >>> CHUNK_SHIFT;
+        if (shared[c]) {
+            chunks[c] = chunks[c].clone();
+            shared[c] = false;
+        }
+        chunks[c][slot & CHUNK_MASK] = rec;
+        current = null;
+    }
+
+    // Immutable view of the store as it is now, costing one copy of the chunk
+    // table (a few thousand references for millions of records). Consecutive
+    // calls without a change in between return the same snapshot.
+    // Callers must keep writers out while this runs, e.g. under a read lock.
+    public synchronized Snapshot snapshot() {
+        if (current == null) {
+            int used = (limit + CHUNK_MASK) >>> CHUNK_SHIFT;
+            Arrays.fill(shared, 0, used, true);
+            current = new Snapshot(Arrays.copyOf(chunks, used), limit, live);
+        }
+        return current;
+    }
+
+    // Live records in slot order
+    public StudentRecord[] toArray() {
+        return toArray(chunks, limit, live);
+    }
+
+    @Override
+    public Iterator<StudentRecord> iterator() {
+        return new SlotIterator(chunks, limit);
+    }
+
+    // A point-in-time view: same slots, records and order as the store had
+    // when it was taken, unaffected by any later change
+    static final class Snapshot implements Iterable<StudentRecord> {
+        private final StudentRecord[][] chunks;
+        private final int limit;
+        private final int live;
+
+        private Snapshot(StudentRecord[][] chunks, int limit, int live) {
+            this.chunks = chunks;
+            this.limit = limit;
+            this.live = live;
+        }
+
+        public int size() {
+            return live;
+        }
+
+        public boolean isEmpty() {
+            return live == 0;
+        }
+
+        public int slotLimit() {
+            return limit;
+        }
+
+        public StudentRecord get(int slot) {
+            Objects.checkIndex(slot, limit);
+            return chunks[slot >>> CHUNK_SHIFT][slot & CHUNK_MASK];
+        }
+
+        public StudentRecord[] toArray() {
+            return RecordStore.toArray(chunks, limit, live);
+        }
+
+        @Override
+        public Iterator<StudentRecord> iterator() {
+            return new SlotIterator(chunks, limit);
+        }
+    }
+
+    private static StudentRecord[] toArray(StudentRecord[][] chunks, int limit, int live) {
+        StudentRecord[] out = new StudentRecord[live];
+        int k = 0;
+        for (int c = 0; c << CHUNK_SHIFT < limit; c++) {
+            StudentRecord[] chunk = chunks[c];
+            int end = Math.min(CHUNK_SIZE, limit - (c << CHUNK_SHIFT));
+            for (int i = 0; i < end; i++) {
+                if (chunk[i] != null) {
+                    out[k++] = chunk[i];
+                }
+            }
+        }
+        return out;
+    }
+
+    // Live records in slot order, skipping tombstones
+    private static final class SlotIterator implements Iterator<StudentRecord> {
+        private final StudentRecord[][] chunks;
+        private final int limit;
+        private int next;
+
+        SlotIterator(StudentRecord[][] chunks, int limit) {
+            this.chunks = chunks;
+            this.limit = limit;
+            advance();
+        }
+
+        private void advance() {
+            while (next < limit && chunks[next >>> CHUNK_SHIFT][next & CHUNK_MASK] == null) {
+                next++;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < limit;
+        }
+
+        @Override
+        public StudentRecord next() {
+            if (next >= limit) {
+                throw new NoSuchElementException();
+            }
+            StudentRecord rec = chunks[next >>> CHUNK_SHIFT][next & CHUNK_MASK];
+            next++;
+            advance();
+            return rec;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Forward-only cursor over a binary data file (see BinaryDataStorage) that
+// reads it in fixed-size chunks, so a file of any size is processed in the
+// same small amount of memory. next() decodes one record into the cursor's
+// fields; nothing is allocated per record.
+//
+// Strings stay on disk and are read back (through a small cache) when a
+// name, class or department is actually asked for. Only the position of
+// every STRIDE-th dictionary entry is kept; the others are found by walking
+// the length prefixes from there, or from the last entry read, since names
+// are mostly asked for in file order. The checksum is verified once the
+// last record has been read.
+class RecordStream implements Closeable {
+    private static final int STRING_CACHE = 4096;
+    private static final int STRIDE = 256;
+    private static final int BLOCK_BYTES = 8192;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final BinaryDataStorage.ChannelInput in;
+    private final int count;
+    private final int subjects;
+    private final int dictionarySize;
+    // File position of every STRIDE-th dictionary entry's length prefix
+    private final long[] checkpoints;
+    // Dictionary bytes from blockStart, reused across lookups
+    private final ByteBuffer block = ByteBuffer.allocate(BLOCK_BYTES);
+    private long blockStart = -1;
+    // The entry the last lookup stopped at
+    private int walkedCode = -1;
+    private long walkedPosition;
+    private final Map<Integer, String> strings = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+            return size() > STRING_CACHE;
+        }
+    };
+    private int read;
+    private int roll;
+    private int nameCode;
+    private int classCode;
+    private int departmentCode;
+    private final int[] marks;
+
+    private RecordStream(Path file, FileChannel channel, BinaryDataStorage.ChannelInput in, int count, int subjects,
+                         int dictionarySize, long[] checkpoints) {
+        this.file = file;
+        this.channel = channel;
+        this.in = in;
+        this.count = count;
+        this.subjects = subjects;
+        this.dictionarySize = dictionarySize;
+        this.checkpoints = checkpoints;
+        this.marks = new int[subjects];
+        block.limit(0);
+    }
+
+    public static RecordStream open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            BinaryDataStorage.ChannelInput in = new BinaryDataStorage.ChannelInput(channel);
+            in.ensure(BinaryDataStorage.HEADER_BYTES);
+            if (in.buf.getInt() != BinaryDataStorage.MAGIC) {
+                throw new IOException(file + " is not a student data file");
+            }
+            int version = in.buf.getShort() & 0xFFFF;
+            if (version != BinaryDataStorage.VERSION) {
+                throw new IOException("Unsupported data file version " + version);
+            }
+            int subjects = in.buf.get() & 0xFF;
+            if (subjects != Result.SUBJECT_COUNT) {
+                throw new IOException("Data file has " + subjects + " subjects, expected " + Result.SUBJECT_COUNT);
+            }
+            in.buf.get();
+            int count = in.buf.getInt();
+            int dictionarySize = in.buf.getInt();
+            if (count < 0 || dictionarySize < 0) {
+                throw new IOException("Corrupt data file header");
+            }
+            long[] checkpoints = new long[(dictionarySize + STRIDE - 1) / STRIDE];
+            long position = BinaryDataStorage.HEADER_BYTES;
+            for (int i = 0; i < dictionarySize; i++) {
+                if (i % STRIDE == 0) {
+                    checkpoints[i / STRIDE] = position;
+                }
+                in.ensure(2);
+                int len = in.buf.getShort() & 0xFFFF;
+                in.ensure(len);
+                in.buf.position(in.buf.position() + len);
+                position += 2 + len;
+            }
+            return new RecordStream(file, channel, in, count, subjects, dictionarySize, checkpoints);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    // Moves to the next record; false once all have been read and the checksum checked
+    public boolean next() throws IOException {
+        if (read >= count) {
+            if (read == count) {
+                read++;
+                in.verifyChecksum();
+            }
+            return false;
+        }
+        in.ensure(16 + subjects);
+        roll = in.buf.getInt();
+        nameCode = checkCode(in.buf.getInt());
+        classCode = checkCode(in.buf.getInt());
+        departmentCode = checkCode(in.buf.getInt());
+        for (int subject = 0; subject < subjects; subject++) {
+            int mark = in.buf.get() & 0xFF;
+            if (mark > 100) {
+                throw new IOException("Corrupt record for roll number " + roll + ": mark " + mark);
+            }
+            marks[subject] = mark;
+        }
+        read++;
+        return true;
+    }
+
+    private int checkCode(int code) throws IOException {
+        if (code < 0 || code >= dictionarySize) {
+            throw new IOException("Corrupt data file: dictionary index " + code + " out of range");
+        }
+        return code;
+    }
+
+    public int rollNumber() {
+        return roll;
+    }
+
+    public int mark(int subject) {
+        return marks[subject];
+    }
+
+    public int totalMarks() {
+        int total = 0;
+        for (int mark : marks) {
+            total += mark;
+        }
+        return total;
+    }
+
+    public boolean isPass() {
+        for (int mark : marks) {
+            if (mark < Result.PASS_MARK) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String name() throws IOException {
+        return string(nameCode);
+    }
+
+    public String className() throws IOException {
+        return string(classCode);
+    }
+
+    public String department() throws IOException {
+        return string(departmentCode);
+    }
+
+    // A heap copy of the current record
+    public StudentRecord toRecord() throws IOException {
+        return new StudentRecord(new Student(name(), roll, className(), department()), new Result(marks));
+    }
+
+    private String string(int code) throws IOException {
+        String s = strings.get(code);
+        if (s == null) {
+            // Start from the nearer of the last entry read and the checkpoint
+            if (code < walkedCode || code - walkedCode > code % STRIDE) {
+                walkedCode = code - code % STRIDE;
+                walkedPosition = checkpoints[code / STRIDE];
+            }
+            for (; walkedCode < code; walkedCode++) {
+                walkedPosition += 2 + (dictionaryBytes(walkedPosition, 2).getShort() & 0xFFFF);
+            }
+            int len = dictionaryBytes(walkedPosition, 2).getShort() & 0xFFFF;
+            byte[] bytes = new byte[len];
+            dictionaryBytes(walkedPosition + 2, len).get(bytes);
+            s = new String(bytes, StandardCharsets.UTF_8);
+            strings.put(code, s);
+        }
+        return s;
+    }
+
+    // A view of the file's bytes at a position, read through the block buffer.
+    // Positional reads leave the streaming position alone.
+    private ByteBuffer dictionaryBytes(long position, int length) throws IOException {
+        if (length > BLOCK_BYTES) {
+            ByteBuffer large = ByteBuffer.allocate(length);
+            fill(large, position, length);
+            return large;
+        }
+        if (position < blockStart || position + length > blockStart + block.limit()) {
+            block.clear();
+            fill(block, position, length);
+            blockStart = position;
+        }
+        ByteBuffer view = block.duplicate();
+        view.position((int) (position - blockStart));
+        return view;
+    }
+
+    private void fill(ByteBuffer buf, long position, int needed) throws IOException {
+        while (buf.hasRemaining()) {
+            if (channel.read(buf, position + buf.position()) < 0) {
+                break;
+            }
+        }
+        buf.flip();
+        if (buf.remaining() < needed) {
+            throw new EOFException("Data file is truncated");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,96 @@
+// Renders one student's report card as plain text (the console layout) or
+// as a standalone HTML page. Built with plain appends so bulk exports can
+// render many cards per second on every core.
+class ReportCard {
+    private static final String RULE = "=".repeat(50);
+    private static final String THIN_RULE = "-".repeat(50);
+
+    public static String text(StudentRecord rec) {
+        Student s = rec.getStudent();
+        Result r = rec.getResult();
+        StringBuilder out = new StringBuilder(640);
+        out.append(RULE).append('\n');
+        out.append("           REPORT CARD\n");
+        out.append(RULE).append('\n');
+        out.append("Name: ").append(s.getName()).append('\n');
+        out.append("Roll No: ").append(s.getRollNumber()).append('\n');
+        out.append("Class: ").append(s.getClassName()).append('\n');
+        out.append("Department: ").append(s.getDepartment()).append('\n');
+        out.append(THIN_RULE).append('\n');
+        out.append("SUBJECTS\tMARKS\tSTATUS\n");
+        out.append(THIN_RULE).append('\n');
+        for (int subject = 0; subject < Result.SUBJECT_COUNT; subject++) {
+            String name = Result.SUBJECT_NAMES[subject];
+            int mark = r.getMark(subject);
+            // Short names get a second tab so the marks line up
+            out.append(name).append(name.length() < 8 ? "\t\t" : "\t").append(mark).append('\t')
+                    .append(mark >= Result.PASS_MARK ? "PASS" : "FAIL").append('\n');
+        }
+        out.append(THIN_RULE).append('\n');
+        out.append("TOTAL MARKS: ").append(r.totalMarks()).append('/').append(Result.SUBJECT_COUNT * 100).append('\n');
+        out.append("AVERAGE: ");
+        appendFixed2(out, r.averageMarks()).append("%\n");
+        out.append("GRADE: ").append(r.getGrade().label()).append('\n');
+        out.append("REMARKS: ").append(r.getGrade().remarks()).append('\n');
+        out.append("OVERALL STATUS: ").append(r.isPass() ? "PASS" : "FAIL").append('\n');
+        out.append(RULE).append('\n');
+        return out.toString();
+    }
+
+    public static String html(StudentRecord rec) {
+        Student s = rec.getStudent();
+        Result r = rec.getResult();
+        StringBuilder out = new StringBuilder(1536);
+        out.append("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"utf-8\">\n<title>Report Card - ");
+        escape(out, s.getName()).append("</title>\n");
+        out.append("<style>body{font-family:sans-serif;max-width:40em;margin:2em auto}"
+                + "table{border-collapse:collapse;width:100%}td,th{border:1px solid #999;padding:4px 8px;text-align:left}"
+                + ".fail{color:#b00}</style>\n</head>\n<body>\n<h1>Report Card</h1>\n<table>\n");
+        row(out, "Name", s.getName());
+        row(out, "Roll No", Integer.toString(s.getRollNumber()));
+        row(out, "Class", s.getClassName());
+        row(out, "Department", s.getDepartment());
+        out.append("</table>\n<h2>Marks</h2>\n<table>\n<tr><th>Subject</th><th>Marks</th><th>Status</th></tr>\n");
+        for (int subject = 0; subject < Result.SUBJECT_COUNT; subject++) {
+            int mark = r.getMark(subject);
+            boolean pass = mark >= Result.PASS_MARK;
+            out.append(pass ? "<tr><td>" : "<tr class=\"fail\"><td>");
+            escape(out, Result.SUBJECT_NAMES[subject]).append("</td><td>").append(mark).append("</td><td>")
+                    .append(pass ? "PASS" : "FAIL").append("</td></tr>\n");
+        }
+        out.append("</table>\n<h2>Result</h2>\n<table>\n");
+        row(out, "Total Marks", r.totalMarks() + "/" + Result.SUBJECT_COUNT * 100);
+        row(out, "Average", appendFixed2(new StringBuilder(8), r.averageMarks()).append('%').toString());
+        row(out, "Grade", r.getGrade().label());
+        row(out, "Remarks", r.getGrade().remarks());
+        row(out, "Overall Status", r.isPass() ? "PASS" : "FAIL");
+        out.append("</table>\n</body>\n</html>\n");
+        return out.toString();
+    }
+
+    private static void row(StringBuilder out, String label, String value) {
+        out.append("<tr><th>").append(label).append("</th><td>");
+        escape(out, value).append("</td></tr>\n");
+    }
+
+    private static StringBuilder escape(StringBuilder out, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '<' -> out.append("&lt;");
+                case '>' -> out.append("&gt;");
+                case '&' -> out.append("&amp;");
+                case '"' -> out.append("&quot;");
+                default -> out.append(c);
+            }
+        }
+        return out;
+    }
+
+    // Same text as "%.2f" for non-negative values
+    private static StringBuilder appendFixed2(StringBuilder out, float value) {
+        long hundredths = Math.round(value * 100.0);
+        int cents = (int) (hundredths % 100);
+        return out.append(hundredths / 100).append('.').append((char) ('0' + cents / 10)).append((char) ('0' + cents % 10));
+    }
+}
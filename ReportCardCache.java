@@ -0,0 +1,211 @@
+import javax.management.*;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+// Text report cards rendered once and kept as UTF-8 bytes, keyed by roll
+// number, so repeat requests (menu option 11, GET .../report-card?format=text)
+// skip the rendering. Least recently used cards are evicted once the cache
+// holds more than its entry or byte budget.
+//
+// A card depends only on its student's record, so the cache listens to the
+// store: an update or delete drops exactly that student's card, and a reset
+// (reload, bulk import, compaction) drops them all. Callers read under the
+// same locking as the store itself. Bulk exports bypass the cache so they do
+// not push out the cards people keep asking for.
+//
+// Cards are rendered outside the cache's monitor, so a miss never holds up
+// requests for other students. Concurrent misses for the same student wait
+// for one rendering, like computeIfAbsent; a card invalidated while it was
+// being rendered is returned to its callers but not kept.
+//
+// Counters are published under StudentResultManagement:type=Cache,name=ReportCards.
+class ReportCardCache implements RecordStore.Listener, ReportCardCacheMBean {
+    static final int DEFAULT_MAX_ENTRIES = 10_000;
+    static final long DEFAULT_MAX_BYTES = 8L << 20;
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<Integer, byte[]> cards = new LinkedHashMap<>(256, 0.75f, true);
+    // Cards being rendered right now, by roll number
+    private final HashMap<Integer, FutureTask<byte[]>> loading = new HashMap<>();
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    public ReportCardCache() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES);
+    }
+
+    public ReportCardCache(int maxEntries, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    // Metrics must never break the program, so a JMX problem is ignored
+    public void register() {
+        try {
+            ObjectName name = new ObjectName(OperationMetrics.JMX_DOMAIN + ":type=Cache,name=ReportCards");
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new StandardMBean(this, ReportCardCacheMBean.class), name);
+            }
+        } catch (JMException | SecurityException e) {
+            // Still counted and shown by the metrics report
+        }
+    }
+
+    // The rendered card; callers must not modify the array
+    public byte[] get(StudentRecord rec) {
+        int roll = rec.getStudent().getRollNumber();
+        FutureTask<byte[]> load;
+        boolean rendering = false;
+        synchronized (this) {
+            byte[] card = cards.get(roll);
+            if (card != null) {
+                hits++;
+                return card;
+            }
+            load = loading.get(roll);
+            if (load != null) {
+                hits++;
+            } else {
+                misses++;
+                load = new FutureTask<>(() -> ReportCard.text(rec).getBytes(StandardCharsets.UTF_8));
+                loading.put(roll, load);
+                rendering = true;
+            }
+        }
+        if (!rendering) {
+            // Another request is rendering this card; wait for it instead
+            return await(load, rec);
+        }
+        byte[] card = null;
+        try {
+            load.run();
+            card = await(load, rec);
+        } finally {
+            synchronized (this) {
+                // Not kept if it was invalidated meanwhile or rendering failed
+                if (loading.remove(roll, load) && card != null && card.length <= maxBytes) {
+                    cards.put(roll, card);
+                    bytes += card.length;
+                    evict();
+                }
+            }
+        }
+        return card;
+    }
+
+    private static byte[] await(FutureTask<byte[]> load, StudentRecord rec) {
+        try {
+            return load.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException failure) {
+                throw failure;
+            }
+            if (e.getCause() instanceof Error failure) {
+                throw failure;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            // Give up waiting and render this caller's own copy
+            Thread.currentThread().interrupt();
+            return ReportCard.text(rec).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private void evict() {
+        Iterator<byte[]> eldest = cards.values().iterator();
+        while (cards.size() > maxEntries || bytes > maxBytes) {
+            bytes -= eldest.next().length;
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    private synchronized void invalidate(int roll) {
+        loading.remove(roll);
+        byte[] card = cards.remove(roll);
+        if (card != null) {
+            bytes -= card.length;
+            invalidations++;
+        }
+    }
+
+    @Override
+    public void recordAdded(int slot, StudentRecord rec) {
+        invalidate(rec.getStudent().getRollNumber());
+    }
+
+    @Override
+    public void recordUpdated(int slot, StudentRecord old, StudentRecord rec) {
+        invalidate(old.getStudent().getRollNumber());
+    }
+
+    @Override
+    public void recordRemoved(int slot, StudentRecord old) {
+        invalidate(old.getStudent().getRollNumber());
+    }
+
+    @Override
+    public synchronized void storeReset(RecordStore store) {
+        invalidations += cards.size();
+        cards.clear();
+        loading.clear();
+        bytes = 0;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized long getInvalidations() {
+        return invalidations;
+    }
+
+    public synchronized double getHitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : hits / (double) requests;
+    }
+
+    public synchronized int getEntries() {
+        return cards.size();
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public synchronized void resetCounters() {
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+        invalidations = 0;
+    }
+
+    public synchronized String report() {
+        return String.format("Report card cache: %d hit(s), %d miss(es), %.1f%% hit ratio, %d eviction(s), "
+                        + "%d invalidation(s); %d card(s), %d KB of %d KB\n", hits, misses, getHitRatio() * 100,
+                evictions, invalidations, cards.size(), bytes >> 10, maxBytes >> 10);
+    }
+
+    public synchronized String toJson() {
+        return "{\"hits\":" + hits + ",\"misses\":" + misses + ",\"evictions\":" + evictions
+                + ",\"invalidations\":" + invalidations + ",\"entries\":" + cards.size() + ",\"bytes\":" + bytes + "}";
+    }
+}
@@ -0,0 +1,18 @@
+// JMX view of the rendered report-card cache (JMX needs a public interface).
+public interface ReportCardCacheMBean {
+    long getHits();
+
+    long getMisses();
+
+    long getEvictions();
+
+    long getInvalidations();
+
+    double getHitRatio();
+
+    int getEntries();
+
+    long getBytes();
+
+    void resetCounters();
+}
@@ -0,0 +1,168 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+// Writes report cards for many students into a directory, one file per
+// student and format, grouped in a subdirectory per department. Rendering
+// is spread over every core; finished cards go through a bounded queue to a
+// small pool of writer threads, so rendering never runs ahead of the disk by
+// more than the queue holds.
+class ReportCardExporter {
+    enum Format {
+        TEXT(".txt"), HTML(".html");
+
+        private final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        public static EnumSet<Format> parse(String name) {
+            return switch (name.trim().toLowerCase()) {
+                case "text", "txt" -> EnumSet.of(TEXT);
+                case "html" -> EnumSet.of(HTML);
+                case "both", "" -> EnumSet.allOf(Format.class);
+                default -> throw new IllegalArgumentException("Unknown format: " + name + " (use text, html or both)");
+            };
+        }
+    }
+
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final int DEFAULT_WRITERS = 4;
+    // Tells a writer thread there is nothing more to write
+    private static final Card END = new Card(null, null);
+
+    private record Card(Path file, byte[] content) {
+    }
+
+    private final Path directory;
+    private final Set<Format> formats;
+    private final int renderers;
+    private final int writers;
+
+    public ReportCardExporter(Path directory, Set<Format> formats) {
+        this(directory, formats, Runtime.getRuntime().availableProcessors(), DEFAULT_WRITERS);
+    }
+
+    public ReportCardExporter(Path directory, Set<Format> formats, int renderers, int writers) {
+        if (formats.isEmpty()) {
+            throw new IllegalArgumentException("No report card format chosen");
+        }
+        this.directory = directory;
+        this.formats = EnumSet.copyOf(formats);
+        this.renderers = Math.max(1, renderers);
+        this.writers = Math.max(1, writers);
+    }
+
+    // Exports every record, or only those of one department when it is not
+    // null, and returns the number of students exported
+    public int export(StudentRecord[] records, String department) throws IOException {
+        AttributeDictionary departments = AttributeDictionary.DEPARTMENTS;
+        boolean[] wanted = department == null ? null : departments.matchingIgnoreCase(department);
+        List<StudentRecord> selected = new ArrayList<>();
+        // Output folder by department code
+        Path[] folders = new Path[departments.size()];
+        for (StudentRecord rec : records) {
+            int code = rec.getStudent().getDepartmentCode();
+            if (wanted == null || (code < wanted.length && wanted[code])) {
+                selected.add(rec);
+                if (folders[code] == null) {
+                    folders[code] = directory.resolve(folderName(departments.value(code)));
+                    Files.createDirectories(folders[code]);
+                }
+            }
+        }
+        if (selected.isEmpty()) {
+            return 0;
+        }
+
+        BlockingQueue<Card> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        ExecutorService writerPool = Executors.newFixedThreadPool(writers);
+        ExecutorService renderPool = Executors.newFixedThreadPool(renderers);
+        List<Future<?>> writing = new ArrayList<>();
+        List<Future<?>> rendering = new ArrayList<>();
+        try {
+            for (int w = 0; w < writers; w++) {
+                writing.add(writerPool.submit(() -> write(queue)));
+            }
+            int per = (selected.size() + renderers - 1) / renderers;
+            for (int from = 0; from < selected.size(); from += per) {
+                List<StudentRecord> part = selected.subList(from, Math.min(selected.size(), from + per));
+                rendering.add(renderPool.submit(() -> render(part, folders, queue, writing)));
+            }
+            IOException failure = null;
+            for (Future<?> f : rendering) {
+                failure = await(f, failure);
+            }
+            for (int w = 0; w < writers; w++) {
+                while (!queue.offer(END, 100, TimeUnit.MILLISECONDS)) {
+                    if (writing.stream().allMatch(Future::isDone)) {
+                        break;
+                    }
+                }
+            }
+            for (Future<?> f : writing) {
+                failure = await(f, failure);
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Report card export interrupted");
+        } finally {
+            renderPool.shutdownNow();
+            writerPool.shutdownNow();
+        }
+        return selected.size();
+    }
+
+    private Void render(List<StudentRecord> part, Path[] folders, BlockingQueue<Card> queue,
+                        List<Future<?>> writing) throws InterruptedException, IOException {
+        for (StudentRecord rec : part) {
+            Path folder = folders[rec.getStudent().getDepartmentCode()];
+            String base = Integer.toString(rec.getStudent().getRollNumber());
+            for (Format format : formats) {
+                String content = format == Format.TEXT ? ReportCard.text(rec) : ReportCard.html(rec);
+                Card card = new Card(folder.resolve(base + format.extension), content.getBytes(StandardCharsets.UTF_8));
+                // A failed writer stops draining the queue; give up instead of blocking forever
+                while (!queue.offer(card, 100, TimeUnit.MILLISECONDS)) {
+                    for (Future<?> w : writing) {
+                        if (w.isDone()) {
+                            throw new IOException("Report card writer stopped early");
+                        }
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Void write(BlockingQueue<Card> queue) throws InterruptedException, IOException {
+        for (Card card = queue.take(); card != END; card = queue.take()) {
+            Files.write(card.file(), card.content());
+        }
+        return null;
+    }
+
+    // Waits for a task and keeps the first I/O failure seen
+    private static IOException await(Future<?> task, IOException failure) throws InterruptedException {
+        try {
+            task.get();
+        } catch (ExecutionException e) {
+            if (failure == null) {
+                Throwable cause = e.getCause();
+                failure = cause instanceof IOException io ? io : new IOException(cause.getMessage(), cause);
+            }
+        }
+        return failure;
+    }
+
+    // Department names come from user input; keep them safe as directory names
+    static String folderName(String department) {
+        String name = department.trim().replaceAll("[^A-Za-z0-9._-]", "_");
+        return name.isEmpty() || name.startsWith(".") ? "_" + name : name;
+    }
+}
@@ -0,0 +1,514 @@
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// Marks of every closed term, each kept as the change from the term before.
+// A student gets a row the first time a term is closed with them in it; a
+// term then holds, per row, the signed change in each subject (one byte) and
+// in the total (a short column). A student's first term, or their first
+// after missing one, is stored as absolute marks and flagged in the term's
+// full bitmap, so any term's marks are the sum of the changes since the
+// last full entry. A student who moves department starts a new row. Rows
+// are only assigned when a term is closed, so the current marks shown as an
+// unclosed term never change how later terms are stored.
+//
+// Trend queries never rebuild marks: the most improved students are the
+// largest sums of total changes, and department averages are running totals
+// advanced term by term by the same changes. The marks being entered now
+// act as an extra, not yet closed term at the end of the timeline.
+//
+// Closed terms are saved to student_data.history in the checksummed layout
+// of the data file, as changes too.
+class ResultHistory {
+    static final String HISTORY_FILE = "student_data.history";
+    static final int MAGIC = 0x53524D48; // "SRMH"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 12;
+    private static final int SUBJECTS = Result.SUBJECT_COUNT;
+
+    static final class Term {
+        final String label;
+        final int rows;                 // rows that existed when the term was taken
+        final CompressedBitmap present = new CompressedBitmap();
+        final CompressedBitmap full = new CompressedBitmap();
+        final byte[] marks;             // rows * subjects: change from the previous term, or absolute if full
+        final short[] totals;           // change in total, or the absolute total if full
+        // Roll number and department of the rows this term added, the last
+        // addedRolls.length of its rows
+        final int[] addedRolls;
+        final short[] addedDepartments;
+
+        Term(String label, int rows, int[] addedRolls, short[] addedDepartments) {
+            this.label = label;
+            this.rows = rows;
+            this.marks = new byte[rows * SUBJECTS];
+            this.totals = new short[rows];
+            this.addedRolls = addedRolls;
+            this.addedDepartments = addedDepartments;
+        }
+    }
+
+    // One line of the most improved list
+    static final class Improvement {
+        final int roll;
+        final int departmentCode;
+        final int fromTotal;
+        final int toTotal;
+
+        Improvement(int roll, int departmentCode, int fromTotal, int toTotal) {
+            this.roll = roll;
+            this.departmentCode = departmentCode;
+            this.fromTotal = fromTotal;
+            this.toTotal = toTotal;
+        }
+
+        int gain() {
+            return toTotal - fromTotal;
+        }
+    }
+
+    private final Path file;
+    private final List<Term> terms = new ArrayList<>();
+    private final RollNumberIndex rowOfRoll = new RollNumberIndex();
+    private int[] rollOfRow = new int[16];
+    private short[] departmentOfRow = new short[16];
+    private int rows;
+    // Absolute marks of each row as of the last closed term it was in
+    private byte[] latest = new byte[16 * SUBJECTS];
+
+    private ResultHistory(Path file) {
+        this.file = file;
+    }
+
+    public static ResultHistory open(Path file) throws IOException {
+        ResultHistory history = new ResultHistory(file);
+        history.load();
+        return history;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public List<Term> terms() {
+        return Collections.unmodifiableList(terms);
+    }
+
+    // Closed terms followed by the current marks as an unclosed term
+    public List<Term> timeline(StudentRecord[] current) {
+        List<Term> timeline = new ArrayList<>(terms);
+        timeline.add(encode("Current", current));
+        return timeline;
+    }
+
+    public void closeTerm(String label, StudentRecord[] records) throws IOException {
+        if (label.isBlank() || label.getBytes(StandardCharsets.UTF_8).length > 0xFFFF) {
+            throw new IllegalArgumentException("Term name must not be blank");
+        }
+        for (Term t : terms) {
+            if (t.label.equals(label)) {
+                throw new IllegalArgumentException("A term named " + label + " is already closed");
+            }
+        }
+        commit(encode(label, records));
+        try {
+            write();
+        } catch (IOException e) {
+            // Back to what the file still holds
+            try {
+                load();
+            } catch (IOException reloadFailure) {
+                e.addSuppressed(reloadFailure);
+            }
+            throw e;
+        }
+    }
+
+    // Largest total gains from one term to a later one, among students in
+    // every term in between; ties go to the lower roll number
+    public List<Improvement> mostImproved(List<Term> timeline, int from, int to, int limit) {
+        if (from < 0 || to >= timeline.size() || from >= to) {
+            throw new IllegalArgumentException("Pick an earlier term to compare from than to");
+        }
+        CompressedBitmap eligible = timeline.get(from).present;
+        for (int t = from + 1; t <= to; t++) {
+            Term term = timeline.get(t);
+            eligible = CompressedBitmap.andNot(CompressedBitmap.and(eligible, term.present), term.full);
+        }
+        int[] candidates = eligible.toArray();
+        int[] gains = new int[candidates.length];
+        for (int t = from + 1; t <= to; t++) {
+            short[] totals = timeline.get(t).totals;
+            for (int i = 0; i < candidates.length; i++) {
+                gains[i] += totals[candidates[i]];
+            }
+        }
+        // Gains are bounded, so the cut-off for the top entries comes from a count per gain
+        int span = SUBJECTS * 100;
+        int[] counts = new int[2 * span + 1];
+        for (int gain : gains) {
+            counts[gain + span]++;
+        }
+        int threshold = -span;
+        for (int g = span, seen = 0; g >= -span; g--) {
+            seen += counts[g + span];
+            if (seen >= limit) {
+                threshold = g;
+                break;
+            }
+        }
+        List<Improvement> top = new ArrayList<>();
+        for (int i = 0; i < candidates.length; i++) {
+            if (gains[i] >= threshold) {
+                int row = candidates[i];
+                int fromTotal = totalAt(timeline, from, row);
+                top.add(new Improvement(rollsOf(timeline)[row], departmentsOf(timeline)[row], fromTotal,
+                        fromTotal + gains[i]));
+            }
+        }
+        top.sort(Comparator.comparingInt(Improvement::gain).reversed().thenComparingInt(imp -> imp.roll));
+        return top.size() > limit ? top.subList(0, limit) : top;
+    }
+
+    // Absolute total of a row in one term, added up from its last full entry
+    private static int totalAt(List<Term> timeline, int t, int row) {
+        int total = 0;
+        for (; ; t--) {
+            Term term = timeline.get(t);
+            total += term.totals[row];
+            if (term.full.contains(row)) {
+                return total;
+            }
+        }
+    }
+
+    // Per term and department: students, average total, and the average change
+    // of the students who were also in the previous term
+    public void printDepartmentTrend(List<Term> timeline, PrintStream out) {
+        int lastRows = timeline.get(timeline.size() - 1).rows;
+        short[] departmentOfRow = departmentsOf(timeline);
+        int[] running = new int[lastRows];
+        int departments = AttributeDictionary.DEPARTMENTS.size();
+        long[][] sums = new long[timeline.size()][departments];
+        int[][] counts = new int[timeline.size()][departments];
+        long[][] changes = new long[timeline.size()][departments];
+        int[][] continuing = new int[timeline.size()][departments];
+        for (int t = 0; t < timeline.size(); t++) {
+            Term term = timeline.get(t);
+            short[] totals = term.totals;
+            long[] sum = sums[t];
+            int[] count = counts[t];
+            long[] change = changes[t];
+            int[] cont = continuing[t];
+            term.full.forEach(row -> running[row] = totals[row]);
+            CompressedBitmap.andNot(term.present, term.full).forEach(row -> {
+                running[row] += totals[row];
+                change[departmentOfRow[row]] += totals[row];
+                cont[departmentOfRow[row]]++;
+            });
+            term.present.forEach(row -> {
+                sum[departmentOfRow[row]] += running[row];
+                count[departmentOfRow[row]]++;
+            });
+        }
+
+        SortedMap<String, Integer> byName = new TreeMap<>();
+        for (int code = 0; code < departments; code++) {
+            for (int[] count : counts) {
+                if (count[code] > 0) {
+                    byName.put(AttributeDictionary.DEPARTMENTS.value(code), code);
+                    break;
+                }
+            }
+        }
+        out.println("\n===== Term-over-term Averages by Department =====");
+        if (byName.isEmpty()) {
+            out.println("No students available.");
+            return;
+        }
+        out.printf("%-15s %-20s %-9s %-8s %-8s\n", "Department", "Term", "Students", "Average", "Change");
+        out.println("=".repeat(64));
+        for (Map.Entry<String, Integer> e : byName.entrySet()) {
+            int code = e.getValue();
+            for (int t = 0; t < timeline.size(); t++) {
+                if (counts[t][code] == 0) {
+                    continue;
+                }
+                String change = continuing[t][code] == 0 ? "-"
+                        : String.format("%+.2f", changes[t][code] / (float) continuing[t][code]);
+                out.printf("%-15s %-20s %-9d %-8.2f %-8s\n", e.getKey(), timeline.get(t).label,
+                        counts[t][code], sums[t][code] / (float) counts[t][code], change);
+            }
+        }
+    }
+
+    // A student's marks in each term of the timeline, null where they had none
+    public int[][] marksByTerm(List<Term> timeline, int roll) {
+        int[][] out = new int[timeline.size()][];
+        int[] marks = new int[SUBJECTS];
+        int[] rollOfRow = rollsOf(timeline);
+        for (int row = 0; row < timeline.get(timeline.size() - 1).rows; row++) {
+            if (rollOfRow[row] != roll) {
+                continue;
+            }
+            for (int t = 0; t < timeline.size(); t++) {
+                Term term = timeline.get(t);
+                if (row >= term.rows || !term.present.contains(row)) {
+                    continue;
+                }
+                boolean full = term.full.contains(row);
+                for (int s = 0; s < SUBJECTS; s++) {
+                    marks[s] = (full ? 0 : marks[s]) + term.marks[row * SUBJECTS + s];
+                }
+                out[t] = marks.clone();
+            }
+        }
+        return out;
+    }
+
+    private Term encode(String label, StudentRecord[] records) {
+        int[] rolls = new int[records.length];
+        int[] departmentCodes = new int[records.length];
+        byte[] marks = new byte[records.length * SUBJECTS];
+        for (int i = 0; i < records.length; i++) {
+            rolls[i] = records[i].getStudent().getRollNumber();
+            departmentCodes[i] = records[i].getStudent().getDepartmentCode();
+            Result r = records[i].getResult();
+            for (int s = 0; s < SUBJECTS; s++) {
+                marks[i * SUBJECTS + s] = (byte) r.getMark(s);
+            }
+        }
+        return encode(label, rolls, departmentCodes, marks);
+    }
+
+    // Students without a row of their own (new, or moved department) get the
+    // next free rows, recorded in the term and taken only by commit()
+    private Term encode(String label, int[] rolls, int[] departmentCodes, byte[] marks) {
+        Term previous = terms.isEmpty() ? null : terms.get(terms.size() - 1);
+        int[] rowOf = new int[rolls.length];
+        int[] addedRolls = new int[rolls.length];
+        short[] addedDepartments = new short[rolls.length];
+        int added = 0;
+        for (int i = 0; i < rolls.length; i++) {
+            int row = rowOfRoll.get(rolls[i]);
+            if (row == RollNumberIndex.NOT_FOUND || departmentOfRow[row] != departmentCodes[i]) {
+                row = rows + added;
+                addedRolls[added] = rolls[i];
+                addedDepartments[added++] = (short) departmentCodes[i];
+            }
+            rowOf[i] = row;
+        }
+        Term term = new Term(label, rows + added, Arrays.copyOf(addedRolls, added),
+                Arrays.copyOf(addedDepartments, added));
+        boolean[] isPresent = new boolean[term.rows];
+        boolean[] isFull = new boolean[term.rows];
+        for (int i = 0; i < rolls.length; i++) {
+            int row = rowOf[i];
+            boolean full = previous == null || row >= previous.rows || !previous.present.contains(row);
+            int total = 0;
+            for (int s = 0; s < SUBJECTS; s++) {
+                int value = marks[i * SUBJECTS + s] - (full ? 0 : latest[row * SUBJECTS + s]);
+                term.marks[row * SUBJECTS + s] = (byte) value;
+                total += value;
+            }
+            term.totals[row] = (short) total;
+            isPresent[row] = true;
+            isFull[row] = full;
+        }
+        // Bitmaps are filled in row order so every add is an append
+        for (int row = 0; row < term.rows; row++) {
+            if (isPresent[row]) {
+                term.present.add(row);
+                if (isFull[row]) {
+                    term.full.add(row);
+                }
+            }
+        }
+        return term;
+    }
+
+    // Roll number of every row in the timeline, including rows added by its
+    // last term if that is not closed yet
+    private int[] rollsOf(List<Term> timeline) {
+        Term last = timeline.get(timeline.size() - 1);
+        if (last.rows <= rows) {
+            return rollOfRow;
+        }
+        int[] all = Arrays.copyOf(rollOfRow, last.rows);
+        System.arraycopy(last.addedRolls, 0, all, rows, last.addedRolls.length);
+        return all;
+    }
+
+    private short[] departmentsOf(List<Term> timeline) {
+        Term last = timeline.get(timeline.size() - 1);
+        if (last.rows <= rows) {
+            return departmentOfRow;
+        }
+        short[] all = Arrays.copyOf(departmentOfRow, last.rows);
+        System.arraycopy(last.addedDepartments, 0, all, rows, last.addedDepartments.length);
+        return all;
+    }
+
+    private void commit(Term term) {
+        if (term.rows > rollOfRow.length) {
+            int grown = Math.max(term.rows, rollOfRow.length + (rollOfRow.length >> 1));
+            rollOfRow = Arrays.copyOf(rollOfRow, grown);
+            departmentOfRow = Arrays.copyOf(departmentOfRow, grown);
+            latest = Arrays.copyOf(latest, grown * SUBJECTS);
+        }
+        for (int i = 0; i < term.addedRolls.length; i++) {
+            int row = rows + i;
+            rollOfRow[row] = term.addedRolls[i];
+            departmentOfRow[row] = term.addedDepartments[i];
+            rowOfRoll.put(term.addedRolls[i], row);
+        }
+        rows = term.rows;
+        terms.add(term);
+        apply(term);
+    }
+
+    private void apply(Term term) {
+        term.full.forEach(row -> Arrays.fill(latest, row * SUBJECTS, (row + 1) * SUBJECTS, (byte) 0));
+        term.present.forEach(row -> {
+            for (int s = row * SUBJECTS; s < (row + 1) * SUBJECTS; s++) {
+                latest[s] += term.marks[s];
+            }
+        });
+    }
+
+    // Replaces everything in memory with the contents of the file
+    private void load() throws IOException {
+        terms.clear();
+        rowOfRoll.clear();
+        rollOfRow = new int[16];
+        departmentOfRow = new short[16];
+        latest = new byte[16 * SUBJECTS];
+        rows = 0;
+        if (Files.exists(file)) {
+            read();
+        }
+    }
+
+    // Header, then per term: label, department names, and for each student
+    // their roll, department, a full flag and the stored marks
+    private void write() throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (BinaryDataStorage.ChannelOutput out = new BinaryDataStorage.ChannelOutput(FileChannel.open(tmp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))) {
+            out.ensure(HEADER_BYTES);
+            out.buf.putInt(MAGIC);
+            out.buf.putShort((short) VERSION);
+            out.buf.put((byte) SUBJECTS);
+            out.buf.put((byte) 0);
+            out.buf.putInt(terms.size());
+            for (Term term : terms) {
+                // Department code -> index in this term's name list
+                RollNumberIndex local = new RollNumberIndex();
+                List<String> names = new ArrayList<>();
+                term.present.forEach(row -> {
+                    if (!local.contains(departmentOfRow[row])) {
+                        local.put(departmentOfRow[row], names.size());
+                        names.add(AttributeDictionary.DEPARTMENTS.value(departmentOfRow[row]));
+                    }
+                });
+                putString(out, term.label);
+                out.ensure(8);
+                out.buf.putInt(names.size());
+                out.buf.putInt(term.present.cardinality());
+                for (String name : names) {
+                    putString(out, name);
+                }
+                for (int row : term.present.toArray()) {
+                    out.ensure(7 + SUBJECTS);
+                    out.buf.putInt(rollOfRow[row]);
+                    out.buf.putShort((short) local.get(departmentOfRow[row]));
+                    out.buf.put((byte) (term.full.contains(row) ? 1 : 0));
+                    out.buf.put(term.marks, row * SUBJECTS, SUBJECTS);
+                }
+            }
+            out.writeChecksum();
+        }
+        BinaryDataStorage.replace(tmp, file);
+    }
+
+    private static void putString(BinaryDataStorage.ChannelOutput out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IOException("String too long to store: " + s.length() + " characters");
+        }
+        out.ensure(2 + bytes.length);
+        out.buf.putShort((short) bytes.length);
+        out.buf.put(bytes);
+    }
+
+    // Replays every stored term through encode() and commit(), which assign
+    // the same rows as when it was closed and so decode each change against
+    // the right previous marks
+    private void read() throws IOException {
+        try (BinaryDataStorage.ChannelInput in = new BinaryDataStorage.ChannelInput(
+                FileChannel.open(file, StandardOpenOption.READ))) {
+            in.ensure(HEADER_BYTES);
+            if (in.buf.getInt() != MAGIC) {
+                throw new IOException(file + " is not a result history file");
+            }
+            int version = in.buf.getShort() & 0xFFFF;
+            if (version != VERSION) {
+                throw new IOException("Unsupported history file version " + version);
+            }
+            int subjects = in.buf.get() & 0xFF;
+            if (subjects != SUBJECTS) {
+                throw new IOException("History has " + subjects + " subjects, expected " + SUBJECTS);
+            }
+            in.buf.get();
+            int termCount = in.buf.getInt();
+            for (int t = 0; t < termCount; t++) {
+                String label = getString(in);
+                in.ensure(8);
+                int nameCount = in.buf.getInt();
+                int count = in.buf.getInt();
+                if (nameCount < 0 || count < 0) {
+                    throw new IOException("Corrupt history file");
+                }
+                int[] codes = new int[nameCount];
+                for (int i = 0; i < nameCount; i++) {
+                    codes[i] = AttributeDictionary.DEPARTMENTS.code(getString(in));
+                }
+                int[] rolls = new int[count];
+                int[] departmentCodes = new int[count];
+                byte[] marks = new byte[count * SUBJECTS];
+                for (int i = 0; i < count; i++) {
+                    in.ensure(7 + SUBJECTS);
+                    rolls[i] = in.buf.getInt();
+                    int name = in.buf.getShort() & 0xFFFF;
+                    if (name < 0 || name >= nameCount) {
+                        throw new IOException("Corrupt history file: department index " + name + " out of range");
+                    }
+                    departmentCodes[i] = codes[name];
+                    boolean full = in.buf.get() != 0;
+                    int row = rowOfRoll.get(rolls[i]);
+                    boolean continues = !full && row != RollNumberIndex.NOT_FOUND;
+                    for (int s = 0; s < SUBJECTS; s++) {
+                        int mark = in.buf.get() + (continues ? latest[row * SUBJECTS + s] : 0);
+                        if (mark < 0 || mark > 100) {
+                            throw new IOException("Corrupt history for roll number " + rolls[i] + ": mark " + mark);
+                        }
+                        marks[i * SUBJECTS + s] = (byte) mark;
+                    }
+                }
+                commit(encode(label, rolls, departmentCodes, marks));
+            }
+            in.verifyChecksum();
+        }
+    }
+
+    private static String getString(BinaryDataStorage.ChannelInput in) throws IOException {
+        in.ensure(2);
+        int len = in.buf.getShort() & 0xFFFF;
+        in.ensure(len);
+        byte[] bytes = new byte[len];
+        in.buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
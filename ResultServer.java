@@ -0,0 +1,558 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Headless HTTP/JSON access to the menu operations for many concurrent clerks.
+//
+//   GET    /students/{roll}              one student
+//   GET    /students/{roll}/report-card  student with result, grade and rank
+//          (?format=text for the printable card, served from the ReportCardCache)
+//   GET    /students?name=...            search by name (exact, else partial)
+//   POST   /students                     add {"name","roll","class","department","marks":[...]}
+//   PUT    /students/{roll}/marks        replace marks {"marks":[...]}
+//   DELETE /students/{roll}
+//   GET    /statistics                   class and subject-wise statistics
+//   GET    /ranking?offset=0&limit=50    students in rank order
+//   GET    /groups/{department|class}    group-wise analysis
+//   GET    /metrics                      latency histograms for every operation
+//   GET    /metrics/report-cards          report card cache hits, misses and evictions
+//
+// Each request runs on its own virtual thread (Java 21+; a cached thread pool
+// on older runtimes). Reads share a read lock, so lookups and reports run in
+// parallel across cores; adds, updates and deletes take the write lock around
+// the journal append and the store change, so every index moves together.
+// Reports that walk the whole roster only hold the read lock long enough to
+// take a store snapshot, and listings only long enough to pick their rows;
+// both then render without blocking writers.
+class ResultServer {
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final int MAX_PAGE = 1000;
+    private static final String JSON = "application/json; charset=utf-8";
+
+    private final RecordStore store;
+    private final StatisticsEngine statistics;
+    private final RankIndex rankIndex;
+    private final NameIndex nameIndex;
+    private final OperationMetrics metrics;
+    private final ReportCardCache reportCards;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public ResultServer(RecordStore store, StatisticsEngine statistics, RankIndex rankIndex, NameIndex nameIndex,
+                        OperationMetrics metrics, ReportCardCache reportCards) {
+        this.store = store;
+        this.statistics = statistics;
+        this.rankIndex = rankIndex;
+        this.nameIndex = nameIndex;
+        this.metrics = metrics;
+        this.reportCards = reportCards;
+    }
+
+    // Listens on the loopback interface only
+    public void start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(java.net.InetAddress.getLoopbackAddress(), port), 256);
+        executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/students", this::handleStudents);
+        server.createContext("/statistics", exchange -> handle(exchange, this::statistics));
+        server.createContext("/ranking", exchange -> handle(exchange, this::ranking));
+        server.createContext("/groups", exchange -> handle(exchange, this::groups));
+        server.createContext("/metrics", exchange -> handle(exchange, ex -> {
+            requireGet(ex);
+            return switch (ex.getRequestURI().getPath()) {
+                case "/metrics", "/metrics/" -> metrics.toJson();
+                case "/metrics/report-cards" -> reportCards.toJson();
+                default -> throw new ApiException(404, "No such resource");
+            };
+        }));
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // Stops accepting requests and waits briefly for those in flight
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            // No virtual threads before Java 21
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    // A request failure that maps to an HTTP status
+    static final class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private interface Route {
+        String respond(HttpExchange exchange) throws IOException;
+    }
+
+    private interface RawRoute {
+        byte[] respond(HttpExchange exchange) throws IOException;
+    }
+
+    private void handleStudents(HttpExchange exchange) {
+        String[] path = exchange.getRequestURI().getPath().split("/");
+        if (path.length == 4 && path[3].equals("report-card") && wantsText(exchange.getRequestURI())) {
+            handle(exchange, "text/plain; charset=utf-8", ex -> {
+                requireGet(ex);
+                return reportCard(parseRoll(path[2]));
+            });
+            return;
+        }
+        handle(exchange, ex -> {
+            String[] parts = ex.getRequestURI().getPath().split("/");
+            // "", "students", roll, action
+            String method = ex.getRequestMethod();
+            if (parts.length == 2 && parts[1].equals("students")) {
+                return switch (method) {
+                    case "GET" -> search(query(ex.getRequestURI()).get("name"));
+                    case "POST" -> add(readBody(ex));
+                    default -> throw notAllowed();
+                };
+            }
+            if (parts.length > 4 || !parts[1].equals("students")) {
+                throw new ApiException(404, "No such resource");
+            }
+            int roll = parseRoll(parts[2]);
+            String action = parts.length > 3 ? parts[3] : "";
+            return switch (action) {
+                case "" -> switch (method) {
+                    case "GET" -> lookup(roll, false);
+                    case "DELETE" -> delete(roll);
+                    default -> throw notAllowed();
+                };
+                case "report-card" -> {
+                    requireGet(ex);
+                    yield lookup(roll, true);
+                }
+                case "marks" -> {
+                    if (!method.equals("PUT")) {
+                        throw notAllowed();
+                    }
+                    yield updateMarks(roll, readBody(ex));
+                }
+                default -> throw new ApiException(404, "No such resource");
+            };
+        });
+    }
+
+    private void handle(HttpExchange exchange, Route route) {
+        handle(exchange, JSON, ex -> route.respond(ex).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Each request is timed as "http.<method> <context>", e.g. "http.GET /students".
+    // Errors are always answered in JSON.
+    private void handle(HttpExchange exchange, String contentType, RawRoute route) {
+        long start = System.nanoTime();
+        int status = 200;
+        byte[] bytes;
+        try {
+            bytes = route.respond(exchange);
+            if (exchange.getRequestMethod().equals("POST")) {
+                status = 201;
+            }
+        } catch (ApiException e) {
+            status = e.status;
+            bytes = error(e.getMessage()).getBytes(StandardCharsets.UTF_8);
+            contentType = JSON;
+        } catch (IllegalArgumentException e) {
+            status = 400;
+            bytes = error(e.getMessage()).getBytes(StandardCharsets.UTF_8);
+            contentType = JSON;
+        } catch (Exception e) {
+            status = 500;
+            bytes = error(e.getMessage()).getBytes(StandardCharsets.UTF_8);
+            contentType = JSON;
+        }
+        try (exchange) {
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+            exchange.sendResponseHeaders(status, bytes.length);
+            exchange.getResponseBody().write(bytes);
+        } catch (IOException e) {
+            // Client went away; nothing left to tell it
+        }
+        metrics.record("http." + exchange.getRequestMethod() + " " + exchange.getHttpContext().getPath(),
+                start, status >= 500);
+    }
+
+    private String lookup(int roll, boolean reportCard) {
+        lock.readLock().lock();
+        try {
+            StudentRecord rec = require(roll);
+            StringBuilder out = new StringBuilder(256);
+            appendStudent(out, rec);
+            if (reportCard) {
+                out.setLength(out.length() - 1);
+                out.append(",\"rank\":").append(rankIndex.rankOf(rec))
+                        .append(",\"of\":").append(rankIndex.size()).append('}');
+            }
+            return out.toString();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Rendered once, then served from the cache until the student changes
+    private byte[] reportCard(int roll) {
+        lock.readLock().lock();
+        try {
+            return reportCards.get(require(roll));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private String search(String name) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("Query parameter 'name' is required");
+        }
+        StudentRecord[] recs;
+        lock.readLock().lock();
+        try {
+            int[] rolls = nameIndex.exact(name);
+            if (rolls.length == 0) {
+                rolls = nameIndex.substring(name);
+            }
+            recs = records(rolls);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return studentList(recs, 0);
+    }
+
+    private String ranking(HttpExchange exchange) {
+        requireGet(exchange);
+        Map<String, String> params = query(exchange.getRequestURI());
+        int offset = intParam(params, "offset", 0);
+        int limit = Math.min(intParam(params, "limit", 50), MAX_PAGE);
+        StudentRecord[] recs;
+        lock.readLock().lock();
+        try {
+            recs = records(rankIndex.page(offset, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+        return studentList(recs, offset + 1);
+    }
+
+    private String statistics(HttpExchange exchange) {
+        requireGet(exchange);
+        lock.readLock().lock();
+        try {
+            StatisticsEngine.Histogram totals = statistics.totals();
+            int count = totals.count();
+            StringBuilder out = new StringBuilder(512);
+            out.append("{\"students\":").append(count).append(",\"passed\":").append(statistics.passed());
+            if (count > 0) {
+                out.append(",\"averageTotal\":").append(round2(totals.average()))
+                        .append(",\"highestTotal\":").append(totals.max())
+                        .append(",\"lowestTotal\":").append(totals.min())
+                        .append(",\"medianTotal\":").append(totals.median())
+                        .append(",\"percentile90Total\":").append(totals.percentile(90))
+                        .append(",\"passPercentage\":").append(round2(statistics.passed() * 100f / count));
+            }
+            out.append(",\"subjects\":[");
+            for (int subject = 0; subject < Result.SUBJECT_COUNT; subject++) {
+                StatisticsEngine.Histogram marks = statistics.subject(subject);
+                out.append(subject == 0 ? "{" : ",{").append("\"name\":");
+                Json.quote(out, Result.SUBJECT_NAMES[subject]);
+                if (count > 0) {
+                    out.append(",\"average\":").append(round2(marks.average()))
+                            .append(",\"highest\":").append(marks.max())
+                            .append(",\"lowest\":").append(marks.min())
+                            .append(",\"passPercentage\":")
+                            .append(round2(marks.countAtLeast(Result.PASS_MARK) * 100f / count));
+                }
+                out.append('}');
+            }
+            return out.append("]}").toString();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private String groups(HttpExchange exchange) {
+        requireGet(exchange);
+        String[] parts = exchange.getRequestURI().getPath().split("/");
+        if (parts.length != 3 || !parts[1].equals("groups")) {
+            throw new ApiException(404, "Use /groups/department or /groups/class");
+        }
+        GroupByAnalytics.GroupBy groupBy = GroupByAnalytics.GroupBy.parse(parts[2]);
+        RecordStore.Snapshot snapshot;
+        lock.readLock().lock();
+        try {
+            snapshot = store.snapshot();
+        } finally {
+            lock.readLock().unlock();
+        }
+        SortedMap<String, GroupByAnalytics.GroupStats> groups = GroupByAnalytics.compute(snapshot, groupBy);
+        Grade[] grades = Grade.values();
+        StringBuilder out = new StringBuilder(128 + groups.size() * 256);
+        out.append("{\"groupBy\":");
+        Json.quote(out, groupBy.label).append(",\"groups\":[");
+        boolean first = true;
+        for (GroupByAnalytics.GroupStats g : groups.values()) {
+            out.append(first ? "{" : ",{").append("\"name\":");
+            first = false;
+            Json.quote(out, g.key).append(",\"students\":").append(g.count)
+                    .append(",\"average\":").append(round2(g.average()))
+                    .append(",\"passPercentage\":").append(round2(g.passPercentage()))
+                    .append(",\"topper\":{\"roll\":").append(g.topper.getStudent().getRollNumber())
+                    .append(",\"name\":");
+            Json.quote(out, g.topper.getStudent().getName())
+                    .append(",\"total\":").append(g.topper.getResult().totalMarks()).append("},\"grades\":{");
+            for (int i = 0; i < grades.length; i++) {
+                out.append(i == 0 ? "\"" : ",\"").append(grades[i].label()).append("\":").append(g.gradeCounts[i]);
+            }
+            out.append("}}");
+        }
+        return out.append("]}").toString();
+    }
+
+    private String add(Map<String, Object> body) throws IOException {
+        Student student = new Student(stringField(body, "name"), intField(body, "roll"),
+                stringField(body, "class"), stringField(body, "department"));
+        StudentRecord rec = new StudentRecord(student, resultFrom(body));
+        lock.writeLock().lock();
+        try {
+            if (store.contains(student.getRollNumber())) {
+                throw new ApiException(409, "Roll number " + student.getRollNumber() + " already exists");
+            }
+            EnhancedStudentResultManagement.addRecord(rec);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        StringBuilder out = new StringBuilder(256);
+        appendStudent(out, rec);
+        return out.toString();
+    }
+
+    private String updateMarks(int roll, Map<String, Object> body) throws IOException {
+        Result result = resultFrom(body);
+        StudentRecord updated;
+        lock.writeLock().lock();
+        try {
+            int slot = store.find(roll);
+            if (slot < 0) {
+                throw notFound(roll);
+            }
+            EnhancedStudentResultManagement.updateResult(slot, result);
+            updated = store.get(slot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        StringBuilder out = new StringBuilder(256);
+        appendStudent(out, updated);
+        return out.toString();
+    }
+
+    private String delete(int roll) throws IOException {
+        lock.writeLock().lock();
+        try {
+            int slot = store.find(roll);
+            if (slot < 0) {
+                throw notFound(roll);
+            }
+            EnhancedStudentResultManagement.removeRecord(slot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return "{\"deleted\":" + roll + "}";
+    }
+
+    // Caller holds the read lock. Records are immutable, so the rows stay as
+    // they were at this moment and can be rendered after the lock is released.
+    private StudentRecord[] records(int[] rolls) {
+        StudentRecord[] recs = new StudentRecord[rolls.length];
+        for (int i = 0; i < rolls.length; i++) {
+            recs[i] = store.findByRoll(rolls[i]);
+        }
+        return recs;
+    }
+
+    private static String studentList(StudentRecord[] recs, int firstRank) {
+        StringBuilder out = new StringBuilder(64 + recs.length * 200);
+        out.append("{\"count\":").append(recs.length).append(",\"students\":[");
+        for (int i = 0; i < recs.length; i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            appendStudent(out, recs[i]);
+            if (firstRank > 0) {
+                out.setLength(out.length() - 1);
+                out.append(",\"rank\":").append(firstRank + i).append('}');
+            }
+        }
+        return out.append("]}").toString();
+    }
+
+    private static void appendStudent(StringBuilder out, StudentRecord rec) {
+        Student s = rec.getStudent();
+        Result r = rec.getResult();
+        out.append("{\"roll\":").append(s.getRollNumber()).append(",\"name\":");
+        Json.quote(out, s.getName()).append(",\"class\":");
+        Json.quote(out, s.getClassName()).append(",\"department\":");
+        Json.quote(out, s.getDepartment()).append(",\"marks\":[");
+        for (int subject = 0; subject < Result.SUBJECT_COUNT; subject++) {
+            out.append(subject == 0 ? "" : ",").append(r.getMark(subject));
+        }
+        out.append("],\"total\":").append(r.totalMarks())
+                .append(",\"average\":").append(round2(r.averageMarks()))
+                .append(",\"grade\":\"").append(r.getGrade().label())
+                .append("\",\"remarks\":\"").append(r.getGrade().remarks())
+                .append("\",\"pass\":").append(r.isPass()).append('}');
+    }
+
+    private StudentRecord require(int roll) {
+        StudentRecord rec = store.findByRoll(roll);
+        if (rec == null) {
+            throw notFound(roll);
+        }
+        return rec;
+    }
+
+    private static Result resultFrom(Map<String, Object> body) {
+        if (!(body.get("marks") instanceof List<?> list) || list.size() != Result.SUBJECT_COUNT) {
+            throw new IllegalArgumentException("'marks' must be an array of " + Result.SUBJECT_COUNT
+                    + " numbers: " + String.join(", ", Result.SUBJECT_NAMES));
+        }
+        int[] marks = new int[Result.SUBJECT_COUNT];
+        for (int subject = 0; subject < marks.length; subject++) {
+            marks[subject] = toInt(list.get(subject), "marks");
+        }
+        return new Result(marks);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> readBody(HttpExchange exchange) throws IOException {
+        byte[] bytes = exchange.getRequestBody().readNBytes(MAX_BODY_BYTES + 1);
+        if (bytes.length > MAX_BODY_BYTES) {
+            throw new ApiException(413, "Request body too large");
+        }
+        Object body = Json.parse(new String(bytes, StandardCharsets.UTF_8));
+        if (!(body instanceof Map)) {
+            throw new IllegalArgumentException("Request body must be a JSON object");
+        }
+        return (Map<String, Object>) body;
+    }
+
+    private static String stringField(Map<String, Object> body, String field) {
+        if (!(body.get(field) instanceof String value) || value.isBlank()) {
+            throw new IllegalArgumentException("'" + field + "' must be a non-empty string");
+        }
+        return value;
+    }
+
+    private static int intField(Map<String, Object> body, String field) {
+        return toInt(body.get(field), field);
+    }
+
+    private static int toInt(Object value, String field) {
+        if (!(value instanceof Double d) || d != Math.rint(d) || Math.abs(d) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("'" + field + "' must be a whole number");
+        }
+        return d.intValue();
+    }
+
+    private static int parseRoll(String text) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new ApiException(404, "Invalid roll number '" + text + "'");
+        }
+    }
+
+    // A malformed query string is left for the JSON route to report
+    private static boolean wantsText(URI uri) {
+        try {
+            return "text".equals(query(uri).get("format"));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static Map<String, String> query(URI uri) {
+        Map<String, String> params = new HashMap<>();
+        String raw = uri.getRawQuery();
+        if (raw == null) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static int intParam(Map<String, String> params, String name, int defaultValue) {
+        String value = params.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int n = Integer.parseInt(value);
+            if (n < 0) {
+                throw new NumberFormatException();
+            }
+            return n;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("'" + name + "' must be a non-negative number");
+        }
+    }
+
+    private static void requireGet(HttpExchange exchange) {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            throw notAllowed();
+        }
+    }
+
+    private static ApiException notFound(int roll) {
+        return new ApiException(404, "Student with roll number " + roll + " not found");
+    }
+
+    private static ApiException notAllowed() {
+        return new ApiException(405, "Method not allowed");
+    }
+
+    private static String error(String message) {
+        return Json.quote(new StringBuilder("{\"error\":"), String.valueOf(message)).append('}').toString();
+    }
+
+    private static double round2(float value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
@@ -0,0 +1,125 @@
+// Open-addressing hash index from roll number to record slot.
+// Keys and slots live in parallel int arrays so lookups never box an Integer.
+class RollNumberIndex {
+    public static final int NOT_FOUND = -1;
+
+    private int[] keys;
+    private int[] slots; // slot + 1, so 0 marks an empty bucket
+    private int size;
+    private int mask;
+
+    public RollNumberIndex() {
+        this(16);
+    }
+
+    public RollNumberIndex(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int get(int roll) {
+        int i = hash(roll) & mask;
+        while (slots[i] != 0) {
+            if (keys[i] == roll) {
+                return slots[i] - 1;
+            }
+            i = (i + 1) & mask;
+        }
+        return NOT_FOUND;
+    }
+
+    public boolean contains(int roll) {
+        return get(roll) != NOT_FOUND;
+    }
+
+    public void put(int roll, int slot) {
+        if (slot < 0) {
+            throw new IllegalArgumentException("Slot must not be negative: " + slot);
+        }
+        int i = hash(roll) & mask;
+        while (slots[i] != 0) {
+            if (keys[i] == roll) {
+                slots[i] = slot + 1;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = roll;
+        slots[i] = slot + 1;
+        if (++size > (mask + 1) * 3 / 4) {
+            rehash((mask + 1) * 2);
+        }
+    }
+
+    public boolean remove(int roll) {
+        int i = hash(roll) & mask;
+        while (slots[i] != 0) {
+            if (keys[i] == roll) {
+                deleteAt(i);
+                size--;
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    public void clear() {
+        java.util.Arrays.fill(slots, 0);
+        size = 0;
+    }
+
+    // Backward-shift deletion keeps probe chains intact without tombstones.
+    private void deleteAt(int hole) {
+        int i = hole;
+        while (true) {
+            i = (i + 1) & mask;
+            if (slots[i] == 0) {
+                break;
+            }
+            int home = hash(keys[i]) & mask;
+            boolean movable = hole <= i ? (home <= hole || home > i) : (home <= hole && home > i);
+            if (movable) {
+                keys[hole] = keys[i];
+                slots[hole] = slots[i];
+                hole = i;
+            }
+        }
+        slots[hole] = 0;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldSlots = slots;
+        allocate(capacity);
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] != 0) {
+                int j = hash(oldKeys[i]) & mask;
+                while (slots[j] != 0) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                slots[j] = oldSlots[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        slots = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int needed = Math.max(16, (int) Math.min(1 << 30, (long) expectedSize * 4 / 3 + 1));
+        return Integer.highestOneBit(needed - 1) << 1;
+    }
+
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,423 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+// Student data split into one binary data file per department (or per
+// department and class), described by a small manifest:
+//
+//   manifest   magic "SRMS" (4 bytes), u16 version, u8 scheme (0 department,
+//              1 department and class), u8 reserved, i32 next file id,
+//              i32 shard count, then per shard: UTF department, UTF class
+//              ("" when sharded by department), i32 file id, i32 record count,
+//              i32 lowest roll number, i32 highest roll number;
+//              i32 CRC32 of everything before it
+//   shard-N.bin  records of one shard in the BinaryDataStorage format
+//
+// Shards load lazily: loadDepartment() reads only the files of one
+// department, so startup time and memory follow the working set. As a store
+// listener this class tracks which shards changed; a save rewrites only those.
+// Changed shards are written to new files and the manifest is swapped in last,
+// each forced to disk first, so a crash mid-save leaves the previous manifest
+// and files intact.
+class ShardedDataStorage implements DataStorage, RecordStore.Listener {
+    static final String SHARD_DIR = "student_data.shards";
+    static final String MANIFEST_FILE = "manifest";
+    static final int MAGIC = 0x53524D53; // "SRMS"
+    static final int VERSION = 1;
+
+    private final Path dir;
+    private boolean byClass;
+    private final Map<String, Shard> shards = new LinkedHashMap<>();
+    // Department and class codes of a student -> position in shardsByCode,
+    // so finding a record's shard builds no key string
+    private final RollNumberIndex shardPositions = new RollNumberIndex();
+    private final List<Shard> shardsByCode = new ArrayList<>();
+    private int nextFileId;
+    private boolean opened;
+
+    private static final class Shard {
+        final String key;
+        final String department;
+        final String className;
+        int fileId = -1;     // -1 until first written
+        int count;
+        int minRoll;
+        int maxRoll;
+        // All of the shard's records are in the store
+        boolean loaded;
+        boolean dirty;
+        // Sorted roll numbers of an unloaded shard, read on demand
+        int[] rolls;
+        // Roll numbers deleted from or moved out of an unloaded shard since
+        // its file was written; the save leaves them out of that file
+        final RollNumberIndex removed = new RollNumberIndex();
+
+        Shard(String key, String department, String className) {
+            this.key = key;
+            this.department = department;
+            this.className = className;
+        }
+    }
+
+    // Existing shards in the directory (the manifest is read on first use),
+    // or an empty layout if it has no manifest yet
+    public ShardedDataStorage(Path dir) {
+        this(dir, false);
+    }
+
+    private ShardedDataStorage(Path dir, boolean byClass) {
+        this.dir = dir;
+        this.byClass = byClass;
+    }
+
+    // A fresh layout in the directory. Files of any previous layout there are
+    // replaced by the first save.
+    public static ShardedDataStorage create(Path dir, boolean byClass) throws IOException {
+        ShardedDataStorage created = new ShardedDataStorage(dir, byClass);
+        created.opened = true;
+        if (Files.exists(dir.resolve(MANIFEST_FILE))) {
+            ShardedDataStorage previous = new ShardedDataStorage(dir);
+            previous.open();
+            created.nextFileId = previous.nextFileId;
+            for (Shard old : previous.shards.values()) {
+                // Kept as empty, dirty shards so the save deletes their files
+                Shard stale = new Shard("\u0001" + old.key, old.department, old.className);
+                stale.fileId = old.fileId;
+                stale.loaded = true;
+                stale.dirty = true;
+                created.shards.put(stale.key, stale);
+            }
+        }
+        return created;
+    }
+
+    public static boolean exists(Path dir) {
+        return Files.exists(dir.resolve(MANIFEST_FILE));
+    }
+
+    public Path getDirectory() {
+        return dir;
+    }
+
+    public int shardCount() throws IOException {
+        open();
+        return shards.size();
+    }
+
+    // Students in every shard, as of the last save
+    public int totalCount() throws IOException {
+        open();
+        int total = 0;
+        for (Shard shard : shards.values()) {
+            total += shard.count;
+        }
+        return total;
+    }
+
+    // Data files of every shard, as of the last save, for reading without loading
+    public List<Path> shardFiles() throws IOException {
+        open();
+        List<Path> files = new ArrayList<>();
+        for (Shard shard : shards.values()) {
+            if (shard.fileId >= 0) {
+                files.add(shardFile(shard.fileId));
+            }
+        }
+        return files;
+    }
+
+    // Every shard, read in parallel
+    @Override
+    public StudentRecord[] loadData() throws IOException {
+        open();
+        List<Shard> all = new ArrayList<>(shards.values());
+        for (Shard shard : all) {
+            shard.loaded = true;
+            shard.rolls = null;
+            shard.removed.clear();
+        }
+        return readAll(all);
+    }
+
+    // Only the shards of one department; the others stay on disk
+    public StudentRecord[] loadDepartment(String department) throws IOException {
+        open();
+        List<Shard> wanted = new ArrayList<>();
+        for (Shard shard : shards.values()) {
+            shard.loaded = shard.department.equals(department);
+            if (shard.loaded) {
+                wanted.add(shard);
+                shard.rolls = null;
+                shard.removed.clear();
+            }
+        }
+        return readAll(wanted);
+    }
+
+    // Whether a roll number is taken by a student in a shard that is not loaded
+    public boolean isStoredElsewhere(int roll) throws IOException {
+        for (Shard shard : shards.values()) {
+            if (shard.loaded || shard.fileId < 0 || roll < shard.minRoll || roll > shard.maxRoll) {
+                continue;
+            }
+            if (shard.rolls == null) {
+                StudentRecord[] recs = read(shard);
+                int[] rolls = new int[recs.length];
+                for (int i = 0; i < recs.length; i++) {
+                    rolls[i] = recs[i].getStudent().getRollNumber();
+                }
+                Arrays.sort(rolls);
+                shard.rolls = rolls;
+            }
+            if (!shard.removed.contains(roll) && Arrays.binarySearch(shard.rolls, roll) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The store now matches the shards on disk (right after a load)
+    public void markClean() {
+        for (Shard shard : shards.values()) {
+            shard.dirty = false;
+        }
+    }
+
+    // Rewrites the changed shards. Records of a shard that is not loaded are
+    // merged with what is already on disk for it, less the ones removed since.
+    @Override
+    public void saveData(StudentRecord[] records) throws IOException {
+        open();
+        Map<Shard, List<StudentRecord>> groups = new HashMap<>();
+        for (StudentRecord rec : records) {
+            groups.computeIfAbsent(shardFor(rec.getStudent()), k -> new ArrayList<>()).add(rec);
+        }
+
+        Files.createDirectories(dir);
+        List<Integer> obsolete = new ArrayList<>();
+        Iterator<Shard> it = shards.values().iterator();
+        while (it.hasNext()) {
+            Shard shard = it.next();
+            if (!shard.dirty) {
+                continue;
+            }
+            List<StudentRecord> recs = groups.getOrDefault(shard, List.of());
+            if (!shard.loaded && shard.fileId >= 0) {
+                recs = merge(read(shard), shard.removed, recs);
+            }
+            if (shard.fileId >= 0) {
+                obsolete.add(shard.fileId);
+            }
+            if (recs.isEmpty()) {
+                it.remove();
+                shardPositions.clear();
+                shardsByCode.clear();
+                continue;
+            }
+            shard.fileId = nextFileId++;
+            new BinaryDataStorage(shardFile(shard.fileId)).saveData(recs.toArray(new StudentRecord[0]));
+            shard.count = recs.size();
+            shard.minRoll = Integer.MAX_VALUE;
+            shard.maxRoll = Integer.MIN_VALUE;
+            for (StudentRecord rec : recs) {
+                shard.minRoll = Math.min(shard.minRoll, rec.getStudent().getRollNumber());
+                shard.maxRoll = Math.max(shard.maxRoll, rec.getStudent().getRollNumber());
+            }
+            shard.rolls = null;
+            shard.removed.clear();
+            shard.dirty = false;
+        }
+        writeManifest();
+        for (int fileId : obsolete) {
+            Files.deleteIfExists(shardFile(fileId));
+        }
+    }
+
+    @Override
+    public void recordAdded(int slot, StudentRecord rec) {
+        shardFor(rec.getStudent()).dirty = true;
+    }
+
+    @Override
+    public void recordUpdated(int slot, StudentRecord old, StudentRecord rec) {
+        Shard from = shardFor(old.getStudent());
+        Shard to = shardFor(rec.getStudent());
+        int oldRoll = old.getStudent().getRollNumber();
+        if (!from.loaded && (from != to || oldRoll != rec.getStudent().getRollNumber())) {
+            from.removed.put(oldRoll, 0);
+        }
+        from.dirty = true;
+        to.dirty = true;
+    }
+
+    @Override
+    public void recordRemoved(int slot, StudentRecord old) {
+        Shard shard = shardFor(old.getStudent());
+        if (!shard.loaded) {
+            shard.removed.put(old.getStudent().getRollNumber(), 0);
+        }
+        shard.dirty = true;
+    }
+
+    // Contents unknown: every loaded shard and every shard with records in the store may have changed
+    @Override
+    public void storeReset(RecordStore store) {
+        for (Shard shard : shards.values()) {
+            if (shard.loaded) {
+                shard.dirty = true;
+            }
+        }
+        for (StudentRecord rec : store) {
+            shardFor(rec.getStudent()).dirty = true;
+        }
+    }
+
+    private Shard shardFor(Student s) {
+        int codes = s.getDepartmentCode() << 16 | (byClass ? s.getClassCode() : 0);
+        int pos = shardPositions.get(codes);
+        if (pos != RollNumberIndex.NOT_FOUND) {
+            return shardsByCode.get(pos);
+        }
+        String key = byClass ? s.getDepartment() + '\u0000' + s.getClassName() : s.getDepartment();
+        Shard shard = shards.get(key);
+        if (shard == null) {
+            shard = new Shard(key, s.getDepartment(), byClass ? s.getClassName() : "");
+            // Nothing on disk yet, so the store holds all of it and it must be written
+            shard.loaded = true;
+            shard.dirty = true;
+            shards.put(key, shard);
+        }
+        shardPositions.put(codes, shardsByCode.size());
+        shardsByCode.add(shard);
+        return shard;
+    }
+
+    private static List<StudentRecord> merge(StudentRecord[] onDisk, RollNumberIndex removed,
+                                             List<StudentRecord> inStore) {
+        Map<Integer, StudentRecord> byRoll = new LinkedHashMap<>();
+        for (StudentRecord rec : onDisk) {
+            int roll = rec.getStudent().getRollNumber();
+            if (!removed.contains(roll)) {
+                byRoll.put(roll, rec);
+            }
+        }
+        for (StudentRecord rec : inStore) {
+            byRoll.put(rec.getStudent().getRollNumber(), rec);
+        }
+        return new ArrayList<>(byRoll.values());
+    }
+
+    private StudentRecord[] readAll(List<Shard> list) throws IOException {
+        StudentRecord[][] parts = new StudentRecord[list.size()][];
+        try {
+            java.util.stream.IntStream.range(0, parts.length).parallel().forEach(i -> {
+                try {
+                    parts[i] = read(list.get(i));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        int total = 0;
+        for (StudentRecord[] part : parts) {
+            total += part.length;
+        }
+        StudentRecord[] all = new StudentRecord[total];
+        int k = 0;
+        for (StudentRecord[] part : parts) {
+            System.arraycopy(part, 0, all, k, part.length);
+            k += part.length;
+        }
+        return all;
+    }
+
+    private StudentRecord[] read(Shard shard) throws IOException {
+        if (shard.fileId < 0) {
+            return new StudentRecord[0];
+        }
+        return new BinaryDataStorage(shardFile(shard.fileId)).loadData();
+    }
+
+    private Path shardFile(int fileId) {
+        return dir.resolve("shard-" + fileId + ".bin");
+    }
+
+    private void open() throws IOException {
+        if (!opened) {
+            if (Files.exists(dir.resolve(MANIFEST_FILE))) {
+                readManifest();
+            }
+            opened = true;
+        }
+    }
+
+    private void readManifest() throws IOException {
+        Path file = dir.resolve(MANIFEST_FILE);
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(file)), crc))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(file + " is not a shard manifest");
+            }
+            int version = in.readUnsignedShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported shard manifest version " + version);
+            }
+            byClass = in.readUnsignedByte() == 1;
+            shardPositions.clear();
+            shardsByCode.clear();
+            in.readUnsignedByte();
+            nextFileId = in.readInt();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String department = in.readUTF();
+                String className = in.readUTF();
+                Shard shard = new Shard(byClass ? department + '\u0000' + className : department,
+                        department, className);
+                shard.fileId = in.readInt();
+                shard.count = in.readInt();
+                shard.minRoll = in.readInt();
+                shard.maxRoll = in.readInt();
+                shards.put(shard.key, shard);
+            }
+            long expected = crc.getValue();
+            if (in.readInt() != (int) expected) {
+                throw new IOException("Shard manifest checksum mismatch");
+            }
+        }
+    }
+
+    private void writeManifest() throws IOException {
+        Path manifest = dir.resolve(MANIFEST_FILE);
+        Path tmp = dir.resolve(MANIFEST_FILE + ".tmp");
+        CRC32 crc = new CRC32();
+        FileOutputStream stream = new FileOutputStream(tmp.toFile());
+        try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                new BufferedOutputStream(stream), crc))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeByte(byClass ? 1 : 0);
+            out.writeByte(0);
+            out.writeInt(nextFileId);
+            out.writeInt(shards.size());
+            for (Shard shard : shards.values()) {
+                out.writeUTF(shard.department);
+                out.writeUTF(shard.className);
+                out.writeInt(shard.fileId);
+                out.writeInt(shard.count);
+                out.writeInt(shard.minRoll);
+                out.writeInt(shard.maxRoll);
+            }
+            out.flush();
+            out.writeInt((int) crc.getValue());
+            out.flush();
+            stream.getChannel().force(true);
+        }
+        BinaryDataStorage.replace(tmp, manifest);
+    }
+}
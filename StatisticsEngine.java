@@ -0,0 +1,185 @@
+// Class and subject statistics maintained incrementally on every store change.
+// Marks are bounded (0-100 per subject), so each aggregate is an exact count
+// histogram: reports cost O(1) or O(101) / O(401), independent of roster size,
+// and medians and percentiles come out exact.
+class StatisticsEngine implements RecordStore.Listener {
+    private final Histogram[] subjects = new Histogram[Result.SUBJECT_COUNT];
+    private final Histogram totals = new Histogram(Result.SUBJECT_COUNT * 100);
+    private int passed;
+
+    // Exact frequency counts of the values 0..maxValue
+    static final class Histogram {
+        private final int[] counts;
+        private int count;
+        private long sum;
+
+        Histogram(int maxValue) {
+            counts = new int[maxValue + 1];
+        }
+
+        void add(int value) {
+            counts[value]++;
+            count++;
+            sum += value;
+        }
+
+        void remove(int value) {
+            counts[value]--;
+            count--;
+            sum -= value;
+        }
+
+        void clear() {
+            java.util.Arrays.fill(counts, 0);
+            count = 0;
+            sum = 0;
+        }
+
+        public int count() {
+            return count;
+        }
+
+        public long sum() {
+            return sum;
+        }
+
+        public float average() {
+            return sum / (float) count;
+        }
+
+        public int frequency(int value) {
+            return counts[value];
+        }
+
+        // Integer.MIN_VALUE when empty, like a max over no values
+        public int max() {
+            for (int v = counts.length - 1; v >= 0; v--) {
+                if (counts[v] > 0) {
+                    return v;
+                }
+            }
+            return Integer.MIN_VALUE;
+        }
+
+        // Integer.MAX_VALUE when empty, like a min over no values
+        public int min() {
+            for (int v = 0; v < counts.length; v++) {
+                if (counts[v] > 0) {
+                    return v;
+                }
+            }
+            return Integer.MAX_VALUE;
+        }
+
+        public int countAtLeast(int value) {
+            int n = 0;
+            for (int v = Math.max(0, value); v < counts.length; v++) {
+                n += counts[v];
+            }
+            return n;
+        }
+
+        // Value at the given 1-based position in ascending order
+        public int valueAtRank(long rank) {
+            long seen = 0;
+            for (int v = 0; v < counts.length; v++) {
+                seen += counts[v];
+                if (seen >= rank) {
+                    return v;
+                }
+            }
+            throw new IllegalArgumentException("Rank " + rank + " out of range for " + count + " values");
+        }
+
+        // Mean of the two middle values when the count is even; NaN when empty
+        public double median() {
+            if (count == 0) {
+                return Double.NaN;
+            }
+            int lower = valueAtRank((count + 1) / 2);
+            int upper = valueAtRank(count / 2 + 1);
+            return (lower + upper) / 2.0;
+        }
+
+        // Nearest-rank percentile, 0 < p <= 100
+        public int percentile(double p) {
+            if (count == 0) {
+                throw new IllegalStateException("No values recorded");
+            }
+            if (p <= 0 || p > 100) {
+                throw new IllegalArgumentException("Percentile must be in (0, 100]: " + p);
+            }
+            return valueAtRank(Math.max(1, (long) Math.ceil(p / 100.0 * count)));
+        }
+    }
+
+    public StatisticsEngine() {
+        for (int subject = 0; subject < subjects.length; subject++) {
+            subjects[subject] = new Histogram(100);
+        }
+    }
+
+    public int count() {
+        return totals.count();
+    }
+
+    public int passed() {
+        return passed;
+    }
+
+    public Histogram totals() {
+        return totals;
+    }
+
+    public Histogram subject(int subject) {
+        return subjects[subject];
+    }
+
+    @Override
+    public void recordAdded(int slot, StudentRecord rec) {
+        add(rec.getResult());
+    }
+
+    @Override
+    public void recordUpdated(int slot, StudentRecord old, StudentRecord rec) {
+        remove(old.getResult());
+        add(rec.getResult());
+    }
+
+    @Override
+    public void recordRemoved(int slot, StudentRecord old) {
+        remove(old.getResult());
+    }
+
+    @Override
+    public void storeReset(RecordStore store) {
+        for (Histogram h : subjects) {
+            h.clear();
+        }
+        totals.clear();
+        passed = 0;
+        for (StudentRecord rec : store) {
+            add(rec.getResult());
+        }
+    }
+
+    private void add(Result r) {
+        for (int subject = 0; subject < subjects.length; subject++) {
+            subjects[subject].add(r.getMark(subject));
+        }
+        totals.add(r.totalMarks());
+        if (r.isPass()) {
+            passed++;
+        }
+    }
+
+    private void remove(Result r) {
+        for (int subject = 0; subject < subjects.length; subject++) {
+            subjects[subject].remove(r.getMark(subject));
+        }
+        totals.remove(r.totalMarks());
+        if (r.isPass()) {
+            passed--;
+        }
+    }
+}
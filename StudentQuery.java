@@ -0,0 +1,403 @@
+import java.util.*;
+
+// Composable filters over students, answered from a BitmapIndex. Every
+// query can also test a single record directly, which is what the index
+// answer must agree with.
+//
+// Queries are built from the factory methods or parsed from text such as
+//   failed and department = CS
+//   cs < 40 and (class = 10B or class = 10C)
+//   grade = A+ and not department = MECH
+// Fields: grade, department (dept), class, pass/passed, fail/failed, and the
+// subjects by their query field from the SubjectSchema (maths, science,
+// english and cs by default); subject marks compare with = != < <= > >=. AND binds tighter than OR; NOT, && || ! also work.
+abstract class StudentQuery {
+    // Slots of the live records that match
+    abstract CompressedBitmap evaluate(BitmapIndex index, RecordStore store);
+
+    abstract boolean test(StudentRecord rec);
+
+    public static StudentQuery all() {
+        return new StudentQuery() {
+            CompressedBitmap evaluate(BitmapIndex index, RecordStore store) {
+                return index.live().copy();
+            }
+
+            boolean test(StudentRecord rec) {
+                return true;
+            }
+
+            public String toString() {
+                return "all";
+            }
+        };
+    }
+
+    public static StudentQuery failed() {
+        return new StudentQuery() {
+            CompressedBitmap evaluate(BitmapIndex index, RecordStore store) {
+                return index.failed().copy();
+            }
+
+            boolean test(StudentRecord rec) {
+                return !rec.getResult().isPass();
+            }
+
+            public String toString() {
+                return "failed";
+            }
+        };
+    }
+
+    public static StudentQuery passed() {
+        return not(failed());
+    }
+
+    public static StudentQuery grade(Grade grade) {
+        return new StudentQuery() {
+            CompressedBitmap evaluate(BitmapIndex index, RecordStore store) {
+                return index.grade(grade).copy();
+            }
+
+            boolean test(StudentRecord rec) {
+                return rec.getResult().getGrade() == grade;
+            }
+
+            public String toString() {
+                return "grade = " + grade;
+            }
+        };
+    }
+
+    // Names match ignoring case
+    public static StudentQuery department(String department) {
+        return new AttributeQuery("department", department, AttributeDictionary.DEPARTMENTS, false);
+    }
+
+    public static StudentQuery className(String className) {
+        return new AttributeQuery("class", className, AttributeDictionary.CLASSES, true);
+    }
+
+    // Marks of one subject within min..max inclusive
+    public static StudentQuery marks(int subject, int min, int max) {
+        return new MarksQuery(Objects.checkIndex(subject, Result.SUBJECT_COUNT), Math.max(0, min), Math.min(100, max));
+    }
+
+    public static StudentQuery and(StudentQuery a, StudentQuery b) {
+        return new StudentQuery() {
+            CompressedBitmap evaluate(BitmapIndex index, RecordStore store) {
+                CompressedBitmap left = a.evaluate(index, store);
+                return left.isEmpty() ? left : CompressedBitmap.and(left, b.evaluate(index, store));
+            }
+
+            boolean test(StudentRecord rec) {
+                return a.test(rec) && b.test(rec);
+            }
+
+            public String toString() {
+                return "(" + a + " and " + b + ")";
+            }
+        };
+    }
+
+    public static StudentQuery or(StudentQuery a, StudentQuery b) {
+        return new StudentQuery() {
+            CompressedBitmap evaluate(BitmapIndex index, RecordStore store) {
+                return CompressedBitmap.or(a.evaluate(index, store), b.evaluate(index, store));
+            }
+
+            boolean test(StudentRecord rec) {
+                return a.test(rec) || b.test(rec);
+            }
+
+            public String toString() {
+                return "(" + a + " or " + b + ")";
+            }
+        };
+    }
+
+    public static StudentQuery not(StudentQuery q) {
+        return new StudentQuery() {
+            CompressedBitmap evaluate(BitmapIndex index, RecordStore store) {
+                return CompressedBitmap.andNot(index.live(), q.evaluate(index, store));
+            }
+
+            boolean test(StudentRecord rec) {
+                return !q.test(rec);
+            }
+
+            public String toString() {
+                return "not " + q;
+            }
+        };
+    }
+
+    private static final class AttributeQuery extends StudentQuery {
+        private final String field;
+        private final String value;
+        private final AttributeDictionary dictionary;
+        private final boolean byClass;
+
+        AttributeQuery(String field, String value, AttributeDictionary dictionary, boolean byClass) {
+            this.field = field;
+            this.value = value;
+            this.dictionary = dictionary;
+            this.byClass = byClass;
+        }
+
+        @Override
+        CompressedBitmap evaluate(BitmapIndex index, RecordStore store) {
+            boolean[] codes = dictionary.matchingIgnoreCase(value);
+            CompressedBitmap out = new CompressedBitmap();
+            for (int code = 0; code < codes.length; code++) {
+                if (codes[code]) {
+                    out = CompressedBitmap.or(out, byClass ? index.className(code) : index.department(code));
+                }
+            }
+            return out;
+        }
+
+        @Override
+        boolean test(StudentRecord rec) {
+            Student s = rec.getStudent();
+            return (byClass ? s.getClassName() : s.getDepartment()).equalsIgnoreCase(value);
+        }
+
+        @Override
+        public String toString() {
+            return field + " = " + value;
+        }
+    }
+
+    // Bands wholly inside the range are taken as they are; only the records
+    // in the (at most two) bands cut by the range boundaries are looked at
+    private static final class MarksQuery extends StudentQuery {
+        private final int subject;
+        private final int min;
+        private final int max;
+
+        MarksQuery(int subject, int min, int max) {
+            this.subject = subject;
+            this.min = min;
+            this.max = max;
+        }
+
+        @Override
+        CompressedBitmap evaluate(BitmapIndex index, RecordStore store) {
+            CompressedBitmap out = new CompressedBitmap();
+            if (min > max) {
+                return out;
+            }
+            for (int band = BitmapIndex.bandOf(min); band <= BitmapIndex.bandOf(max); band++) {
+                int bandMin = band * BitmapIndex.BAND_WIDTH;
+                int bandMax = Math.min(100, bandMin + BitmapIndex.BAND_WIDTH - 1);
+                CompressedBitmap slots = index.band(subject, band);
+                if (min <= bandMin && bandMax <= max) {
+                    out = CompressedBitmap.or(out, slots);
+                } else {
+                    CompressedBitmap partial = new CompressedBitmap();
+                    slots.forEach(slot -> {
+                        int mark = store.get(slot).getResult().getMark(subject);
+                        if (mark >= min && mark <= max) {
+                            partial.add(slot);
+                        }
+                    });
+                    out = CompressedBitmap.or(out, partial);
+                }
+            }
+            return out;
+        }
+
+        @Override
+        boolean test(StudentRecord rec) {
+            int mark = rec.getResult().getMark(subject);
+            return mark >= min && mark <= max;
+        }
+
+        @Override
+        public String toString() {
+            String field = SubjectSchema.ACTIVE.field(subject);
+            if (min > max) {
+                return field + " out of range";
+            }
+            if (min == max) {
+                return field + " = " + min;
+            }
+            if (min == 0 || max == 100) {
+                return min == 0 ? field + " <= " + max : field + " >= " + min;
+            }
+            return field + " " + min + ".." + max;
+        }
+    }
+
+    public static StudentQuery parse(String text) {
+        Parser parser = new Parser(text);
+        StudentQuery q = parser.expression();
+        if (parser.peek() != null) {
+            throw new IllegalArgumentException("Unexpected '" + parser.peek() + "' in query");
+        }
+        return q;
+    }
+
+    private static final class Parser {
+        private final List<String> tokens = new ArrayList<>();
+        private int pos;
+
+        Parser(String text) {
+            int i = 0;
+            while (i < text.length()) {
+                char c = text.charAt(i);
+                if (Character.isWhitespace(c)) {
+                    i++;
+                } else if (c == '"' || c == '\'') {
+                    int end = text.indexOf(c, i + 1);
+                    if (end < 0) {
+                        throw new IllegalArgumentException("Unterminated quote in query");
+                    }
+                    // Keep the quote so a quoted value is never taken for a keyword
+                    tokens.add("\"" + text.substring(i + 1, end));
+                    i = end + 1;
+                } else if ("()".indexOf(c) >= 0) {
+                    tokens.add(String.valueOf(c));
+                    i++;
+                } else if ("=<>!&|".indexOf(c) >= 0) {
+                    int start = i;
+                    while (i < text.length() && "=<>!&|".indexOf(text.charAt(i)) >= 0) {
+                        i++;
+                    }
+                    String op = text.substring(start, i);
+                    // "!" directly before a word or "(" is NOT, e.g. "!failed"
+                    if (op.length() > 1 && op.startsWith("!") && !op.equals("!=")) {
+                        tokens.add("!");
+                        op = op.substring(1);
+                    }
+                    tokens.add(op);
+                } else {
+                    int start = i;
+                    while (i < text.length() && !Character.isWhitespace(text.charAt(i))
+                            && "()=<>!&|\"'".indexOf(text.charAt(i)) < 0) {
+                        i++;
+                    }
+                    tokens.add(text.substring(start, i));
+                }
+            }
+            if (tokens.isEmpty()) {
+                throw new IllegalArgumentException("Empty query");
+            }
+        }
+
+        String peek() {
+            return pos < tokens.size() ? tokens.get(pos) : null;
+        }
+
+        String next() {
+            if (pos >= tokens.size()) {
+                throw new IllegalArgumentException("Query ends too early");
+            }
+            return tokens.get(pos++);
+        }
+
+        boolean accept(String... words) {
+            String t = peek();
+            for (String w : words) {
+                if (w.equalsIgnoreCase(t)) {
+                    pos++;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        StudentQuery expression() {
+            StudentQuery q = term();
+            while (accept("or", "||")) {
+                q = or(q, term());
+            }
+            return q;
+        }
+
+        StudentQuery term() {
+            StudentQuery q = factor();
+            while (accept("and", "&&")) {
+                q = and(q, factor());
+            }
+            return q;
+        }
+
+        StudentQuery factor() {
+            if (accept("not", "!")) {
+                return not(factor());
+            }
+            if (accept("(")) {
+                StudentQuery q = expression();
+                if (!accept(")")) {
+                    throw new IllegalArgumentException("Missing ')' in query");
+                }
+                return q;
+            }
+            String field = next().toLowerCase(Locale.ROOT);
+            switch (field) {
+                case "all" -> {
+                    return all();
+                }
+                case "failed", "fail" -> {
+                    return failed();
+                }
+                case "passed", "pass" -> {
+                    return passed();
+                }
+                default -> {
+                    // a field comparison follows
+                }
+            }
+            String op = next();
+            String value = next();
+            if (value.startsWith("\"")) {
+                value = value.substring(1);
+            }
+            StudentQuery q = switch (field) {
+                case "grade" -> grade(Grade.fromLabel(value.toUpperCase(Locale.ROOT)));
+                case "department", "dept" -> department(value);
+                case "class" -> className(value);
+                default -> {
+                    int subject = subjectOf(field);
+                    int mark;
+                    try {
+                        mark = Integer.parseInt(value);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Expected marks after " + field + " " + op + ", got '" + value + "'");
+                    }
+                    // Just outside 0..100 compares the same and keeps mark - 1 and mark + 1 from overflowing
+                    mark = Math.max(-1, Math.min(101, mark));
+                    yield switch (op) {
+                        case "=", "==", "!=" -> marks(subject, mark, mark);
+                        case "<" -> marks(subject, 0, mark - 1);
+                        case "<=" -> marks(subject, 0, mark);
+                        case ">" -> marks(subject, mark + 1, 100);
+                        case ">=" -> marks(subject, mark, 100);
+                        default -> throw new IllegalArgumentException("Unknown comparison '" + op + "'");
+                    };
+                }
+            };
+            return switch (op) {
+                case "=", "==" -> q;
+                case "!=" -> not(q);
+                default -> {
+                    if (q instanceof MarksQuery) {
+                        yield q;
+                    }
+                    throw new IllegalArgumentException(field + " can only be compared with = or !=");
+                }
+            };
+        }
+
+        private static int subjectOf(String field) {
+            int subject = SubjectSchema.ACTIVE.find(field);
+            if (subject < 0) {
+                throw new IllegalArgumentException("Unknown field '" + field
+                        + "' (use grade, department, class, passed, failed or " + SubjectSchema.ACTIVE.fieldList() + ")");
+            }
+            return subject;
+        }
+    }
+}
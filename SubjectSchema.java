@@ -0,0 +1,146 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// The subjects every result is marked in, fixed for the life of the program.
+// Loaded at startup from subjects.txt in the working directory (or the file
+// named by -Dsubjects.file=...); without one the original four subjects are
+// used. One subject per line:
+//
+//   Name[, table heading[, query field]]
+//
+// e.g. "Physical Education, Phys Ed, pe". Blank lines and lines starting
+// with # are skipped. Data files and journals record how many subjects they
+// hold and are refused if that differs from the schema.
+class SubjectSchema {
+    static final String FILE = "subjects.txt";
+    static final String FILE_PROPERTY = "subjects.file";
+    // Tables indexed by total (Grade, RankIndex, StatisticsEngine) take 100
+    // entries per subject and ResultHistory keeps totals in shorts; twenty
+    // subjects keeps those small and the listings within a wide terminal
+    static final int MAX_SUBJECTS = 20;
+    // Words the query language already uses for other fields
+    private static final Set<String> RESERVED = Set.of("grade", "department", "dept", "class",
+            "pass", "passed", "fail", "failed", "and", "or", "not");
+
+    static final SubjectSchema DEFAULT = new SubjectSchema(List.of(
+            new Subject("Mathematics", "Maths", "Maths", 7, "maths", "math", "mathematics"),
+            new Subject("Science", "Science", "Science", 8, "science"),
+            new Subject("English", "English", "English", 8, "english"),
+            new Subject("Computer Science", "Computer Science", "Comp Sci", 10, "cs", "computer", "computerscience")));
+    static final SubjectSchema ACTIVE = load();
+
+    static final class Subject {
+        final String name;
+        // Used in prompts such as "Marks in Maths: "
+        final String label;
+        final String heading;
+        final int width;
+        // The first alias is the field name shown in queries
+        final String[] aliases;
+
+        Subject(String name, String label, String heading, int width, String... aliases) {
+            this.name = name;
+            this.label = label;
+            this.heading = heading;
+            this.width = width;
+            this.aliases = aliases;
+        }
+    }
+
+    private final Subject[] subjects;
+    private final String[] names;
+
+    private SubjectSchema(List<Subject> subjects) {
+        this.subjects = subjects.toArray(new Subject[0]);
+        this.names = new String[this.subjects.length];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = this.subjects[i].name;
+        }
+    }
+
+    public int size() {
+        return subjects.length;
+    }
+
+    public Subject subject(int index) {
+        return subjects[index];
+    }
+
+    public String[] names() {
+        return names.clone();
+    }
+
+    public String field(int index) {
+        return subjects[index].aliases[0];
+    }
+
+    // Subject index for a query field or full name, or -1
+    public int find(String field) {
+        String key = field.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < subjects.length; i++) {
+            for (String alias : subjects[i].aliases) {
+                if (alias.equals(key)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    public String fieldList() {
+        StringJoiner fields = new StringJoiner(", ");
+        for (int i = 0; i < subjects.length; i++) {
+            fields.add(field(i));
+        }
+        return fields.toString();
+    }
+
+    private static SubjectSchema load() {
+        Path file = Paths.get(System.getProperty(FILE_PROPERTY, FILE));
+        if (!Files.exists(file)) {
+            return DEFAULT;
+        }
+        try {
+            return parse(Files.readAllLines(file, StandardCharsets.UTF_8));
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Ignoring " + file + ": " + e.getMessage());
+            return DEFAULT;
+        }
+    }
+
+    static SubjectSchema parse(List<String> lines) {
+        List<Subject> subjects = new ArrayList<>();
+        Set<String> taken = new HashSet<>(RESERVED);
+        for (String line : lines) {
+            if (line.isBlank() || line.trim().startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split(",", -1);
+            if (parts.length > 3) {
+                throw new IllegalArgumentException("Expected 'Name[, heading[, field]]' but found '" + line.trim() + "'");
+            }
+            String name = parts[0].trim();
+            String heading = parts.length > 1 && !parts[1].isBlank() ? parts[1].trim() : name;
+            String compact = name.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+            String field = parts.length > 2 && !parts[2].isBlank() ? parts[2].trim().toLowerCase(Locale.ROOT) : compact;
+            if (name.isEmpty()) {
+                throw new IllegalArgumentException("Subject name missing in '" + line.trim() + "'");
+            }
+            if (!field.matches("[a-z][a-z0-9_]*")) {
+                throw new IllegalArgumentException("Query field for " + name + " must be a word, not '" + field + "'");
+            }
+            if (!taken.add(field) || !compact.equals(field) && !compact.isEmpty() && !taken.add(compact)) {
+                throw new IllegalArgumentException("Subject " + name + " clashes with another field name");
+            }
+            String[] aliases = compact.equals(field) || compact.isEmpty()
+                    ? new String[]{field} : new String[]{field, compact};
+            subjects.add(new Subject(name, name, heading, Math.max(5, heading.length() + 2), aliases));
+        }
+        if (subjects.isEmpty() || subjects.size() > MAX_SUBJECTS) {
+            throw new IllegalArgumentException("Expected 1 to " + MAX_SUBJECTS + " subjects but found " + subjects.size());
+        }
+        return new SubjectSchema(subjects);
+    }
+}
@@ -0,0 +1,58 @@
+import java.util.SplittableRandom;
+
+// Deterministic synthetic rosters for benchmarks and load testing.
+// The same count and seed always give the same students, so timings taken
+// before and after a change run over identical data. Names, classes and
+// departments come from small pools (as in a real institution) and marks
+// follow a rough bell curve around 65.
+class SyntheticData {
+    public static final long DEFAULT_SEED = 20240601L;
+
+    private static final String[] FIRST_NAMES = {
+            "Aarav", "Aditi", "Akash", "Ananya", "Arjun", "Diya", "Ishaan", "Kavya", "Karan", "Meera",
+            "Neha", "Nikhil", "Pooja", "Priya", "Rahul", "Riya", "Rohan", "Sanya", "Siddharth", "Sneha",
+            "Tanvi", "Varun", "Vikram", "Zoya", "Aman", "Bhavna", "Dev", "Farah", "Gaurav", "Hina"};
+    private static final String[] LAST_NAMES = {
+            "Sharma", "Verma", "Gupta", "Singh", "Kumar", "Patel", "Reddy", "Iyer", "Nair", "Das",
+            "Bose", "Mehta", "Joshi", "Kapoor", "Malhotra", "Chopra", "Rao", "Pandey", "Mishra", "Khan"};
+    private static final String[] DEPARTMENTS = {
+            "CS", "IT", "ECE", "EEE", "MECH", "CIVIL", "CHEM", "BIO"};
+    private static final String[] NAMES = new String[FIRST_NAMES.length * LAST_NAMES.length];
+    private static final String[] CLASSES = new String[4 * 4];
+
+    static {
+        for (int f = 0; f < FIRST_NAMES.length; f++) {
+            for (int l = 0; l < LAST_NAMES.length; l++) {
+                NAMES[f * LAST_NAMES.length + l] = FIRST_NAMES[f] + " " + LAST_NAMES[l];
+            }
+        }
+        for (int grade = 0; grade < 4; grade++) {
+            for (int section = 0; section < 4; section++) {
+                CLASSES[grade * 4 + section] = (9 + grade) + String.valueOf((char) ('A' + section));
+            }
+        }
+    }
+
+    public static StudentRecord[] generate(int count) {
+        return generate(count, DEFAULT_SEED);
+    }
+
+    // Roll numbers 1..count in ascending order
+    public static StudentRecord[] generate(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        StudentRecord[] records = new StudentRecord[count];
+        int[] marks = new int[Result.SUBJECT_COUNT];
+        for (int i = 0; i < count; i++) {
+            // A student's ability shifts all their marks together
+            double ability = random.nextGaussian() * 12;
+            for (int subject = 0; subject < marks.length; subject++) {
+                long mark = Math.round(65 + ability + random.nextGaussian() * 12);
+                marks[subject] = (int) Math.max(0, Math.min(100, mark));
+            }
+            Student student = new Student(NAMES[random.nextInt(NAMES.length)], i + 1,
+                    CLASSES[random.nextInt(CLASSES.length)], DEPARTMENTS[random.nextInt(DEPARTMENTS.length)]);
+            records[i] = new StudentRecord(student, new Result(marks));
+        }
+        return records;
+    }
+}
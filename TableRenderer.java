@@ -0,0 +1,178 @@
+import java.io.*;
+
+// Renders student rows as fixed-width text without java.util.Formatter.
+// Each row is assembled in a reusable char buffer and handed to a buffered
+// writer, so long listings cost one copy per row instead of a format-string
+// parse and an unbuffered console write. The layout matches the original
+// printf tables byte for byte.
+class TableRenderer implements Flushable {
+    private static final String[] HEADINGS = new String[Result.SUBJECT_COUNT + 8];
+    private static final int[] WIDTHS = new int[HEADINGS.length];
+    // Width of the rule under the header, grown with the subject columns
+    private static final int RULE;
+
+    static {
+        String[] student = {"Name", "Roll No", "Class", "Department"};
+        int[] studentWidths = {15, 10, 10, 12};
+        String[] result = {"Total", "Average", "Grade", "Remarks"};
+        int[] resultWidths = {7, 8, 6, 12};
+        int subjectWidths = 0;
+        System.arraycopy(student, 0, HEADINGS, 0, 4);
+        System.arraycopy(studentWidths, 0, WIDTHS, 0, 4);
+        for (int subject = 0; subject < Result.SUBJECT_COUNT; subject++) {
+            SubjectSchema.Subject s = SubjectSchema.ACTIVE.subject(subject);
+            HEADINGS[4 + subject] = s.heading;
+            WIDTHS[4 + subject] = s.width;
+            subjectWidths += s.width + 1;
+        }
+        System.arraycopy(result, 0, HEADINGS, 4 + Result.SUBJECT_COUNT, 4);
+        System.arraycopy(resultWidths, 0, WIDTHS, 4 + Result.SUBJECT_COUNT, 4);
+        // 110 was the rule for the original four subjects, 37 columns wide
+        RULE = 110 + subjectWidths - 37;
+    }
+
+    private final Writer out;
+    private final boolean withRemarks;
+    private final int columns;
+    private char[] buf = new char[256];
+    private int len;
+    private int cellStart;
+    private int column;
+
+    public TableRenderer(Writer out, boolean withRemarks) {
+        this.out = out;
+        this.withRemarks = withRemarks;
+        this.columns = withRemarks ? HEADINGS.length : HEADINGS.length - 1;
+    }
+
+    // Buffered writer over System.out; flush it before printing through System.out again
+    public static Writer console() {
+        return new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+    }
+
+    public void header() throws IOException {
+        startRow();
+        for (int i = 0; i < columns; i++) {
+            append(HEADINGS[i]);
+            endCell();
+        }
+        appendRepeated('=', withRemarks ? RULE + 20 : RULE);
+        append('\n');
+        writeRow();
+    }
+
+    public void row(StudentRecord rec) throws IOException {
+        Student s = rec.getStudent();
+        Result r = rec.getResult();
+        startRow();
+        append(s.getName());
+        endCell();
+        append(s.getRollNumber());
+        endCell();
+        append(s.getClassName());
+        endCell();
+        append(s.getDepartment());
+        endCell();
+        for (int subject = 0; subject < Result.SUBJECT_COUNT; subject++) {
+            append(r.getMark(subject));
+            endCell();
+        }
+        append(r.totalMarks());
+        endCell();
+        appendFixed2(r.averageMarks());
+        endCell();
+        append(r.getGrade().label());
+        endCell();
+        if (withRemarks) {
+            append(r.getGrade().remarks());
+            endCell();
+        }
+        writeRow();
+    }
+
+    public void rows(Iterable<StudentRecord> recs) throws IOException {
+        for (StudentRecord rec : recs) {
+            row(rec);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    private void startRow() {
+        len = 0;
+        cellStart = 0;
+        column = 0;
+    }
+
+    // Pads the cell to its column width, then separates it like "%-Ns " (or ends the line)
+    private void endCell() {
+        int target = cellStart + WIDTHS[column];
+        while (len < target) {
+            append(' ');
+        }
+        column++;
+        append(column == columns ? '\n' : ' ');
+        cellStart = len;
+    }
+
+    private void writeRow() throws IOException {
+        out.write(buf, 0, len);
+    }
+
+    private void ensure(int extra) {
+        if (len + extra > buf.length) {
+            buf = java.util.Arrays.copyOf(buf, Math.max(buf.length * 2, len + extra));
+        }
+    }
+
+    private void append(char c) {
+        ensure(1);
+        buf[len++] = c;
+    }
+
+    private void append(String s) {
+        ensure(s.length());
+        s.getChars(0, s.length(), buf, len);
+        len += s.length();
+    }
+
+    private void appendRepeated(char c, int n) {
+        ensure(n);
+        java.util.Arrays.fill(buf, len, len + n, c);
+        len += n;
+    }
+
+    private void append(int value) {
+        if (value < 0) {
+            if (value == Integer.MIN_VALUE) {
+                append(Integer.toString(value));
+                return;
+            }
+            append('-');
+            value = -value;
+        }
+        ensure(10);
+        int digits = 1;
+        for (int v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        for (int i = len + digits - 1; i >= len; i--) {
+            buf[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        len += digits;
+    }
+
+    // Same text as "%.2f" for the non-negative averages shown in tables
+    private void appendFixed2(float value) {
+        long hundredths = Math.round(value * 100.0);
+        append((int) (hundredths / 100));
+        append('.');
+        int cents = (int) (hundredths % 100);
+        append((char) ('0' + cents / 10));
+        append((char) ('0' + cents % 10));
+    }
+}
@@ -0,0 +1,66 @@
+package srm;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// The roll-number lookups behind add, update and delete, and the store
+// mutations themselves with every derived index listening.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LookupBenchmark {
+    private static final int PROBES = 4096;
+
+    private final int[] rolls = new int[PROBES];
+    private final Result[] results = new Result[PROBES];
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp(Roster roster) {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < PROBES; i++) {
+            rolls[i] = 1 + random.nextInt(roster.students);
+            int[] marks = new int[Result.SUBJECT_COUNT];
+            for (int subject = 0; subject < marks.length; subject++) {
+                marks[subject] = random.nextInt(101);
+            }
+            results[i] = new Result(marks);
+        }
+    }
+
+    private int nextProbe() {
+        next = (next + 1) & (PROBES - 1);
+        return next;
+    }
+
+    @Benchmark
+    public StudentRecord findExisting(Roster roster) {
+        return roster.store.findByRoll(rolls[nextProbe()]);
+    }
+
+    @Benchmark
+    public StudentRecord findMissing(Roster roster) {
+        return roster.store.findByRoll(-rolls[nextProbe()]);
+    }
+
+    @Benchmark
+    public StudentRecord updateMarks(Roster roster) {
+        int probe = nextProbe();
+        int slot = roster.store.find(rolls[probe]);
+        StudentRecord old = roster.store.get(slot);
+        return roster.store.set(slot, new StudentRecord(old.getStudent(), results[probe]));
+    }
+
+    // Delete followed by re-adding the same student, so the roster size stays fixed
+    @Benchmark
+    public int deleteAndAdd(Roster roster) {
+        RecordStore store = roster.store;
+        StudentRecord removed = store.remove(store.find(rolls[nextProbe()]));
+        return store.add(removed);
+    }
+}
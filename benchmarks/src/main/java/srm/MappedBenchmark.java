@@ -0,0 +1,66 @@
+package srm;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Opening and scanning the roster in place through a memory-mapped data
+// file, against loading it onto the heap first (see StorageBenchmark and
+// StatisticsBenchmark for the heap side).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MappedBenchmark {
+    @Param({"10000", "1000000", "10000000"})
+    public int students;
+
+    private Path file;
+    private MappedRecordStore mapped;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("srm-mapped", ".bin");
+        new BinaryDataStorage(file).saveData(SyntheticData.generate(students));
+        mapped = MappedRecordStore.open(file);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        mapped = null;
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public MappedRecordStore open() throws IOException {
+        return MappedRecordStore.open(file);
+    }
+
+    @Benchmark
+    public void scanTotals(Blackhole bh) {
+        MappedRecordStore.Row row = mapped.row();
+        long sum = 0;
+        int passed = 0;
+        for (int i = 0; i < mapped.size(); i++) {
+            row.moveTo(i);
+            sum += row.totalMarks();
+            if (row.isPass()) {
+                passed++;
+            }
+        }
+        bh.consume(sum);
+        bh.consume(passed);
+    }
+
+    @Benchmark
+    public SortedMap<String, GroupByAnalytics.GroupStats> groupByDepartment() {
+        return GroupByAnalytics.compute(mapped, GroupByAnalytics.GroupBy.DEPARTMENT);
+    }
+}
@@ -0,0 +1,198 @@
+package srm;
+
+import java.util.Arrays;
+
+// Struct-of-arrays copy of every student's marks: one byte column per
+// subject plus a total column. Rows are kept dense (a removed row is
+// replaced by the last one), so analytics scan plain primitive arrays
+// without tombstone checks or pointer chasing through records.
+//
+// The scan loops are written branch-free over primitive arrays so C2 can
+// auto-vectorize them.
+//
+// The application answers statistics from StatisticsEngine instead, so this
+// layout lives with the benchmarks as the columnar scan StatisticsBenchmark
+// compares against.
+class MarkColumns implements RecordStore.Listener {
+    // Per-block int accumulation stays clear of overflow for totals of up to
+    // SubjectSchema.MAX_SUBJECTS subjects
+    private static final int SUM_BLOCK = 1 << 20;
+
+    private byte[][] marks = new byte[Result.SUBJECT_COUNT][16];
+    private short[] totals = new short[16];
+    private int[] slotOfRow = new int[16];
+    private int[] rowOfSlot = new int[16];
+    private int rows;
+
+    // Aggregates of one column
+    static final class ColumnStats {
+        final int count;
+        final long sum;
+        final int min;
+        final int max;
+        final int atLeast; // values >= the threshold asked for
+
+        ColumnStats(int count, long sum, int min, int max, int atLeast) {
+            this.count = count;
+            this.sum = sum;
+            this.min = min;
+            this.max = max;
+            this.atLeast = atLeast;
+        }
+
+        float average() {
+            return sum / (float) count;
+        }
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    // Column arrays are only valid up to rows()
+    public byte[] subjectColumn(int subject) {
+        return marks[subject];
+    }
+
+    public short[] totalColumn() {
+        return totals;
+    }
+
+    public int slotOfRow(int row) {
+        return slotOfRow[row];
+    }
+
+    public ColumnStats subjectStats(int subject, int threshold) {
+        byte[] col = marks[subject];
+        int n = rows;
+        long sum = 0;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        int atLeast = 0;
+        for (int start = 0; start < n; start += SUM_BLOCK) {
+            int end = Math.min(n, start + SUM_BLOCK);
+            int blockSum = 0;
+            for (int i = start; i < end; i++) {
+                int v = col[i];
+                blockSum += v;
+                min = Math.min(min, v);
+                max = Math.max(max, v);
+                atLeast += (threshold - 1 - v) >>> 31;
+            }
+            sum += blockSum;
+        }
+        return new ColumnStats(n, sum, min, max, atLeast);
+    }
+
+    public ColumnStats totalStats() {
+        short[] col = totals;
+        int n = rows;
+        long sum = 0;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int start = 0; start < n; start += SUM_BLOCK) {
+            int end = Math.min(n, start + SUM_BLOCK);
+            int blockSum = 0;
+            for (int i = start; i < end; i++) {
+                int v = col[i];
+                blockSum += v;
+                min = Math.min(min, v);
+                max = Math.max(max, v);
+            }
+            sum += blockSum;
+        }
+        return new ColumnStats(n, sum, min, max, 0);
+    }
+
+    // Rows where every subject is at least the pass mark
+    public int passCount(int passMark) {
+        int n = rows;
+        byte[] lowest = new byte[Math.min(n, SUM_BLOCK)];
+        int passed = 0;
+        for (int start = 0; start < n; start += SUM_BLOCK) {
+            int len = Math.min(n - start, SUM_BLOCK);
+            System.arraycopy(marks[0], start, lowest, 0, len);
+            for (int subject = 1; subject < marks.length; subject++) {
+                byte[] col = marks[subject];
+                for (int i = 0; i < len; i++) {
+                    lowest[i] = (byte) Math.min(lowest[i], col[start + i]);
+                }
+            }
+            for (int i = 0; i < len; i++) {
+                passed += (passMark - 1 - lowest[i]) >>> 31;
+            }
+        }
+        return passed;
+    }
+
+    @Override
+    public void recordAdded(int slot, StudentRecord rec) {
+        ensureRows(rows + 1);
+        ensureSlots(slot + 1);
+        int row = rows++;
+        write(row, rec.getResult());
+        slotOfRow[row] = slot;
+        rowOfSlot[slot] = row;
+    }
+
+    @Override
+    public void recordUpdated(int slot, StudentRecord old, StudentRecord rec) {
+        write(rowOfSlot[slot], rec.getResult());
+    }
+
+    @Override
+    public void recordRemoved(int slot, StudentRecord old) {
+        int row = rowOfSlot[slot];
+        int last = --rows;
+        if (row != last) {
+            for (byte[] col : marks) {
+                col[row] = col[last];
+            }
+            totals[row] = totals[last];
+            int movedSlot = slotOfRow[last];
+            slotOfRow[row] = movedSlot;
+            rowOfSlot[movedSlot] = row;
+        }
+        rowOfSlot[slot] = -1;
+    }
+
+    @Override
+    public void storeReset(RecordStore store) {
+        rows = 0;
+        ensureRows(store.size());
+        ensureSlots(store.slotLimit());
+        Arrays.fill(rowOfSlot, -1);
+        for (int slot = 0; slot < store.slotLimit(); slot++) {
+            StudentRecord rec = store.get(slot);
+            if (rec != null) {
+                recordAdded(slot, rec);
+            }
+        }
+    }
+
+    private void write(int row, Result result) {
+        for (int subject = 0; subject < marks.length; subject++) {
+            marks[subject][row] = (byte) result.getMark(subject);
+        }
+        totals[row] = (short) result.totalMarks();
+    }
+
+    private void ensureRows(int capacity) {
+        if (capacity > totals.length) {
+            int grown = Math.max(capacity, totals.length + (totals.length >> 1));
+            for (int subject = 0; subject < marks.length; subject++) {
+                marks[subject] = Arrays.copyOf(marks[subject], grown);
+            }
+            totals = Arrays.copyOf(totals, grown);
+            slotOfRow = Arrays.copyOf(slotOfRow, grown);
+        }
+    }
+
+    private void ensureSlots(int capacity) {
+        if (capacity > rowOfSlot.length) {
+            int old = rowOfSlot.length;
+            rowOfSlot = Arrays.copyOf(rowOfSlot, Math.max(capacity, old + (old >> 1)));
+            Arrays.fill(rowOfSlot, old, rowOfSlot.length, -1);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package srm;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// Filters answered from the bitmap index against the record scan they
+// replace: the failed-students list, and a selective three-way AND.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBenchmark {
+    private static final StudentQuery SELECTIVE = StudentQuery.parse("grade = A+ and department = CS and class = 10B");
+
+    @Benchmark
+    public int failedScan(Roster roster) {
+        int n = 0;
+        for (StudentRecord rec : roster.store) {
+            if (!rec.getResult().isPass()) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    @Benchmark
+    public int[] failedBitmap(Roster roster) {
+        return roster.bitmapIndex.failed().toArray();
+    }
+
+    @Benchmark
+    public int selectiveScan(Roster roster) {
+        int n = 0;
+        for (StudentRecord rec : roster.store) {
+            if (SELECTIVE.test(rec)) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    @Benchmark
+    public CompressedBitmap selectiveBitmap(Roster roster) {
+        return SELECTIVE.evaluate(roster.bitmapIndex, roster.store);
+    }
+}
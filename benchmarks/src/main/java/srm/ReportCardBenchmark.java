@@ -0,0 +1,46 @@
+package srm;
+
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// Repeat report-card requests for a working set of students that fits the
+// cache: rendering every time against serving the cached bytes.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ReportCardBenchmark {
+    private static final int WORKING_SET = 1024;
+
+    private final StudentRecord[] requests = new StudentRecord[WORKING_SET];
+    private final ReportCardCache cache = new ReportCardCache();
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp(Roster roster) {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < WORKING_SET; i++) {
+            requests[i] = roster.store.findByRoll(1 + random.nextInt(roster.students));
+        }
+    }
+
+    private StudentRecord nextRequest() {
+        next = (next + 1) & (WORKING_SET - 1);
+        return requests[next];
+    }
+
+    @Benchmark
+    public byte[] render() {
+        return ReportCard.text(nextRequest()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] cached() {
+        return cache.get(nextRequest());
+    }
+}
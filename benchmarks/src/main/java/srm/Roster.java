@@ -0,0 +1,37 @@
+package srm;
+
+import org.openjdk.jmh.annotations.*;
+
+// A synthetic roster loaded into a store with the same derived indexes the
+// application keeps, plus MarkColumns for the columnar statistics scans,
+// shared by the lookup, sort, search, query and statistics benchmarks.
+@State(Scope.Benchmark)
+public class Roster {
+    @Param({"10000", "1000000", "10000000"})
+    public int students;
+
+    StudentRecord[] records;
+    RecordStore store;
+    MarkColumns markColumns;
+    StatisticsEngine statistics;
+    RankIndex rankIndex;
+    NameIndex nameIndex;
+    BitmapIndex bitmapIndex;
+
+    @Setup(Level.Trial)
+    public void load() {
+        records = SyntheticData.generate(students);
+        store = new RecordStore();
+        markColumns = new MarkColumns();
+        statistics = new StatisticsEngine();
+        rankIndex = new RankIndex();
+        nameIndex = new NameIndex();
+        bitmapIndex = new BitmapIndex();
+        store.addListener(markColumns);
+        store.addListener(statistics);
+        store.addListener(rankIndex);
+        store.addListener(nameIndex);
+        store.addListener(bitmapIndex);
+        store.replaceAll(records);
+    }
+}
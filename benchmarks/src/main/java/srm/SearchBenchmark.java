@@ -0,0 +1,29 @@
+package srm;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// The name lookups behind searchStudent: exact match first, then the
+// partial-name fallback.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+    @Benchmark
+    public int[] exactName(Roster roster) {
+        return roster.nameIndex.exact("meera kapoor");
+    }
+
+    @Benchmark
+    public int[] missingName(Roster roster) {
+        return roster.nameIndex.exact("Nobody Here");
+    }
+
+    @Benchmark
+    public int[] partialName(Roster roster) {
+        return roster.nameIndex.substring("era kap");
+    }
+}
@@ -0,0 +1,50 @@
+package srm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+// Both sorted displays, answered from the maintained rank and name indexes,
+// next to the comparator sort they replaced.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SortBenchmark {
+    @Benchmark
+    public List<StudentRecord> byTotalFromIndex(Roster roster) {
+        return resolve(roster, roster.rankIndex.page(0, roster.rankIndex.size()));
+    }
+
+    @Benchmark
+    public List<StudentRecord> byNameFromIndex(Roster roster) {
+        return resolve(roster, roster.nameIndex.inNameOrder());
+    }
+
+    @Benchmark
+    public StudentRecord[] byTotalComparator(Roster roster) {
+        StudentRecord[] recs = roster.store.toArray();
+        Arrays.sort(recs, (a, b) -> b.getResult().totalMarks() - a.getResult().totalMarks());
+        return recs;
+    }
+
+    @Benchmark
+    public StudentRecord[] byNameComparator(Roster roster) {
+        StudentRecord[] recs = roster.store.toArray();
+        Arrays.sort(recs, Comparator.comparing(r -> r.getStudent().getName(), String.CASE_INSENSITIVE_ORDER));
+        return recs;
+    }
+
+    private static List<StudentRecord> resolve(Roster roster, int[] rolls) {
+        List<StudentRecord> recs = new ArrayList<>(rolls.length);
+        for (int roll : rolls) {
+            recs.add(roster.store.findByRoll(roll));
+        }
+        return recs;
+    }
+}
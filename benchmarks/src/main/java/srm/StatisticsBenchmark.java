@@ -0,0 +1,56 @@
+package srm;
+
+import java.util.SortedMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+// Class statistics, subject-wise analysis and group-by reports, plus the
+// full rebuilds that run after a load.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StatisticsBenchmark {
+    @Benchmark
+    public void classStatistics(Roster roster, Blackhole bh) {
+        StatisticsEngine.Histogram totals = roster.statistics.totals();
+        bh.consume(totals.sum() / (float) totals.count());
+        bh.consume(totals.max());
+        bh.consume(totals.min());
+        bh.consume(totals.median());
+        bh.consume(totals.percentile(90));
+        bh.consume(roster.statistics.passed());
+    }
+
+    @Benchmark
+    public void subjectAnalysis(Roster roster, Blackhole bh) {
+        for (int subject = 0; subject < Result.SUBJECT_COUNT; subject++) {
+            StatisticsEngine.Histogram marks = roster.statistics.subject(subject);
+            bh.consume(marks.average());
+            bh.consume(marks.max());
+            bh.consume(marks.min());
+            bh.consume(marks.countAtLeast(Result.PASS_MARK));
+        }
+    }
+
+    @Benchmark
+    public void columnScan(Roster roster, Blackhole bh) {
+        bh.consume(roster.markColumns.totalStats());
+        bh.consume(roster.markColumns.passCount(Result.PASS_MARK));
+    }
+
+    @Benchmark
+    public SortedMap<String, GroupByAnalytics.GroupStats> groupByDepartment(Roster roster) {
+        return GroupByAnalytics.compute(roster.store, GroupByAnalytics.GroupBy.DEPARTMENT);
+    }
+
+    @Benchmark
+    public StatisticsEngine rebuildStatistics(Roster roster) {
+        StatisticsEngine engine = new StatisticsEngine();
+        engine.storeReset(roster.store);
+        return engine;
+    }
+}
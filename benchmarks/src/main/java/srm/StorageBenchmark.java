@@ -0,0 +1,67 @@
+package srm;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.*;
+
+// Full load and save of the roster with the binary format and the legacy
+// Java serialization format it replaced.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StorageBenchmark {
+    @Param({"10000", "1000000", "10000000"})
+    public int students;
+
+    private Path dir;
+    private StudentRecord[] records;
+    private BinaryDataStorage binary;
+    private FileDataStorage serialized;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("srm-storage");
+        records = SyntheticData.generate(students);
+        binary = new BinaryDataStorage(dir.resolve(BinaryDataStorage.DATA_FILE));
+        serialized = new FileDataStorage(dir.resolve(FileDataStorage.DATA_FILE).toString());
+        binary.saveData(records);
+        serialized.saveData(records);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(p);
+            }
+        }
+    }
+
+    @Benchmark
+    public StudentRecord[] loadBinary() throws IOException {
+        return binary.loadData();
+    }
+
+    @Benchmark
+    public void saveBinary() throws IOException {
+        binary.saveData(records);
+    }
+
+    @Benchmark
+    public StudentRecord[] loadSerialized() throws IOException, ClassNotFoundException {
+        return serialized.loadData();
+    }
+
+    @Benchmark
+    public void saveSerialized() throws IOException {
+        serialized.saveData(records);
+    }
+}
@@ -0,0 +1,55 @@
+import java.util.Arrays;
+import java.util.Objects;
+
+// The few assertions the tests need; each throws AssertionError on failure
+final class Assert {
+    interface Action {
+        void run() throws Exception;
+    }
+
+    private Assert() {
+    }
+
+    static void fail(String message) {
+        throw new AssertionError(message);
+    }
+
+    static void assertTrue(boolean condition, String message) {
+        if (!condition) {
+            fail(message);
+        }
+    }
+
+    static void assertFalse(boolean condition, String message) {
+        assertTrue(!condition, message);
+    }
+
+    static void assertEquals(Object expected, Object actual) {
+        assertEquals(expected, actual, "");
+    }
+
+    static void assertEquals(Object expected, Object actual, String message) {
+        if (!Objects.equals(expected, actual)) {
+            fail((message.isEmpty() ? "" : message + ": ") + "expected <" + expected + "> but was <" + actual + ">");
+        }
+    }
+
+    static void assertArrayEquals(int[] expected, int[] actual, String message) {
+        if (!Arrays.equals(expected, actual)) {
+            fail(message + ": expected " + Arrays.toString(expected) + " but was " + Arrays.toString(actual));
+        }
+    }
+
+    // The exception the action threw, which must be of the given type
+    static <T extends Throwable> T assertThrows(Class<T> type, Action action) {
+        try {
+            action.run();
+        } catch (Throwable t) {
+            if (type.isInstance(t)) {
+                return type.cast(t);
+            }
+            throw new AssertionError("Expected " + type.getSimpleName() + " but got " + t, t);
+        }
+        throw new AssertionError("Expected " + type.getSimpleName() + " but nothing was thrown");
+    }
+}
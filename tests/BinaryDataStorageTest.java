@@ -0,0 +1,69 @@
+import java.io.IOException;
+import java.nio.file.*;
+
+class BinaryDataStorageTest {
+    private static StudentRecord[] roster() {
+        return new StudentRecord[]{
+                Fixtures.record(101, "John Sharma", "10A", "Science", Fixtures.marks(85)),
+                Fixtures.record(102, "Priy\u0101 P\u0101tel", "10A", "Science", Fixtures.marks(0)),
+                Fixtures.record(7, "Rahul Verma", "10B", "Commerce", Fixtures.marks(100)),
+                Fixtures.record(Integer.MAX_VALUE, "", "10B", "Arts", Fixtures.marks(40)),
+        };
+    }
+
+    public void testSaveThenLoadGivesSameRecords() throws Exception {
+        Path file = Fixtures.tempDir().resolve("data.bin");
+        BinaryDataStorage storage = new BinaryDataStorage(file);
+        storage.saveData(roster());
+        Assert.assertEquals(Fixtures.describeAll(roster()), Fixtures.describeAll(storage.loadData()));
+        Assert.assertFalse(Files.exists(file.resolveSibling("data.bin.tmp")), "temporary file left behind");
+    }
+
+    public void testLargeRosterRoundTrips() throws Exception {
+        Path file = Fixtures.tempDir().resolve("data.bin");
+        StudentRecord[] recs = SyntheticData.generate(50_000);
+        new BinaryDataStorage(file).saveData(recs);
+        Assert.assertEquals(Fixtures.describeAll(recs), Fixtures.describeAll(new BinaryDataStorage(file).loadData()));
+    }
+
+    public void testEmptyRosterRoundTrips() throws Exception {
+        Path file = Fixtures.tempDir().resolve("data.bin");
+        new BinaryDataStorage(file).saveData(new StudentRecord[0]);
+        Assert.assertEquals(0, new BinaryDataStorage(file).loadData().length);
+    }
+
+    public void testCorruptByteFailsChecksum() throws Exception {
+        Path file = Fixtures.tempDir().resolve("data.bin");
+        new BinaryDataStorage(file).saveData(roster());
+        byte[] bytes = Files.readAllBytes(file);
+        // Inside the first dictionary string, "John Sharma"
+        bytes[BinaryDataStorage.HEADER_BYTES + 3] ^= 0x01;
+        Files.write(file, bytes);
+        IOException e = Assert.assertThrows(IOException.class, () -> new BinaryDataStorage(file).loadData());
+        Assert.assertTrue(e.getMessage().contains("checksum"), "unexpected message: " + e.getMessage());
+    }
+
+    public void testTruncatedFileIsRejected() throws Exception {
+        Path file = Fixtures.tempDir().resolve("data.bin");
+        new BinaryDataStorage(file).saveData(roster());
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, java.util.Arrays.copyOf(bytes, bytes.length - 6));
+        Assert.assertThrows(IOException.class, () -> new BinaryDataStorage(file).loadData());
+    }
+
+    public void testOtherFilesAreRejected() throws Exception {
+        Path file = Fixtures.tempDir().resolve("data.bin");
+        Files.write(file, "not a student data file at all".getBytes());
+        IOException e = Assert.assertThrows(IOException.class, () -> new BinaryDataStorage(file).loadData());
+        Assert.assertTrue(e.getMessage().contains("not a student data file"), "unexpected message: " + e.getMessage());
+    }
+
+    public void testLegacySerializedFileConverts() throws Exception {
+        Path dir = Fixtures.tempDir();
+        String ser = dir.resolve("data.ser").toString();
+        new FileDataStorage(ser).saveData(roster());
+        Path bin = dir.resolve("data.bin");
+        Assert.assertEquals(roster().length, BinaryDataStorage.convertLegacy(ser, bin));
+        Assert.assertEquals(Fixtures.describeAll(roster()), Fixtures.describeAll(new BinaryDataStorage(bin).loadData()));
+    }
+}
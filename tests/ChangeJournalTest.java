@@ -0,0 +1,141 @@
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.Arrays;
+
+class ChangeJournalTest {
+    private static final StudentRecord FIRST = Fixtures.record(1, "Science", 50);
+    private static final StudentRecord SECOND = Fixtures.record(2, "Arts", 60);
+    private static final StudentRecord THIRD = Fixtures.record(3, "Commerce", 70);
+
+    // Adds three students, updates the first and deletes the second
+    private static void logChanges(ChangeJournal journal) throws IOException {
+        journal.logAdd(FIRST);
+        journal.logAdd(SECOND);
+        journal.logAdd(THIRD);
+        journal.logUpdate(1, new Result(Fixtures.marks(95)));
+        journal.logDelete(2);
+    }
+
+    private static String expectedState() {
+        return Fixtures.describeAll(new StudentRecord[]{
+                new StudentRecord(FIRST.getStudent(), new Result(Fixtures.marks(95))), THIRD}).toString();
+    }
+
+    private static String replayInto(RecordStore store, Path file) throws IOException {
+        try (ChangeJournal journal = new ChangeJournal(file)) {
+            journal.replay(store);
+        }
+        return Fixtures.describeAll(store.toArray()).toString();
+    }
+
+    public void testReplayRebuildsLoggedChanges() throws Exception {
+        Path file = Fixtures.tempDir().resolve("journal");
+        try (ChangeJournal journal = new ChangeJournal(file)) {
+            Assert.assertEquals(0, journal.replay(new RecordStore()));
+            logChanges(journal);
+            Assert.assertEquals(5, journal.pendingEntries());
+        }
+        RecordStore store = new RecordStore();
+        try (ChangeJournal journal = new ChangeJournal(file)) {
+            Assert.assertEquals(5, journal.replay(store));
+            Assert.assertEquals(5, journal.pendingEntries());
+        }
+        Assert.assertEquals(expectedState(), Fixtures.describeAll(store.toArray()).toString());
+    }
+
+    // A crash between checkpoint and reset leaves changes both in the data file and the journal
+    public void testReplayOverSnapshotWithSomeChangesAppliedEndsTheSame() throws Exception {
+        Path file = Fixtures.tempDir().resolve("journal");
+        try (ChangeJournal journal = new ChangeJournal(file)) {
+            journal.replay(new RecordStore());
+            logChanges(journal);
+        }
+        RecordStore store = new RecordStore();
+        store.add(new StudentRecord(FIRST.getStudent(), new Result(Fixtures.marks(95))));
+        store.add(THIRD);
+        Assert.assertEquals(expectedState(), replayInto(store, file));
+    }
+
+    public void testTornLastEntryIsDiscarded() throws Exception {
+        Path file = Fixtures.tempDir().resolve("journal");
+        try (ChangeJournal journal = new ChangeJournal(file)) {
+            journal.replay(new RecordStore());
+            logChanges(journal);
+        }
+        long intact = Files.size(file);
+        try (ChangeJournal journal = new ChangeJournal(file)) {
+            journal.replay(new RecordStore());
+            journal.logAdd(Fixtures.record(4, "Arts", 80));
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+
+        RecordStore store = new RecordStore();
+        Assert.assertEquals(expectedState(), replayInto(store, file));
+        Assert.assertEquals(intact, Files.size(file), "torn entry should be truncated away");
+
+        // Appends after the truncation replay normally
+        try (ChangeJournal journal = new ChangeJournal(file)) {
+            journal.replay(new RecordStore());
+            journal.logDelete(3);
+        }
+        Assert.assertEquals(Fixtures.describeAll(new StudentRecord[]{
+                new StudentRecord(FIRST.getStudent(), new Result(Fixtures.marks(95)))}).toString(),
+                replayInto(new RecordStore(), file));
+    }
+
+    public void testCorruptEntryStopsReplay() throws Exception {
+        Path file = Fixtures.tempDir().resolve("journal");
+        try (ChangeJournal journal = new ChangeJournal(file)) {
+            journal.replay(new RecordStore());
+            journal.logAdd(FIRST);
+            journal.logAdd(SECOND);
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        // The last mark of the second entry
+        bytes[bytes.length - 5] ^= 0x01;
+        Files.write(file, bytes);
+        RecordStore store = new RecordStore();
+        Assert.assertEquals(Fixtures.describeAll(new StudentRecord[]{FIRST}).toString(), replayInto(store, file));
+    }
+
+    public void testResetEmptiesTheJournal() throws Exception {
+        Path file = Fixtures.tempDir().resolve("journal");
+        try (ChangeJournal journal = new ChangeJournal(file)) {
+            journal.replay(new RecordStore());
+            logChanges(journal);
+            journal.reset();
+            Assert.assertEquals(0, journal.pendingEntries());
+        }
+        Assert.assertEquals((long) ChangeJournal.HEADER_BYTES, Files.size(file));
+        RecordStore store = new RecordStore();
+        replayInto(store, file);
+        Assert.assertEquals(0, store.size());
+    }
+
+    public void testOtherFilesAreRejected() throws Exception {
+        Path file = Fixtures.tempDir().resolve("journal");
+        Files.write(file, "definitely not a journal".getBytes());
+        Assert.assertThrows(IOException.class, () -> replayInto(new RecordStore(), file));
+    }
+
+    // A journal that cannot be replayed must not be written over by the changes that follow
+    public void testUnreadableJournalRefusesWrites() throws Exception {
+        Path file = Fixtures.tempDir().resolve("journal");
+        try (ChangeJournal journal = new ChangeJournal(file)) {
+            journal.replay(new RecordStore());
+            logChanges(journal);
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        // The subject count in the header
+        bytes[6]++;
+        Files.write(file, bytes);
+        try (ChangeJournal journal = new ChangeJournal(file)) {
+            Assert.assertThrows(IOException.class, () -> journal.replay(new RecordStore()));
+            Assert.assertThrows(IOException.class, () -> journal.logAdd(FIRST));
+            Assert.assertThrows(IOException.class, () -> journal.logDelete(1));
+            Assert.assertThrows(IOException.class, journal::reset);
+        }
+        Assert.assertTrue(Arrays.equals(bytes, Files.readAllBytes(file)), "journal left as it was");
+    }
+}
@@ -0,0 +1,100 @@
+import java.util.*;
+
+// Every operation is checked against java.util.BitSet holding the same values
+class CompressedBitmapTest {
+    private static void assertSame(BitSet expected, CompressedBitmap actual, String message) {
+        Assert.assertArrayEquals(expected.stream().toArray(), actual.toArray(), message);
+        Assert.assertEquals(expected.cardinality(), actual.cardinality(), message + " cardinality");
+        Assert.assertEquals(expected.isEmpty(), actual.isEmpty(), message + " isEmpty");
+        List<Integer> visited = new ArrayList<>();
+        actual.forEach(visited::add);
+        Assert.assertEquals(expected.stream().boxed().toList(), visited, message + " forEach");
+    }
+
+    // Values in a few 65536-wide blocks, each either sparse or dense
+    private static BitSet randomSet(SplittableRandom random, CompressedBitmap bitmap) {
+        BitSet set = new BitSet();
+        for (int block = 0; block < 4; block++) {
+            int count = random.nextBoolean() ? random.nextInt(100) : 4000 + random.nextInt(20_000);
+            int base = (block * 3 + random.nextInt(3)) << 16;
+            for (int i = 0; i < count; i++) {
+                int value = base + random.nextInt(1 << 16);
+                set.set(value);
+                bitmap.add(value);
+            }
+        }
+        return set;
+    }
+
+    public void testAddRemoveContainsMatchBitSet() {
+        SplittableRandom random = new SplittableRandom(1);
+        CompressedBitmap bitmap = new CompressedBitmap();
+        BitSet set = new BitSet();
+        for (int round = 0; round < 6; round++) {
+            // Alternate between growing past the array limit and shrinking back under it
+            boolean grow = round % 2 == 0;
+            for (int i = 0; i < 30_000; i++) {
+                int value = random.nextInt(3 << 16);
+                if (grow || random.nextInt(4) == 0) {
+                    bitmap.add(value);
+                    set.set(value);
+                } else {
+                    bitmap.remove(value);
+                    set.clear(value);
+                }
+            }
+            assertSame(set, bitmap, "round " + round);
+            for (int i = 0; i < 1000; i++) {
+                int value = random.nextInt(4 << 16);
+                Assert.assertEquals(set.get(value), bitmap.contains(value), "contains " + value);
+            }
+        }
+        bitmap.clear();
+        assertSame(new BitSet(), bitmap, "cleared");
+    }
+
+    public void testSetOperationsMatchBitSet() {
+        SplittableRandom random = new SplittableRandom(2);
+        for (int round = 0; round < 20; round++) {
+            CompressedBitmap a = new CompressedBitmap();
+            CompressedBitmap b = new CompressedBitmap();
+            BitSet setA = randomSet(random, a);
+            BitSet setB = randomSet(random, b);
+            String before = Arrays.toString(a.toArray()) + Arrays.toString(b.toArray());
+
+            BitSet and = (BitSet) setA.clone();
+            and.and(setB);
+            assertSame(and, CompressedBitmap.and(a, b), "and in round " + round);
+            BitSet or = (BitSet) setA.clone();
+            or.or(setB);
+            assertSame(or, CompressedBitmap.or(a, b), "or in round " + round);
+            BitSet andNot = (BitSet) setA.clone();
+            andNot.andNot(setB);
+            assertSame(andNot, CompressedBitmap.andNot(a, b), "andNot in round " + round);
+
+            Assert.assertEquals(before, Arrays.toString(a.toArray()) + Arrays.toString(b.toArray()),
+                    "operands unchanged in round " + round);
+        }
+    }
+
+    public void testCopyIsIndependent() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        BitSet set = randomSet(new SplittableRandom(3), bitmap);
+        CompressedBitmap copy = bitmap.copy();
+        int first = set.nextSetBit(0);
+        copy.remove(first);
+        copy.add(1 << 20);
+        assertSame(set, bitmap, "original after changing the copy");
+        Assert.assertFalse(copy.contains(first), "removed from the copy");
+        Assert.assertTrue(copy.contains(1 << 20), "added to the copy");
+    }
+
+    public void testDenseBlockUsesLessSpaceThanArray() {
+        CompressedBitmap dense = new CompressedBitmap();
+        for (int value = 0; value < 60_000; value++) {
+            dense.add(value);
+        }
+        // One bit per value once the block is a bitset
+        Assert.assertTrue(dense.sizeInBytes() < 60_000 * 2 / 4, "dense size " + dense.sizeInBytes());
+    }
+}
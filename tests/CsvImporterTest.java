@@ -0,0 +1,126 @@
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.*;
+import java.util.*;
+
+class CsvImporterTest {
+    private final RecordStore store = new RecordStore();
+    private final ByteArrayOutputStream messages = new ByteArrayOutputStream();
+    private final CsvImporter importer = new CsvImporter(store, new PrintStream(messages, true));
+
+    private static String header() {
+        StringBuilder header = new StringBuilder("Name,Roll,Class,Department");
+        for (int subject = 0; subject < Result.SUBJECT_COUNT; subject++) {
+            header.append(',').append(SubjectSchema.ACTIVE.subject(subject).name);
+        }
+        return header.toString();
+    }
+
+    private static String row(StudentRecord rec) {
+        Student s = rec.getStudent();
+        StringBuilder row = new StringBuilder(s.getName() + "," + s.getRollNumber() + "," + s.getClassName()
+                + "," + s.getDepartment());
+        for (int subject = 0; subject < Result.SUBJECT_COUNT; subject++) {
+            row.append(',').append(rec.getResult().getMark(subject));
+        }
+        return row.toString();
+    }
+
+    private void importLines(List<String> lines) throws Exception {
+        Path csv = Fixtures.tempDir().resolve("marks.csv");
+        Files.write(csv, lines);
+        importer.importFile(csv);
+    }
+
+    private List<String> messageLines() {
+        String text = messages.toString().trim();
+        return text.isEmpty() ? List.of() : List.of(text.split("\\R"));
+    }
+
+    public void testHeaderRowIsSkippedAndReported() throws Exception {
+        StudentRecord[] recs = Fixtures.uniqueRoster(3, 1);
+        importLines(List.of(header(), row(recs[0]), row(recs[1]), row(recs[2])));
+        Assert.assertEquals(3, importer.getImported());
+        Assert.assertEquals(0, importer.getRejected());
+        Assert.assertEquals(List.of("Line 1: skipped the header row"), messageLines());
+        Assert.assertEquals(Fixtures.describeAll(recs), Fixtures.describeAll(store.toArray()));
+    }
+
+    // A first student whose name starts like the header is still imported
+    public void testFirstRowWithoutHeaderIsImported() throws Exception {
+        StudentRecord first = Fixtures.record(1, "Nandini Rao", "10A", "CS", Fixtures.marks(70));
+        StudentRecord second = Fixtures.record(2, "Naman", "10A", "CS", Fixtures.marks(60));
+        importLines(List.of(row(first), row(second)));
+        Assert.assertEquals(2, importer.getImported());
+        Assert.assertEquals(List.of(), messageLines());
+    }
+
+    public void testHeaderRecognition() {
+        Assert.assertTrue(CsvImporter.isHeader(header()), header());
+        Assert.assertTrue(CsvImporter.isHeader(header().toLowerCase(Locale.ROOT).replace("roll", " Roll No ")),
+                "case and spacing");
+        StringBuilder fields = new StringBuilder("name,roll,class,dept");
+        for (int subject = 0; subject < Result.SUBJECT_COUNT; subject++) {
+            fields.append(',').append(SubjectSchema.ACTIVE.field(subject));
+        }
+        Assert.assertTrue(CsvImporter.isHeader(fields.toString()), "query field names");
+
+        Assert.assertFalse(CsvImporter.isHeader("Name,Roll,Class"), "too few columns");
+        Assert.assertFalse(CsvImporter.isHeader(header().replace("Class", "Section")), "unknown column");
+        Assert.assertFalse(CsvImporter.isHeader(row(Fixtures.record(1, "Name", "10A", "CS", Fixtures.marks(50)))),
+                "student called Name");
+        Assert.assertFalse(CsvImporter.isHeader("\"Name,Roll"), "unterminated quote");
+    }
+
+    // Rows span several batches; errors keep their file line numbers and
+    // duplicates are reported against the later row
+    public void testBatchesKeepFileOrderAndLineNumbers() throws Exception {
+        int count = CsvImporter.BATCH_LINES * 2 + 100;
+        StudentRecord[] recs = Fixtures.uniqueRoster(count, 2);
+        List<String> lines = new ArrayList<>();
+        lines.add(header());
+        List<String> expectedErrors = new ArrayList<>();
+        expectedErrors.add("Line 1: skipped the header row");
+        List<StudentRecord> expected = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int lineNumber = lines.size() + 1;
+            if (i % 1000 == 999) {
+                lines.add(recs[i].getStudent().getName() + ",not a number,10A,CS");
+                expectedErrors.add("Line " + lineNumber + ": Expected " + CsvImporter.COLUMNS + " fields but found 4");
+            } else if (i % 1000 == 500) {
+                lines.add(row(recs[i - 1]));
+                expectedErrors.add("Line " + lineNumber + ": Roll number "
+                        + recs[i - 1].getStudent().getRollNumber() + " already exists");
+            } else if (i % 3000 == 7) {
+                lines.add("");
+            } else {
+                lines.add(row(recs[i]));
+                expected.add(recs[i]);
+            }
+        }
+        importLines(lines);
+        Assert.assertEquals(expected.size(), importer.getImported());
+        Assert.assertEquals(expectedErrors.size() - 1, importer.getRejected());
+        Assert.assertEquals(expectedErrors, messageLines());
+
+        List<String> stored = new ArrayList<>();
+        for (StudentRecord rec : store) {
+            stored.add(Fixtures.describe(rec));
+        }
+        List<String> inFileOrder = new ArrayList<>();
+        for (StudentRecord rec : expected) {
+            inFileOrder.add(Fixtures.describe(rec));
+        }
+        Assert.assertEquals(inFileOrder, stored);
+    }
+
+    public void testRowParsing() {
+        StudentRecord rec = CsvImporter.parseRow("\"Rao, \"\"Nandu\"\"\",7,10B,CS" + ",55".repeat(Result.SUBJECT_COUNT));
+        Assert.assertEquals("7|Rao, \"Nandu\"|10B|CS|" + Arrays.toString(Fixtures.marks(55)), Fixtures.describe(rec));
+        Assert.assertEquals(null, CsvImporter.parseRow("   "));
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> CsvImporter.parseRow("A,1,10A,CS" + ",101".repeat(Result.SUBJECT_COUNT)));
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> CsvImporter.parseRow("A,x,10A,CS" + ",50".repeat(Result.SUBJECT_COUNT)));
+    }
+}
@@ -0,0 +1,96 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+
+// Records and scratch directories shared by the tests
+final class Fixtures {
+    private static final List<Path> tempDirs = new ArrayList<>();
+
+    private Fixtures() {
+    }
+
+    // Marks for every subject of the active schema
+    static int[] marks(int mark) {
+        int[] marks = new int[Result.SUBJECT_COUNT];
+        Arrays.fill(marks, mark);
+        return marks;
+    }
+
+    static StudentRecord record(int roll, String department, int mark) {
+        return record(roll, "Student " + roll, "10A", department, marks(mark));
+    }
+
+    static StudentRecord record(int roll, String name, String className, String department, int[] marks) {
+        return new StudentRecord(new Student(name, roll, className, department), new Result(marks));
+    }
+
+    // Students with distinct names, so a data file's string dictionary grows
+    // with the roster, spread over a few classes and departments
+    static StudentRecord[] uniqueRoster(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        String[] departments = {"CS", "MECH", "CIVIL", "Science", "Arts"};
+        StudentRecord[] recs = new StudentRecord[count];
+        for (int i = 0; i < count; i++) {
+            int[] marks = new int[Result.SUBJECT_COUNT];
+            for (int subject = 0; subject < marks.length; subject++) {
+                marks[subject] = random.nextInt(101);
+            }
+            recs[i] = record(i + 1, "Name " + Integer.toString(random.nextInt(1 << 30), 36) + " " + i,
+                    "1" + random.nextInt(3) + (char) ('A' + random.nextInt(3)),
+                    departments[random.nextInt(departments.length)], marks);
+        }
+        return recs;
+    }
+
+    // Every field of a record, for comparing records by value
+    static String describe(StudentRecord rec) {
+        Student s = rec.getStudent();
+        int[] marks = new int[Result.SUBJECT_COUNT];
+        for (int subject = 0; subject < marks.length; subject++) {
+            marks[subject] = rec.getResult().getMark(subject);
+        }
+        return s.getRollNumber() + "|" + s.getName() + "|" + s.getClassName() + "|" + s.getDepartment() + "|"
+                + Arrays.toString(marks);
+    }
+
+    // Described records ordered by roll number, so storage order does not matter
+    static List<String> describeAll(StudentRecord[] recs) {
+        StudentRecord[] sorted = recs.clone();
+        Arrays.sort(sorted, Comparator.comparingInt(r -> r.getStudent().getRollNumber()));
+        List<String> out = new ArrayList<>();
+        for (StudentRecord rec : sorted) {
+            out.add(describe(rec));
+        }
+        return out;
+    }
+
+    static List<String> describeAll(Collection<StudentRecord> recs) {
+        return describeAll(recs.toArray(new StudentRecord[0]));
+    }
+
+    // An empty directory, deleted with its contents after the test
+    static Path tempDir() throws IOException {
+        Path dir = Files.createTempDirectory("srm-test");
+        tempDirs.add(dir);
+        return dir;
+    }
+
+    static void deleteTempDirs() {
+        for (Path dir : tempDirs) {
+            try (Stream<Path> paths = Files.walk(dir)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(p -> {
+                    try {
+                        Files.delete(p);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (IOException | UncheckedIOException e) {
+                System.out.println("Could not delete " + dir + ": " + e.getMessage());
+            }
+        }
+        tempDirs.clear();
+    }
+}
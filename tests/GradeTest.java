@@ -0,0 +1,43 @@
+import java.util.Arrays;
+
+class GradeTest {
+    public void testParsesDescendingBoundaries() {
+        float[] parsed = Grade.parseBoundaries(" 95, 85.5,75 ,65,55,45 ");
+        Assert.assertEquals("[95.0, 85.5, 75.0, 65.0, 55.0, 45.0]", Arrays.toString(parsed));
+        Assert.assertEquals("[100.0, 5.0, 4.0, 3.0, 2.0, 0.0]",
+                Arrays.toString(Grade.parseBoundaries("100,5,4,3,2,0")));
+    }
+
+    public void testRejectsBadBoundaries() {
+        String[] bad = {
+                "", "90,80,70,60,50", "90,80,70,60,50,40,30", "90,80,70,60,50,x", "90,80,,60,50,40",
+                "90,80,70,60,50,-1", "101,80,70,60,50,40", "90,80,80,60,50,40", "40,50,60,70,80,90",
+                "NaN,80,70,60,50,40", "90,80,70,60,50,NaN", "Infinity,80,70,60,50,40"};
+        for (String spec : bad) {
+            IllegalArgumentException e = Assert.assertThrows(IllegalArgumentException.class,
+                    () -> Grade.parseBoundaries(spec));
+            Assert.assertTrue(e.getMessage() != null, "no message for '" + spec + "'");
+        }
+    }
+
+    // The lookup table gives the grade the old if-chain on the average gave
+    public void testDefaultTableMatchesTheAverageChain() {
+        String spec = System.getProperty(Grade.BOUNDARIES_PROPERTY);
+        if (spec != null && !spec.isBlank()) {
+            return;
+        }
+        for (int total = 0; total <= Result.SUBJECT_COUNT * 100; total++) {
+            float avg = total / (float) Result.SUBJECT_COUNT;
+            String expected = avg >= 90 ? "A+" : avg >= 80 ? "A" : avg >= 70 ? "B" : avg >= 60 ? "C"
+                    : avg >= 50 ? "D" : avg >= 40 ? "E" : "F";
+            Assert.assertEquals(expected, Grade.forTotal(total).label(), "grade for total " + total);
+        }
+    }
+
+    public void testLabelsRoundTrip() {
+        for (Grade g : Grade.values()) {
+            Assert.assertTrue(Grade.fromLabel(g.label()) == g, "label " + g.label());
+        }
+        Assert.assertThrows(IllegalArgumentException.class, () -> Grade.fromLabel("A-"));
+    }
+}
@@ -0,0 +1,84 @@
+import java.nio.file.Path;
+import java.util.*;
+
+class GroupByAnalyticsTest {
+    // Enough slots for several parallel leaves, with few distinct totals so
+    // most toppers are decided by the roll number tie-break. Rolls run
+    // downwards, so the earliest slot in each group is never the answer.
+    private static StudentRecord[] tiedRoster() {
+        SplittableRandom random = new SplittableRandom(1);
+        String[] departments = {"CS", "MECH", "CIVIL"};
+        StudentRecord[] recs = new StudentRecord[60_000];
+        for (int i = 0; i < recs.length; i++) {
+            int roll = recs.length - i;
+            recs[i] = Fixtures.record(roll, "Student " + roll, "1" + random.nextInt(3) + "A",
+                    departments[random.nextInt(departments.length)], Fixtures.marks(90 + random.nextInt(3)));
+        }
+        return recs;
+    }
+
+    // count, sum of totals, passed and topper roll of each group, worked out directly
+    private static Map<String, String> expected(Iterable<StudentRecord> recs, GroupByAnalytics.GroupBy groupBy) {
+        Map<String, long[]> groups = new TreeMap<>();
+        for (StudentRecord rec : recs) {
+            Student s = rec.getStudent();
+            String key = groupBy == GroupByAnalytics.GroupBy.DEPARTMENT ? s.getDepartment() : s.getClassName();
+            long[] g = groups.computeIfAbsent(key, k -> new long[]{0, 0, 0, -1, 0});
+            Result r = rec.getResult();
+            g[0]++;
+            g[1] += r.totalMarks();
+            g[2] += r.isPass() ? 1 : 0;
+            if (g[3] < 0 || r.totalMarks() > g[4] || r.totalMarks() == g[4] && s.getRollNumber() < g[3]) {
+                g[3] = s.getRollNumber();
+                g[4] = r.totalMarks();
+            }
+        }
+        Map<String, String> out = new TreeMap<>();
+        groups.forEach((key, g) -> out.put(key, g[0] + " " + g[1] + " " + g[2] + " topper " + g[3]));
+        return out;
+    }
+
+    private static Map<String, String> actual(SortedMap<String, GroupByAnalytics.GroupStats> groups) {
+        Map<String, String> out = new TreeMap<>();
+        groups.forEach((key, g) -> out.put(key, g.count + " " + g.totalSum + " " + g.passed
+                + " topper " + g.topper.getStudent().getRollNumber()));
+        return out;
+    }
+
+    public void testGroupsMatchDirectCount() throws Exception {
+        RecordStore store = new RecordStore();
+        store.replaceAll(tiedRoster());
+        // Delete and re-add some students, so slots no longer follow any order
+        for (int roll = 1; roll <= 60_000; roll += 7) {
+            StudentRecord rec = store.get(store.find(roll));
+            store.remove(store.find(roll));
+            store.add(rec);
+        }
+        Path file = Fixtures.tempDir().resolve("data.bin");
+        new BinaryDataStorage(file).saveData(store.toArray());
+        MappedRecordStore mapped = MappedRecordStore.open(file);
+        for (GroupByAnalytics.GroupBy groupBy : GroupByAnalytics.GroupBy.values()) {
+            Map<String, String> expected = expected(store, groupBy);
+            Assert.assertEquals(expected, actual(GroupByAnalytics.compute(store, groupBy)), groupBy + " from the store");
+            Assert.assertEquals(expected, actual(GroupByAnalytics.compute(mapped, groupBy)), groupBy + " from a mapped file");
+        }
+    }
+
+    public void testTopperAgreesWithRankIndex() {
+        RecordStore store = new RecordStore();
+        RankIndex ranks = new RankIndex();
+        store.addListener(ranks);
+        store.replaceAll(tiedRoster());
+        int best = -1;
+        StudentRecord top = null;
+        for (GroupByAnalytics.GroupStats g : GroupByAnalytics.compute(store, GroupByAnalytics.GroupBy.DEPARTMENT).values()) {
+            int total = g.topper.getResult().totalMarks();
+            if (top == null || total > best || total == best
+                    && g.topper.getStudent().getRollNumber() < top.getStudent().getRollNumber()) {
+                top = g.topper;
+                best = total;
+            }
+        }
+        Assert.assertEquals(ranks.topK(1)[0], top.getStudent().getRollNumber());
+    }
+}
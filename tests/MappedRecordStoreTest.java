@@ -0,0 +1,76 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.*;
+import java.util.*;
+
+class MappedRecordStoreTest {
+    private static Path save(StudentRecord[] recs) throws IOException {
+        Path file = Fixtures.tempDir().resolve("data.bin");
+        new BinaryDataStorage(file).saveData(recs);
+        return file;
+    }
+
+    public void testRowsMatchLoadedRecords() throws Exception {
+        StudentRecord[] recs = Fixtures.uniqueRoster(3000, 1);
+        MappedRecordStore mapped = MappedRecordStore.open(save(recs));
+        Assert.assertEquals(recs.length, mapped.size());
+        MappedRecordStore.Row row = mapped.row();
+        for (int i = 0; i < recs.length; i++) {
+            row.moveTo(i);
+            Result r = recs[i].getResult();
+            Assert.assertEquals(Fixtures.describe(recs[i]), Fixtures.describe(row.toRecord()), "row " + i);
+            Assert.assertEquals(r.totalMarks(), row.totalMarks(), "total of row " + i);
+            Assert.assertEquals(r.isPass(), row.isPass(), "pass of row " + i);
+            Assert.assertEquals(r.getGrade(), row.grade(), "grade of row " + i);
+        }
+    }
+
+    // Strings are found from sparse checkpoints, so look them up out of order too
+    public void testStringsResolveInAnyOrder() throws Exception {
+        StudentRecord[] recs = Fixtures.uniqueRoster(3000, 2);
+        MappedRecordStore mapped = MappedRecordStore.open(save(recs));
+        MappedRecordStore.Row row = mapped.row();
+        SplittableRandom random = new SplittableRandom(3);
+        for (int n = 0; n < 5000; n++) {
+            int i = random.nextInt(recs.length);
+            row.moveTo(i);
+            Student s = recs[i].getStudent();
+            Assert.assertEquals(s.getName(), row.name(), "name of row " + i);
+            Assert.assertEquals(s.getName(), mapped.string(row.nameCode()), "name code of row " + i);
+            Assert.assertEquals(s.getDepartment(), row.department(), "department of row " + i);
+            Assert.assertEquals(s.getClassName(), row.className(), "class of row " + i);
+        }
+        Assert.assertThrows(IllegalStateException.class, () -> mapped.string(-1));
+    }
+
+    public void testGroupByMatchesHeapStore() throws Exception {
+        StudentRecord[] recs = Fixtures.uniqueRoster(5000, 4);
+        MappedRecordStore mapped = MappedRecordStore.open(save(recs));
+        RecordStore store = new RecordStore();
+        store.replaceAll(recs);
+        for (GroupByAnalytics.GroupBy groupBy : GroupByAnalytics.GroupBy.values()) {
+            Assert.assertEquals(print(GroupByAnalytics.compute(store, groupBy), groupBy),
+                    print(GroupByAnalytics.compute(mapped, groupBy), groupBy), groupBy.toString());
+        }
+    }
+
+    private static String print(SortedMap<String, GroupByAnalytics.GroupStats> groups, GroupByAnalytics.GroupBy groupBy) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GroupByAnalytics.print(groups, groupBy, new PrintStream(out, true));
+        return out.toString();
+    }
+
+    public void testEmptyFileMaps() throws Exception {
+        Assert.assertEquals(0, MappedRecordStore.open(save(new StudentRecord[0])).size());
+    }
+
+    public void testTruncatedAndForeignFilesAreRejected() throws Exception {
+        Path file = save(Fixtures.uniqueRoster(100, 5));
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        Assert.assertThrows(IOException.class, () -> MappedRecordStore.open(file));
+        Files.write(file, "not a data file, just some text".getBytes());
+        Assert.assertThrows(IOException.class, () -> MappedRecordStore.open(file));
+    }
+}
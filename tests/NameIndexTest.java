@@ -0,0 +1,90 @@
+import java.util.*;
+import java.util.function.Predicate;
+
+// Lookups are checked against scanning every live student
+class NameIndexTest {
+    private final RecordStore store = new RecordStore();
+    private final NameIndex index = new NameIndex();
+
+    // Few letters, so many names share trigrams and postings grow long
+    private static String randomName(SplittableRandom random) {
+        String letters = "aAbBnN ";
+        StringBuilder name = new StringBuilder();
+        int length = 2 + random.nextInt(8);
+        for (int i = 0; i < length; i++) {
+            name.append(letters.charAt(random.nextInt(letters.length())));
+        }
+        return name.toString();
+    }
+
+    // Roll numbers of the matching students by folded name, then roll number
+    private int[] bruteForce(Predicate<String> matches) {
+        List<StudentRecord> found = new ArrayList<>();
+        for (StudentRecord rec : store) {
+            if (matches.test(NameIndex.fold(rec.getStudent().getName()))) {
+                found.add(rec);
+            }
+        }
+        found.sort(Comparator.comparing((StudentRecord r) -> NameIndex.fold(r.getStudent().getName()))
+                .thenComparingInt(r -> r.getStudent().getRollNumber()));
+        return found.stream().mapToInt(r -> r.getStudent().getRollNumber()).toArray();
+    }
+
+    private void checkLookups(SplittableRandom random, String when) {
+        Assert.assertArrayEquals(bruteForce(name -> true), index.inNameOrder(), "name order " + when);
+        for (int i = 0; i < 50; i++) {
+            String name = randomName(random);
+            String folded = NameIndex.fold(name);
+            Assert.assertArrayEquals(bruteForce(folded::equals), index.exact(name), "exact '" + name + "' " + when);
+            String part = name.substring(random.nextInt(name.length()));
+            String foldedPart = NameIndex.fold(part);
+            Assert.assertArrayEquals(bruteForce(n -> n.contains(foldedPart)), index.substring(part),
+                    "substring '" + part + "' " + when);
+        }
+    }
+
+    public void testLookupsMatchScanThroughChanges() {
+        store.addListener(index);
+        SplittableRandom random = new SplittableRandom(1);
+        for (int roll = 1; roll <= 2000; roll++) {
+            store.add(Fixtures.record(roll, randomName(random), "10A", "CS", Fixtures.marks(50)));
+        }
+        checkLookups(random, "after adding");
+
+        for (int round = 0; round < 5; round++) {
+            for (int roll = 1; roll <= 2000; roll++) {
+                int slot = store.find(roll);
+                int change = random.nextInt(10);
+                if (slot == RollNumberIndex.NOT_FOUND) {
+                    if (change < 5) {
+                        store.add(Fixtures.record(roll, randomName(random), "10A", "CS", Fixtures.marks(50)));
+                    }
+                } else if (change < 3) {
+                    store.remove(slot);
+                } else if (change < 5) {
+                    store.set(slot, Fixtures.record(roll, randomName(random), "10A", "CS", Fixtures.marks(60)));
+                }
+            }
+            checkLookups(random, "after round " + round);
+        }
+
+        store.compact();
+        checkLookups(random, "after compaction");
+    }
+
+    public void testMatchingIgnoresCase() {
+        store.addListener(index);
+        store.add(Fixtures.record(2, "Meera Kapoor", "10A", "CS", Fixtures.marks(50)));
+        store.add(Fixtures.record(1, "MEERA KAPOOR", "10A", "CS", Fixtures.marks(50)));
+        store.add(Fixtures.record(3, "Nandini", "10A", "CS", Fixtures.marks(50)));
+        Assert.assertArrayEquals(new int[]{1, 2}, index.exact("meera kapoor"), "exact");
+        Assert.assertArrayEquals(new int[]{1, 2}, index.substring("ERA KAP"), "substring");
+        Assert.assertArrayEquals(new int[]{3}, index.substring("ND"), "short substring");
+        Assert.assertArrayEquals(new int[0], index.substring("xyz"), "no match");
+
+        store.remove(store.find(1));
+        store.remove(store.find(2));
+        Assert.assertArrayEquals(new int[0], index.substring("era"), "after removing every Meera");
+        Assert.assertArrayEquals(new int[]{3}, index.inNameOrder(), "name order");
+    }
+}
@@ -0,0 +1,85 @@
+import java.util.*;
+
+class RankIndexTest {
+    private final RecordStore store = new RecordStore();
+    private final RankIndex ranks = new RankIndex();
+
+    RankIndexTest() {
+        store.addListener(ranks);
+    }
+
+    // Few distinct totals, so most students tie with others
+    private static StudentRecord randomRecord(int roll, SplittableRandom random) {
+        return Fixtures.record(roll, "CS", 30 + random.nextInt(8) * 10);
+    }
+
+    // Rank order by sorting: highest total first, then lowest roll number
+    private int[] sortedRolls() {
+        StudentRecord[] recs = store.toArray();
+        Arrays.sort(recs, Comparator.comparingInt((StudentRecord r) -> -r.getResult().totalMarks())
+                .thenComparingInt(r -> r.getStudent().getRollNumber()));
+        return Arrays.stream(recs).mapToInt(r -> r.getStudent().getRollNumber()).toArray();
+    }
+
+    private void assertMatchesSort() {
+        int[] expected = sortedRolls();
+        Assert.assertEquals(expected.length, ranks.size());
+        Assert.assertArrayEquals(expected, ranks.page(0, expected.length), "full ranking");
+        for (int i = 0; i < expected.length; i++) {
+            Assert.assertEquals(i + 1, ranks.rankOf(store.findByRoll(expected[i])), "rank of roll " + expected[i]);
+        }
+        for (int offset : new int[] {0, 1, 7, expected.length / 2, expected.length - 1}) {
+            int[] page = ranks.page(offset, 25);
+            Assert.assertArrayEquals(Arrays.copyOfRange(expected, offset, Math.min(expected.length, offset + 25)), page,
+                    "page at " + offset);
+        }
+    }
+
+    public void testTiesGoToTheLowestRollNumber() {
+        store.add(Fixtures.record(30, "CS", 70));
+        store.add(Fixtures.record(10, "CS", 70));
+        store.add(Fixtures.record(20, "CS", 90));
+        store.add(Fixtures.record(5, "CS", 50));
+        Assert.assertArrayEquals(new int[] {20, 10, 30, 5}, ranks.topK(10), "rank order");
+        Assert.assertEquals(2, ranks.rankOf(store.findByRoll(10)));
+        Assert.assertEquals(3, ranks.rankOf(store.findByRoll(30)));
+        Assert.assertEquals(-1, ranks.rankOf(Fixtures.record(99, "CS", 70)));
+    }
+
+    public void testPagesPastTheEnd() {
+        for (int roll = 1; roll <= 5; roll++) {
+            store.add(Fixtures.record(roll, "CS", 50));
+        }
+        Assert.assertArrayEquals(new int[] {4, 5}, ranks.page(3, 10), "short last page");
+        Assert.assertArrayEquals(new int[0], ranks.page(5, 10), "past the end");
+        Assert.assertArrayEquals(new int[0], ranks.topK(0), "no students asked for");
+        Assert.assertThrows(IllegalArgumentException.class, () -> ranks.page(-1, 10));
+        Assert.assertThrows(IllegalArgumentException.class, () -> ranks.page(0, -1));
+    }
+
+    public void testFollowsEveryStoreChange() {
+        SplittableRandom random = new SplittableRandom(1);
+        // Distinct roll numbers in scrambled order, so ties are inserted mid-bucket
+        for (int i = 0; i < 2000; i++) {
+            store.add(randomRecord(i * 7919 % 100_003, random));
+        }
+        assertMatchesSort();
+        for (int i = 0; i < 2000; i++) {
+            int slot = random.nextInt(store.slotLimit());
+            StudentRecord rec = store.get(slot);
+            if (rec == null) {
+                store.add(randomRecord(200_000 + i, random));
+            } else if (random.nextBoolean()) {
+                store.set(slot, randomRecord(rec.getStudent().getRollNumber(), random));
+            } else {
+                store.remove(slot);
+            }
+        }
+        assertMatchesSort();
+        store.compact();
+        assertMatchesSort();
+        store.clear();
+        Assert.assertEquals(0, ranks.size());
+        Assert.assertArrayEquals(new int[0], ranks.topK(5), "nothing ranked after clear");
+    }
+}
@@ -0,0 +1,167 @@
+import java.util.*;
+
+class RecordStoreTest {
+    private static RecordStore store(StudentRecord[] recs) {
+        RecordStore store = new RecordStore();
+        store.addAll(recs);
+        return store;
+    }
+
+    private static StudentRecord withMark(StudentRecord rec, int mark) {
+        Student s = rec.getStudent();
+        return Fixtures.record(s.getRollNumber(), s.getName(), s.getClassName(), s.getDepartment(), Fixtures.marks(mark));
+    }
+
+    // Spans several chunks, so copy-on-write has to copy only the ones written
+    public void testSnapshotIgnoresLaterChanges() {
+        StudentRecord[] recs = Fixtures.uniqueRoster(5000, 1);
+        RecordStore store = store(recs);
+        RecordStore.Snapshot snapshot = store.snapshot();
+        List<String> before = Fixtures.describeAll(recs);
+
+        store.set(10, withMark(store.get(10), 99));
+        store.set(4000, withMark(store.get(4000), 1));
+        store.remove(2500);
+        store.add(Fixtures.record(1_000_000, "Late", "10A", "CS", Fixtures.marks(70)));
+
+        Assert.assertEquals(5000, snapshot.size());
+        Assert.assertEquals(5000, snapshot.slotLimit());
+        Assert.assertEquals(before, Fixtures.describeAll(snapshot.toArray()));
+        List<StudentRecord> iterated = new ArrayList<>();
+        snapshot.forEach(iterated::add);
+        Assert.assertEquals(before, Fixtures.describeAll(iterated));
+        Assert.assertEquals(Fixtures.describe(recs[2500]), Fixtures.describe(snapshot.get(2500)));
+        Assert.assertEquals(5000, store.size());
+    }
+
+    public void testSnapshotIgnoresCompactionAndClear() {
+        StudentRecord[] recs = Fixtures.uniqueRoster(3000, 2);
+        RecordStore store = store(recs);
+        RecordStore.Snapshot snapshot = store.snapshot();
+        for (int slot = 0; slot < 2000; slot += 2) {
+            store.remove(slot);
+        }
+        store.compact();
+        Assert.assertEquals(Fixtures.describeAll(recs), Fixtures.describeAll(snapshot.toArray()));
+
+        RecordStore.Snapshot compacted = store.snapshot();
+        List<String> after = Fixtures.describeAll(compacted.toArray());
+        store.clear();
+        Assert.assertTrue(store.isEmpty(), "store cleared");
+        Assert.assertEquals(2000, compacted.size());
+        Assert.assertEquals(after, Fixtures.describeAll(compacted.toArray()));
+    }
+
+    // A chunk copied for one snapshot must be shared again by the next one
+    public void testEverySnapshotKeepsItsOwnVersion() {
+        RecordStore store = store(Fixtures.uniqueRoster(100, 3));
+        StudentRecord original = store.get(5);
+        RecordStore.Snapshot first = store.snapshot();
+        store.set(5, withMark(original, 10));
+        RecordStore.Snapshot second = store.snapshot();
+        store.set(5, withMark(original, 20));
+        RecordStore.Snapshot third = store.snapshot();
+        store.set(5, withMark(original, 30));
+
+        Assert.assertEquals(Fixtures.describe(original), Fixtures.describe(first.get(5)));
+        Assert.assertEquals(10 * Result.SUBJECT_COUNT, second.get(5).getResult().totalMarks());
+        Assert.assertEquals(20 * Result.SUBJECT_COUNT, third.get(5).getResult().totalMarks());
+        Assert.assertEquals(30 * Result.SUBJECT_COUNT, store.get(5).getResult().totalMarks());
+    }
+
+    public void testUnchangedStoreReusesItsSnapshot() {
+        RecordStore store = store(Fixtures.uniqueRoster(10, 4));
+        RecordStore.Snapshot snapshot = store.snapshot();
+        Assert.assertTrue(snapshot == store.snapshot(), "no change, same snapshot");
+        store.remove(3);
+        Assert.assertFalse(snapshot == store.snapshot(), "a change needs a new snapshot");
+        Assert.assertEquals(10, snapshot.size());
+        Assert.assertEquals(9, store.snapshot().size());
+        Assert.assertTrue(store.snapshot().get(3) == null, "removed slot is a tombstone");
+    }
+
+    public void testSnapshotOfEmptyStore() {
+        RecordStore store = new RecordStore();
+        RecordStore.Snapshot snapshot = store.snapshot();
+        store.add(Fixtures.record(1, "CS", 50));
+        Assert.assertTrue(snapshot.isEmpty(), "taken before the add");
+        Assert.assertEquals(0, snapshot.toArray().length);
+        Assert.assertFalse(snapshot.iterator().hasNext(), "nothing to iterate");
+    }
+
+    // Compaction keeps the live records in slot order and re-points roll lookups
+    public void testCompactionKeepsRecordsAndLookups() {
+        StudentRecord[] recs = Fixtures.uniqueRoster(3000, 5);
+        RecordStore store = store(recs);
+        List<StudentRecord> kept = new ArrayList<>();
+        for (int slot = 0; slot < recs.length; slot++) {
+            if (slot % 3 == 0) {
+                store.remove(slot);
+            } else {
+                kept.add(recs[slot]);
+            }
+        }
+        Assert.assertEquals(1000, store.tombstones());
+        store.compact();
+        Assert.assertEquals(0, store.tombstones());
+        Assert.assertEquals(kept.size(), store.slotLimit());
+        Assert.assertEquals(Fixtures.describeAll(kept), Fixtures.describeAll(store.toArray()));
+        for (int slot = 0; slot < kept.size(); slot++) {
+            int roll = kept.get(slot).getStudent().getRollNumber();
+            Assert.assertEquals(slot, store.find(roll), "slot of roll " + roll);
+        }
+        for (int slot = 0; slot < recs.length; slot += 3) {
+            Assert.assertFalse(store.contains(recs[slot].getStudent().getRollNumber()), "removed roll found");
+        }
+    }
+
+    // Removing enough records compacts on its own; trailing ones are reclaimed at once
+    public void testSparseStoreCompactsItself() {
+        RecordStore store = store(Fixtures.uniqueRoster(1000, 6));
+        for (int slot = 999; slot >= 900; slot--) {
+            store.remove(slot);
+        }
+        Assert.assertEquals(900, store.slotLimit());
+        Assert.assertEquals(0, store.tombstones());
+
+        int[] resets = new int[1];
+        store.addListener(new RecordStore.Listener() {
+            @Override
+            public void recordAdded(int slot, StudentRecord rec) {
+            }
+
+            @Override
+            public void recordUpdated(int slot, StudentRecord old, StudentRecord rec) {
+            }
+
+            @Override
+            public void recordRemoved(int slot, StudentRecord old) {
+            }
+
+            @Override
+            public void storeReset(RecordStore changed) {
+                resets[0]++;
+            }
+        });
+        resets[0] = 0;
+        StudentRecord[] first = Arrays.copyOf(store.toArray(), 460);
+        for (StudentRecord rec : first) {
+            store.remove(store.find(rec.getStudent().getRollNumber()));
+        }
+        Assert.assertEquals(1, resets[0]);
+        Assert.assertEquals(440, store.size());
+        Assert.assertTrue(store.tombstones() <= store.size(), "tombstones " + store.tombstones());
+        for (StudentRecord rec : store) {
+            Assert.assertTrue(store.get(store.find(rec.getStudent().getRollNumber())) == rec, "lookup after compaction");
+        }
+        Assert.assertFalse(store.compactIfSparse(), "already compact");
+    }
+
+    public void testDuplicateRollNumbersAreRejected() {
+        RecordStore store = store(Fixtures.uniqueRoster(10, 7));
+        StudentRecord first = store.get(0);
+        Assert.assertThrows(IllegalArgumentException.class, () -> store.add(first));
+        Assert.assertEquals(2, store.addAll(new StudentRecord[] {first, null, Fixtures.record(1_000_000, "CS", 50)}));
+        Assert.assertEquals(11, store.size());
+    }
+}
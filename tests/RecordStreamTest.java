@@ -0,0 +1,92 @@
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+
+class RecordStreamTest {
+    private static Path save(StudentRecord[] recs) throws IOException {
+        Path file = Fixtures.tempDir().resolve("data.bin");
+        new BinaryDataStorage(file).saveData(recs);
+        return file;
+    }
+
+    public void testStreamMatchesLoadedRecords() throws Exception {
+        StudentRecord[] recs = Fixtures.uniqueRoster(5000, 1);
+        List<String> streamed = new ArrayList<>();
+        try (RecordStream stream = RecordStream.open(save(recs))) {
+            Assert.assertEquals(recs.length, stream.count());
+            while (stream.next()) {
+                streamed.add(Fixtures.describe(stream.toRecord()));
+            }
+            Assert.assertFalse(stream.next(), "no records after the end");
+        }
+        Assert.assertEquals(Fixtures.describeAll(recs), streamed);
+    }
+
+    // Reports ask for the names of only some students; the rest are skipped unread
+    public void testNamesOfSomeRecordsResolve() throws Exception {
+        StudentRecord[] recs = Fixtures.uniqueRoster(5000, 2);
+        SplittableRandom random = new SplittableRandom(3);
+        try (RecordStream stream = RecordStream.open(save(recs))) {
+            for (int i = 0; stream.next(); i++) {
+                Assert.assertEquals(recs[i].getStudent().getRollNumber(), stream.rollNumber());
+                Assert.assertEquals(recs[i].getResult().totalMarks(), stream.totalMarks(), "total of record " + i);
+                Assert.assertEquals(recs[i].getResult().isPass(), stream.isPass(), "pass of record " + i);
+                if (random.nextInt(10) == 0) {
+                    Assert.assertEquals(recs[i].getStudent().getName(), stream.name(), "name of record " + i);
+                    Assert.assertEquals(recs[i].getStudent().getDepartment(), stream.department(), "department of record " + i);
+                }
+            }
+        }
+    }
+
+    public void testNameLongerThanTheReadBlock() throws Exception {
+        String longName = "x".repeat(20_000);
+        StudentRecord[] recs = {
+                Fixtures.record(1, "Short", "10A", "CS", Fixtures.marks(50)),
+                Fixtures.record(2, longName, "10A", "CS", Fixtures.marks(60)),
+                Fixtures.record(3, "After", "10B", "CS", Fixtures.marks(70))};
+        List<String> names = new ArrayList<>();
+        try (RecordStream stream = RecordStream.open(save(recs))) {
+            while (stream.next()) {
+                names.add(stream.name());
+            }
+        }
+        Assert.assertEquals(List.of("Short", longName, "After"), names);
+    }
+
+    public void testEmptyFileStreamsNothing() throws Exception {
+        try (RecordStream stream = RecordStream.open(save(new StudentRecord[0]))) {
+            Assert.assertEquals(0, stream.count());
+            Assert.assertFalse(stream.next(), "no records in an empty file");
+        }
+    }
+
+    public void testCorruptionIsReportedAtTheEnd() throws Exception {
+        Path file = save(Fixtures.uniqueRoster(100, 4));
+        byte[] bytes = Files.readAllBytes(file);
+        // A mark of the last record, changed to another valid mark
+        bytes[bytes.length - 5] = (byte) (bytes[bytes.length - 5] == 0 ? 1 : 0);
+        Files.write(file, bytes);
+        try (RecordStream stream = RecordStream.open(file)) {
+            IOException e = Assert.assertThrows(IOException.class, () -> {
+                while (stream.next()) {
+                    stream.totalMarks();
+                }
+            });
+            Assert.assertTrue(e.getMessage().contains("checksum"), "unexpected message: " + e.getMessage());
+        }
+    }
+
+    public void testTruncatedFileIsRejected() throws Exception {
+        Path file = save(Fixtures.uniqueRoster(100, 5));
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+        Assert.assertThrows(IOException.class, () -> {
+            try (RecordStream stream = RecordStream.open(file)) {
+                while (stream.next()) {
+                    stream.name();
+                }
+            }
+        });
+    }
+}
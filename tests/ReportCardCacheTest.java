@@ -0,0 +1,151 @@
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+class ReportCardCacheTest {
+    private final RecordStore store = new RecordStore();
+
+    private ReportCardCache cacheOver(StudentRecord[] recs, int maxEntries, long maxBytes) {
+        ReportCardCache cache = new ReportCardCache(maxEntries, maxBytes);
+        store.addListener(cache);
+        store.replaceAll(recs);
+        return cache;
+    }
+
+    private static String counters(ReportCardCache cache) {
+        return "hits " + cache.getHits() + ", misses " + cache.getMisses() + ", evictions " + cache.getEvictions()
+                + ", invalidations " + cache.getInvalidations() + ", entries " + cache.getEntries();
+    }
+
+    private static int cardBytes(StudentRecord rec) {
+        return ReportCard.text(rec).getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    public void testCachedCardIsTheRenderedCard() {
+        ReportCardCache cache = cacheOver(Fixtures.uniqueRoster(20, 1), 100, 1 << 20);
+        long bytes = 0;
+        for (StudentRecord rec : store) {
+            byte[] expected = ReportCard.text(rec).getBytes(StandardCharsets.UTF_8);
+            Assert.assertEquals(new String(expected, StandardCharsets.UTF_8),
+                    new String(cache.get(rec), StandardCharsets.UTF_8), "first request");
+            Assert.assertTrue(cache.get(rec) == cache.get(rec), "repeat requests share the cached card");
+            bytes += expected.length;
+        }
+        Assert.assertEquals("hits 40, misses 20, evictions 0, invalidations 0, entries 20", counters(cache));
+        Assert.assertEquals(bytes, cache.getBytes());
+    }
+
+    public void testChangesDropOnlyThatStudentsCard() {
+        ReportCardCache cache = cacheOver(Fixtures.uniqueRoster(10, 2), 100, 1 << 20);
+        for (StudentRecord rec : store) {
+            cache.get(rec);
+        }
+        cache.resetCounters();
+
+        StudentRecord updated = Fixtures.record(3, "CS", 99);
+        store.set(store.find(3), updated);
+        store.remove(store.find(5));
+        Assert.assertEquals("hits 0, misses 0, evictions 0, invalidations 2, entries 8", counters(cache));
+        Assert.assertEquals(ReportCard.text(updated), new String(cache.get(updated), StandardCharsets.UTF_8));
+        for (StudentRecord rec : store) {
+            cache.get(rec);
+        }
+        Assert.assertEquals("hits 9, misses 1, evictions 0, invalidations 2, entries 9", counters(cache));
+
+        // A card cached for a roll number that is then added anew is stale too
+        StudentRecord returning = Fixtures.record(5, "MECH", 10);
+        cache.get(Fixtures.record(5, "CS", 90));
+        store.add(returning);
+        Assert.assertEquals(ReportCard.text(returning), new String(cache.get(returning), StandardCharsets.UTF_8));
+    }
+
+    public void testResetDropsEveryCard() {
+        ReportCardCache cache = cacheOver(Fixtures.uniqueRoster(10, 3), 100, 1 << 20);
+        for (StudentRecord rec : store) {
+            cache.get(rec);
+        }
+        store.replaceAll(Fixtures.uniqueRoster(10, 4));
+        Assert.assertEquals("hits 0, misses 10, evictions 0, invalidations 10, entries 0", counters(cache));
+        Assert.assertEquals(0L, cache.getBytes());
+    }
+
+    public void testLeastRecentlyUsedCardsAreEvictedByCount() {
+        StudentRecord[] recs = Fixtures.uniqueRoster(5, 5);
+        ReportCardCache cache = cacheOver(recs, 3, 1 << 20);
+        cache.get(recs[0]);
+        cache.get(recs[1]);
+        cache.get(recs[2]);
+        cache.get(recs[0]);
+        cache.get(recs[3]);
+        Assert.assertEquals("hits 1, misses 4, evictions 1, invalidations 0, entries 3", counters(cache));
+        // recs[1] was the least recently used, so it is rendered again
+        cache.get(recs[0]);
+        cache.get(recs[1]);
+        Assert.assertEquals("hits 2, misses 5, evictions 2, invalidations 0, entries 3", counters(cache));
+    }
+
+    public void testCardsAreEvictedByByteBudget() {
+        StudentRecord[] recs = Fixtures.uniqueRoster(10, 6);
+        long budget = cardBytes(recs[0]) + cardBytes(recs[1]);
+        ReportCardCache cache = cacheOver(recs, 100, budget);
+        long held = 0;
+        for (StudentRecord rec : recs) {
+            cache.get(rec);
+            Assert.assertTrue(cache.getBytes() <= budget, "bytes " + cache.getBytes() + " over budget " + budget);
+        }
+        for (int i = recs.length - cache.getEntries(); i < recs.length; i++) {
+            held += cardBytes(recs[i]);
+        }
+        Assert.assertEquals(held, cache.getBytes());
+        Assert.assertEquals((long) recs.length - cache.getEntries(), cache.getEvictions());
+
+        // A card larger than the whole budget is rendered but not kept
+        ReportCardCache tiny = cacheOver(recs, 100, 10);
+        tiny.get(recs[0]);
+        Assert.assertEquals("hits 0, misses 1, evictions 0, invalidations 0, entries 0", counters(tiny));
+    }
+
+    // Many threads asking for the same few cards: each card is rendered once
+    // and every caller gets that one copy
+    public void testConcurrentRequestsRenderEachCardOnce() throws Exception {
+        StudentRecord[] recs = Fixtures.uniqueRoster(8, 7);
+        ReportCardCache cache = cacheOver(recs, 100, 1 << 20);
+        int threads = 8;
+        int rounds = 200;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<byte[][]>> seen = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                seen.add(pool.submit(() -> {
+                    start.await();
+                    byte[][] cards = new byte[recs.length][];
+                    for (int i = 0; i < rounds; i++) {
+                        int r = i % recs.length;
+                        byte[] card = cache.get(recs[r]);
+                        Assert.assertTrue(cards[r] == null || cards[r] == card, "card " + r + " rendered twice");
+                        cards[r] = card;
+                    }
+                    return cards;
+                }));
+            }
+            start.countDown();
+            byte[][] first = seen.get(0).get();
+            for (Future<byte[][]> other : seen) {
+                byte[][] cards = other.get();
+                for (int r = 0; r < recs.length; r++) {
+                    Assert.assertTrue(cards[r] == first[r], "threads got different copies of card " + r);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        Assert.assertEquals((long) recs.length, cache.getMisses());
+        Assert.assertEquals((long) threads * rounds - recs.length, cache.getHits());
+        long bytes = 0;
+        for (StudentRecord rec : recs) {
+            bytes += cardBytes(rec);
+        }
+        Assert.assertEquals(bytes, cache.getBytes());
+    }
+}
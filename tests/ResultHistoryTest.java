@@ -0,0 +1,205 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.*;
+import java.util.*;
+
+// The stored changes are checked against plain snapshots of every term
+class ResultHistoryTest {
+    private static final int TERMS = 6;
+
+    private Path file;
+    private final List<Map<Integer, StudentRecord>> snapshots = new ArrayList<>();
+
+    // Closes TERMS terms over a roster that changes between them: marks move,
+    // some students leave, some change department, new ones join, and from
+    // the third term some who left come back. The current roster is the last
+    // snapshot.
+    private ResultHistory closeEvolvingTerms() throws IOException {
+        file = Fixtures.tempDir().resolve(ResultHistory.HISTORY_FILE);
+        ResultHistory history = ResultHistory.open(file);
+        SplittableRandom random = new SplittableRandom(5);
+        Map<Integer, StudentRecord> current = new TreeMap<>();
+        for (StudentRecord rec : SyntheticData.generate(3000, 1)) {
+            current.put(rec.getStudent().getRollNumber(), rec);
+        }
+        for (int t = 0; t < TERMS; t++) {
+            snapshots.add(new TreeMap<>(current));
+            history.closeTerm("T" + t, current.values().toArray(new StudentRecord[0]));
+            for (int roll : new ArrayList<>(current.keySet())) {
+                StudentRecord rec = current.get(roll);
+                int change = random.nextInt(100);
+                if (change < 5) {
+                    current.remove(roll);
+                    continue;
+                }
+                int[] marks = new int[Result.SUBJECT_COUNT];
+                for (int s = 0; s < marks.length; s++) {
+                    marks[s] = Math.max(0, Math.min(100, rec.getResult().getMark(s) + random.nextInt(-20, 21)));
+                }
+                Student s = rec.getStudent();
+                if (change < 8) {
+                    s = new Student(s.getName(), roll, s.getClassName(), "DEPT" + random.nextInt(3));
+                }
+                current.put(roll, new StudentRecord(s, new Result(marks)));
+            }
+            for (int i = 0; i < 100; i++) {
+                int roll = 10000 + t * 1000 + i;
+                current.put(roll, Fixtures.record(roll, "CS", random.nextInt(101)));
+            }
+            if (t >= 2) {
+                for (StudentRecord rec : snapshots.get(0).values()) {
+                    int roll = rec.getStudent().getRollNumber();
+                    if (!current.containsKey(roll) && random.nextInt(4) == 0) {
+                        current.put(roll, rec);
+                    }
+                }
+            }
+        }
+        snapshots.add(new TreeMap<>(current));
+        return history;
+    }
+
+    private StudentRecord[] currentRoster() {
+        return snapshots.get(snapshots.size() - 1).values().toArray(new StudentRecord[0]);
+    }
+
+    private void checkAgainstSnapshots(ResultHistory history) {
+        List<ResultHistory.Term> timeline = history.timeline(currentRoster());
+        Assert.assertEquals(snapshots.size(), timeline.size());
+        Assert.assertEquals(TERMS, history.terms().size());
+        checkMarksByTerm(history, timeline);
+        for (int from = 0; from < timeline.size(); from++) {
+            for (int to = from + 1; to < timeline.size(); to++) {
+                checkMostImproved(history, timeline, from, to);
+            }
+        }
+        checkDepartmentTrend(history, timeline);
+    }
+
+    private void checkMarksByTerm(ResultHistory history, List<ResultHistory.Term> timeline) {
+        for (int roll : new int[]{1, 2, 50, 777, 2999, 10001, 12050}) {
+            int[][] marks = history.marksByTerm(timeline, roll);
+            for (int t = 0; t < snapshots.size(); t++) {
+                StudentRecord rec = snapshots.get(t).get(roll);
+                String where = "roll " + roll + " in term " + t;
+                Assert.assertEquals(rec == null, marks[t] == null, "presence of " + where);
+                for (int s = 0; rec != null && s < Result.SUBJECT_COUNT; s++) {
+                    Assert.assertEquals(rec.getResult().getMark(s), marks[t][s], "mark " + s + " of " + where);
+                }
+            }
+        }
+    }
+
+    // Students in every term from `from` to `to` without changing department,
+    // by largest gain and then roll number
+    private void checkMostImproved(ResultHistory history, List<ResultHistory.Term> timeline, int from, int to) {
+        List<int[]> expected = new ArrayList<>();
+        students:
+        for (StudentRecord rec : snapshots.get(from).values()) {
+            int roll = rec.getStudent().getRollNumber();
+            for (int t = from + 1; t <= to; t++) {
+                StudentRecord later = snapshots.get(t).get(roll);
+                if (later == null || !later.getStudent().getDepartment().equals(rec.getStudent().getDepartment())) {
+                    continue students;
+                }
+            }
+            expected.add(new int[]{roll, rec.getResult().totalMarks(), snapshots.get(to).get(roll).getResult().totalMarks()});
+        }
+        expected.sort(Comparator.<int[]>comparingInt(e -> e[1] - e[2]).thenComparingInt(e -> e[0]));
+        List<ResultHistory.Improvement> improved = history.mostImproved(timeline, from, to, 25);
+        String pair = from + " to " + to;
+        Assert.assertEquals(Math.min(25, expected.size()), improved.size(), "most improved count from " + pair);
+        for (int i = 0; i < improved.size(); i++) {
+            ResultHistory.Improvement got = improved.get(i);
+            int[] e = expected.get(i);
+            Assert.assertEquals(e[0] + " " + e[1] + " " + e[2], got.roll + " " + got.fromTotal + " " + got.toTotal,
+                    "place " + i + " from " + pair);
+        }
+    }
+
+    private void checkDepartmentTrend(ResultHistory history, List<ResultHistory.Term> timeline) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        history.printDepartmentTrend(timeline, new PrintStream(bytes, true));
+        String printed = bytes.toString();
+        for (int t = 0; t < snapshots.size(); t++) {
+            // sum of totals, students, sum of changes, continuing students
+            Map<String, long[]> departments = new TreeMap<>();
+            for (StudentRecord rec : snapshots.get(t).values()) {
+                String department = rec.getStudent().getDepartment();
+                long[] d = departments.computeIfAbsent(department, k -> new long[4]);
+                d[0] += rec.getResult().totalMarks();
+                d[1]++;
+                StudentRecord before = t == 0 ? null : snapshots.get(t - 1).get(rec.getStudent().getRollNumber());
+                if (before != null && before.getStudent().getDepartment().equals(department)) {
+                    d[2] += rec.getResult().totalMarks() - before.getResult().totalMarks();
+                    d[3]++;
+                }
+            }
+            for (Map.Entry<String, long[]> e : departments.entrySet()) {
+                long[] d = e.getValue();
+                String change = d[3] == 0 ? "-" : String.format("%+.2f", d[2] / (float) d[3]);
+                String line = String.format("%-15s %-20s %-9d %-8.2f %-8s", e.getKey(), timeline.get(t).label,
+                        d[1], d[0] / (float) d[1], change);
+                Assert.assertTrue(printed.contains(line), "trend line missing: " + line);
+            }
+        }
+    }
+
+    public void testTrendsMatchSnapshots() throws Exception {
+        checkAgainstSnapshots(closeEvolvingTerms());
+    }
+
+    public void testReopenedHistoryMatchesSnapshots() throws Exception {
+        closeEvolvingTerms();
+        checkAgainstSnapshots(ResultHistory.open(file));
+    }
+
+    // Showing the current marks must not change how the next term is stored
+    public void testTimelineDoesNotChangeLaterTerms() throws Exception {
+        file = Fixtures.tempDir().resolve(ResultHistory.HISTORY_FILE);
+        ResultHistory history = ResultHistory.open(file);
+        history.closeTerm("T1", new StudentRecord[]{Fixtures.record(1, "CS", 50), Fixtures.record(2, "CS", 40)});
+        history.timeline(new StudentRecord[]{Fixtures.record(1, "MECH", 55), Fixtures.record(2, "CS", 45)});
+        history.closeTerm("T2", new StudentRecord[]{Fixtures.record(1, "CS", 70), Fixtures.record(2, "CS", 45)});
+        for (ResultHistory h : List.of(history, ResultHistory.open(file))) {
+            List<String> gains = new ArrayList<>();
+            for (ResultHistory.Improvement i : h.mostImproved(h.timeline(new StudentRecord[0]), 0, 1, 5)) {
+                gains.add(i.roll + ":" + i.gain());
+            }
+            int perSubject = Result.SUBJECT_COUNT;
+            Assert.assertEquals(List.of("1:" + 20 * perSubject, "2:" + 5 * perSubject), gains);
+        }
+    }
+
+    public void testBadTermNamesAreRejected() throws Exception {
+        ResultHistory history = ResultHistory.open(Fixtures.tempDir().resolve(ResultHistory.HISTORY_FILE));
+        StudentRecord[] roster = {Fixtures.record(1, "CS", 50)};
+        history.closeTerm("Spring", roster);
+        Assert.assertThrows(IllegalArgumentException.class, () -> history.closeTerm("Spring", roster));
+        Assert.assertThrows(IllegalArgumentException.class, () -> history.closeTerm("  ", roster));
+        Assert.assertEquals(1, history.terms().size());
+    }
+
+    public void testCorruptFilesAreRejected() throws Exception {
+        file = Fixtures.tempDir().resolve(ResultHistory.HISTORY_FILE);
+        ResultHistory history = ResultHistory.open(file);
+        history.closeTerm("T1", SyntheticData.generate(200, 2));
+        history.closeTerm("T2", SyntheticData.generate(200, 3));
+        byte[] bytes = Files.readAllBytes(file);
+
+        byte[] flipped = bytes.clone();
+        flipped[flipped.length / 2] ^= 0x01;
+        Files.write(file, flipped);
+        Assert.assertThrows(IOException.class, () -> ResultHistory.open(file));
+
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        Assert.assertThrows(IOException.class, () -> ResultHistory.open(file));
+
+        Files.write(file, "not a history file at all".getBytes());
+        Assert.assertThrows(IOException.class, () -> ResultHistory.open(file));
+
+        Files.write(file, bytes);
+        Assert.assertEquals(2, ResultHistory.open(file).terms().size());
+    }
+}
@@ -0,0 +1,61 @@
+import java.io.*;
+import java.util.*;
+
+class ResultTest {
+    private static Result randomResult(SplittableRandom random) {
+        int[] marks = new int[Result.SUBJECT_COUNT];
+        for (int s = 0; s < marks.length; s++) {
+            // Boundary marks are as likely as any other
+            marks[s] = random.nextBoolean() ? random.nextInt(101) : new int[]{0, 39, 40, 100}[random.nextInt(4)];
+        }
+        return new Result(marks);
+    }
+
+    public void testMarksAndGradeAreKept() {
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 10_000; i++) {
+            int[] marks = new int[Result.SUBJECT_COUNT];
+            int total = 0;
+            for (int s = 0; s < marks.length; s++) {
+                marks[s] = random.nextInt(101);
+                total += marks[s];
+            }
+            Result r = new Result(marks);
+            for (int s = 0; s < marks.length; s++) {
+                Assert.assertEquals(marks[s], r.getMark(s), "mark " + s + " of " + Arrays.toString(marks));
+            }
+            Assert.assertEquals(total, r.totalMarks(), "total of " + Arrays.toString(marks));
+            Assert.assertEquals(Grade.forTotal(total), r.getGrade(), "grade of " + Arrays.toString(marks));
+            Assert.assertEquals(r.getGrade().label(), r.grade(), "grade label of " + Arrays.toString(marks));
+        }
+    }
+
+    public void testSerializedResultsKeepMarksAndGrade() throws Exception {
+        SplittableRandom random = new SplittableRandom(2);
+        StudentRecord[] recs = new StudentRecord[500];
+        for (int i = 0; i < recs.length; i++) {
+            recs[i] = new StudentRecord(new Student("Student " + i, i + 1, "10A", "CS"), randomResult(random));
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(recs);
+        }
+        StudentRecord[] read;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            read = (StudentRecord[]) in.readObject();
+        }
+        Assert.assertEquals(Fixtures.describeAll(recs), Fixtures.describeAll(read));
+        for (int i = 0; i < recs.length; i++) {
+            Result r = read[i].getResult();
+            Assert.assertEquals(recs[i].getResult().getGrade(), r.getGrade(), "grade of record " + i);
+            Assert.assertEquals(recs[i].getResult().getRemarks(), r.getRemarks(), "remarks of record " + i);
+            Assert.assertEquals(recs[i].getResult().isPass(), r.isPass(), "pass of record " + i);
+        }
+    }
+
+    public void testInvalidMarksAreRejected() {
+        Assert.assertThrows(IllegalArgumentException.class, () -> new Result(Fixtures.marks(101)));
+        Assert.assertThrows(IllegalArgumentException.class, () -> new Result(Fixtures.marks(-1)));
+        Assert.assertThrows(IllegalArgumentException.class, () -> new Result(new int[Result.SUBJECT_COUNT + 1]));
+    }
+}
@@ -0,0 +1,92 @@
+import java.util.*;
+
+class RollNumberIndexTest {
+    // Bucket a key hashes to in a fresh index, whose table has 32 buckets
+    private static int home(int roll) {
+        int h = roll * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & 31;
+    }
+
+    // Roll numbers that all start probing at the given bucket
+    private static int[] collidingAt(int bucket, int count) {
+        int[] rolls = new int[count];
+        for (int roll = 1, k = 0; k < count; roll++) {
+            if (home(roll) == bucket) {
+                rolls[k++] = roll;
+            }
+        }
+        return rolls;
+    }
+
+    private static void assertHolds(RollNumberIndex index, Map<Integer, Integer> expected, Collection<Integer> gone) {
+        Assert.assertEquals(expected.size(), index.size());
+        for (Map.Entry<Integer, Integer> e : expected.entrySet()) {
+            Assert.assertEquals((int) e.getValue(), index.get(e.getKey()), "slot of roll " + e.getKey());
+        }
+        for (int roll : gone) {
+            Assert.assertFalse(index.contains(roll), "removed roll " + roll + " still found");
+        }
+    }
+
+    // Deleting from the middle of a probe chain that wraps past the end of the
+    // table has to shift the later keys back, or they can no longer be found
+    public void testDeleteInsideAWrappingChain() {
+        int[] chain = collidingAt(30, 6);
+        int[] others = collidingAt(1, 3);
+        RollNumberIndex index = new RollNumberIndex();
+        Map<Integer, Integer> expected = new HashMap<>();
+        int slot = 0;
+        for (int roll : chain) {
+            index.put(roll, slot);
+            expected.put(roll, slot++);
+        }
+        for (int roll : others) {
+            index.put(roll, slot);
+            expected.put(roll, slot++);
+        }
+        List<Integer> gone = new ArrayList<>();
+        for (int roll : new int[] {chain[1], chain[0], others[0], chain[4]}) {
+            Assert.assertTrue(index.remove(roll), "remove " + roll);
+            expected.remove(roll);
+            gone.add(roll);
+            assertHolds(index, expected, gone);
+        }
+        Assert.assertFalse(index.remove(chain[0]), "already removed");
+    }
+
+    public void testMatchesAMapUnderRandomChanges() {
+        SplittableRandom random = new SplittableRandom(1);
+        RollNumberIndex index = new RollNumberIndex();
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            int roll = random.nextInt(5000) - 100;
+            if (random.nextInt(3) == 0) {
+                Assert.assertEquals(expected.remove(roll) != null, index.remove(roll), "remove " + roll);
+            } else {
+                int slot = random.nextInt(1 << 20);
+                index.put(roll, slot);
+                expected.put(roll, slot);
+            }
+        }
+        assertHolds(index, expected, List.of());
+        for (int roll = -100; roll < 4900; roll++) {
+            Assert.assertEquals(expected.getOrDefault(roll, RollNumberIndex.NOT_FOUND), index.get(roll), "roll " + roll);
+        }
+    }
+
+    public void testPutReplacesAndClearEmpties() {
+        RollNumberIndex index = new RollNumberIndex(4);
+        for (int roll = 0; roll < 1000; roll++) {
+            index.put(roll, roll);
+        }
+        index.put(7, 70);
+        Assert.assertEquals(1000, index.size());
+        Assert.assertEquals(70, index.get(7));
+        index.clear();
+        Assert.assertEquals(0, index.size());
+        Assert.assertEquals(RollNumberIndex.NOT_FOUND, index.get(7));
+        index.put(7, 1);
+        Assert.assertEquals(1, index.get(7));
+        Assert.assertThrows(IllegalArgumentException.class, () -> index.put(8, -1));
+    }
+}
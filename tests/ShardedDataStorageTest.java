@@ -0,0 +1,140 @@
+import java.nio.file.*;
+import java.util.*;
+
+class ShardedDataStorageTest {
+    private Path dir;
+    private ShardedDataStorage storage;
+    private RecordStore store;
+
+    private static StudentRecord[] roster() {
+        return new StudentRecord[]{
+                Fixtures.record(1, "CS", 50),
+                Fixtures.record(2, "MECH", 60),
+                Fixtures.record(3, "CS", 70),
+                Fixtures.record(4, "CIVIL", 35),
+                Fixtures.record(5, "MECH", 90),
+        };
+    }
+
+    // A saved roster, reopened the way the application opens it
+    private void saveRosterAndReopen() throws Exception {
+        dir = Fixtures.tempDir().resolve("shards");
+        ShardedDataStorage created = ShardedDataStorage.create(dir, false);
+        RecordStore initial = new RecordStore();
+        initial.addListener(created);
+        initial.replaceAll(roster());
+        created.saveData(initial.toArray());
+        reopen();
+    }
+
+    private void reopen() {
+        storage = new ShardedDataStorage(dir);
+        store = new RecordStore();
+        store.addListener(storage);
+    }
+
+    private void loadDepartment(String department) throws Exception {
+        store.replaceAll(storage.loadDepartment(department));
+        storage.markClean();
+    }
+
+    private List<String> onDisk() throws Exception {
+        return Fixtures.describeAll(new ShardedDataStorage(dir).loadData());
+    }
+
+    public void testSaveThenLoadGivesSameRecords() throws Exception {
+        saveRosterAndReopen();
+        Assert.assertEquals(3, storage.shardCount());
+        Assert.assertEquals(5, storage.totalCount());
+        Assert.assertEquals(3, storage.shardFiles().size());
+        Assert.assertEquals(Fixtures.describeAll(roster()), Fixtures.describeAll(storage.loadData()));
+    }
+
+    public void testLoadDepartmentReadsOnlyThatDepartment() throws Exception {
+        saveRosterAndReopen();
+        Assert.assertEquals(Fixtures.describeAll(new StudentRecord[]{roster()[1], roster()[4]}),
+                Fixtures.describeAll(storage.loadDepartment("MECH")));
+        Assert.assertTrue(storage.isStoredElsewhere(1), "roll 1 is in the unloaded CS shard");
+        Assert.assertFalse(storage.isStoredElsewhere(2), "roll 2 is in the loaded shard");
+        Assert.assertFalse(storage.isStoredElsewhere(99), "roll 99 is nowhere");
+    }
+
+    public void testSaveRewritesOnlyChangedShards() throws Exception {
+        saveRosterAndReopen();
+        store.replaceAll(storage.loadData());
+        storage.markClean();
+        Set<Path> before = new HashSet<>(storage.shardFiles());
+        store.set(store.find(3), Fixtures.record(3, "CS", 75));
+        storage.saveData(store.toArray());
+        Set<Path> after = new HashSet<>(storage.shardFiles());
+        Set<Path> kept = new HashSet<>(before);
+        kept.retainAll(after);
+        Assert.assertEquals(2, kept.size(), "untouched shard files kept");
+        Assert.assertTrue(onDisk().contains(Fixtures.describe(Fixtures.record(3, "CS", 75))), "update saved");
+    }
+
+    public void testEditsWhileOneDepartmentIsLoadedKeepOtherShards() throws Exception {
+        saveRosterAndReopen();
+        loadDepartment("CS");
+        store.add(Fixtures.record(6, "CS", 44));
+        store.remove(store.find(1));
+        storage.saveData(store.toArray());
+        List<String> expected = Fixtures.describeAll(new StudentRecord[]{
+                roster()[1], roster()[2], roster()[3], roster()[4], Fixtures.record(6, "CS", 44)});
+        Assert.assertEquals(expected, onDisk());
+    }
+
+    public void testStudentDeletedFromUnloadedShardStaysDeleted() throws Exception {
+        saveRosterAndReopen();
+        loadDepartment("CS");
+        store.add(Fixtures.record(6, "MECH", 44));
+        storage.saveData(store.toArray());
+        store.remove(store.find(6));
+        Assert.assertFalse(storage.isStoredElsewhere(6), "deleted roll number is free again");
+        storage.saveData(store.toArray());
+        Assert.assertEquals(Fixtures.describeAll(roster()), onDisk());
+
+        reopen();
+        Assert.assertEquals(Fixtures.describeAll(roster()), Fixtures.describeAll(storage.loadData()));
+    }
+
+    public void testStudentMovedAwayAndBackLeavesOneCopy() throws Exception {
+        saveRosterAndReopen();
+        loadDepartment("CS");
+        store.set(store.find(1), Fixtures.record(1, "MECH", 50));
+        storage.saveData(store.toArray());
+        store.set(store.find(1), Fixtures.record(1, "CS", 50));
+        storage.saveData(store.toArray());
+        Assert.assertEquals(Fixtures.describeAll(roster()), onDisk());
+    }
+
+    public void testStudentMovedIntoUnloadedShardIsSaved() throws Exception {
+        saveRosterAndReopen();
+        loadDepartment("CS");
+        store.set(store.find(3), Fixtures.record(3, "CIVIL", 70));
+        storage.saveData(store.toArray());
+        List<String> expected = new ArrayList<>(Fixtures.describeAll(roster()));
+        expected.set(2, Fixtures.describe(Fixtures.record(3, "CIVIL", 70)));
+        Assert.assertEquals(expected, onDisk());
+    }
+
+    public void testCreateReplacesPreviousLayout() throws Exception {
+        saveRosterAndReopen();
+        ShardedDataStorage byClass = ShardedDataStorage.create(dir, true);
+        RecordStore replacement = new RecordStore();
+        replacement.addListener(byClass);
+        StudentRecord[] recs = {
+                Fixtures.record(10, "Student 10", "10A", "CS", Fixtures.marks(80)),
+                Fixtures.record(11, "Student 11", "10B", "CS", Fixtures.marks(81))};
+        replacement.replaceAll(recs);
+        byClass.saveData(replacement.toArray());
+        Assert.assertEquals(Fixtures.describeAll(recs), onDisk());
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "shard-*.bin")) {
+            int count = 0;
+            for (Path ignored : files) {
+                count++;
+            }
+            Assert.assertEquals(2, count, "shard files left in the directory");
+        }
+    }
+}
@@ -0,0 +1,128 @@
+import java.util.*;
+
+class StatisticsEngineTest {
+    private final RecordStore store = new RecordStore();
+    private final StatisticsEngine statistics = new StatisticsEngine();
+
+    StatisticsEngineTest() {
+        store.addListener(statistics);
+    }
+
+    private static StudentRecord randomRecord(int roll, SplittableRandom random) {
+        int[] marks = new int[Result.SUBJECT_COUNT];
+        for (int subject = 0; subject < marks.length; subject++) {
+            marks[subject] = random.nextInt(101);
+        }
+        return Fixtures.record(roll, "Student " + roll, "10A", "CS", marks);
+    }
+
+    private static double median(int[] sorted) {
+        int n = sorted.length;
+        return n % 2 == 1 ? sorted[n / 2] : (sorted[n / 2 - 1] + sorted[n / 2]) / 2.0;
+    }
+
+    private static int percentile(int[] sorted, double p) {
+        return sorted[Math.max(1, (int) Math.ceil(p / 100.0 * sorted.length)) - 1];
+    }
+
+    // Every statistic of the histograms against sorting the store's values
+    private void assertMatchesStore() {
+        int[] totals = new int[store.size()];
+        int[][] marks = new int[Result.SUBJECT_COUNT][store.size()];
+        int passed = 0;
+        int k = 0;
+        for (StudentRecord rec : store) {
+            totals[k] = rec.getResult().totalMarks();
+            for (int subject = 0; subject < marks.length; subject++) {
+                marks[subject][k] = rec.getResult().getMark(subject);
+            }
+            passed += rec.getResult().isPass() ? 1 : 0;
+            k++;
+        }
+        Assert.assertEquals(store.size(), statistics.count());
+        Assert.assertEquals(passed, statistics.passed());
+        assertMatches(totals, statistics.totals(), "totals");
+        for (int subject = 0; subject < marks.length; subject++) {
+            assertMatches(marks[subject], statistics.subject(subject), Result.SUBJECT_NAMES[subject]);
+        }
+    }
+
+    private static void assertMatches(int[] values, StatisticsEngine.Histogram histogram, String what) {
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        Assert.assertEquals(sorted.length, histogram.count(), what + " count");
+        Assert.assertEquals(Arrays.stream(sorted).asLongStream().sum(), histogram.sum(), what + " sum");
+        Assert.assertEquals(sorted[0], histogram.min(), what + " min");
+        Assert.assertEquals(sorted[sorted.length - 1], histogram.max(), what + " max");
+        Assert.assertEquals(median(sorted), histogram.median(), what + " median");
+        for (double p : new double[] {0.1, 1, 10, 25, 50, 75, 90, 99, 99.9, 100}) {
+            Assert.assertEquals(percentile(sorted, p), histogram.percentile(p), what + " percentile " + p);
+        }
+        int atLeast = (int) Arrays.stream(sorted).filter(v -> v >= Result.PASS_MARK).count();
+        Assert.assertEquals(atLeast, histogram.countAtLeast(Result.PASS_MARK), what + " at least the pass mark");
+    }
+
+    public void testMedianOfOddAndEvenCounts() {
+        store.add(Fixtures.record(1, "CS", 10));
+        Assert.assertEquals(10.0 * Result.SUBJECT_COUNT, statistics.totals().median());
+        store.add(Fixtures.record(2, "CS", 40));
+        Assert.assertEquals(25.0 * Result.SUBJECT_COUNT, statistics.totals().median());
+        store.add(Fixtures.record(3, "CS", 90));
+        Assert.assertEquals(40.0 * Result.SUBJECT_COUNT, statistics.totals().median());
+        Assert.assertEquals(40.0, statistics.subject(0).median());
+    }
+
+    // Nearest rank: the smallest value with at least p% of the values at or below it
+    public void testNearestRankPercentiles() {
+        for (int roll = 1; roll <= 10; roll++) {
+            store.add(Fixtures.record(roll, "CS", roll * 10));
+        }
+        StatisticsEngine.Histogram maths = statistics.subject(0);
+        Assert.assertEquals(10, maths.percentile(1));
+        Assert.assertEquals(10, maths.percentile(10));
+        Assert.assertEquals(20, maths.percentile(10.5));
+        Assert.assertEquals(50, maths.percentile(50));
+        Assert.assertEquals(90, maths.percentile(90));
+        Assert.assertEquals(100, maths.percentile(91));
+        Assert.assertEquals(100, maths.percentile(100));
+        Assert.assertThrows(IllegalArgumentException.class, () -> maths.percentile(0));
+        Assert.assertThrows(IllegalArgumentException.class, () -> maths.percentile(100.5));
+    }
+
+    public void testEmptyHistogram() {
+        StatisticsEngine.Histogram totals = statistics.totals();
+        Assert.assertEquals(0, totals.count());
+        Assert.assertTrue(Double.isNaN(totals.median()), "median of nothing");
+        Assert.assertEquals(Integer.MIN_VALUE, totals.max());
+        Assert.assertEquals(Integer.MAX_VALUE, totals.min());
+        Assert.assertThrows(IllegalStateException.class, () -> totals.percentile(50));
+    }
+
+    public void testFollowsEveryStoreChange() {
+        SplittableRandom random = new SplittableRandom(1);
+        for (int roll = 0; roll < 3000; roll++) {
+            store.add(randomRecord(roll, random));
+        }
+        assertMatchesStore();
+        for (int i = 0; i < 3000; i++) {
+            int slot = random.nextInt(store.slotLimit());
+            StudentRecord rec = store.get(slot);
+            if (rec == null) {
+                continue;
+            }
+            if (random.nextBoolean()) {
+                store.set(slot, randomRecord(rec.getStudent().getRollNumber(), random));
+            } else {
+                store.remove(slot);
+            }
+        }
+        assertMatchesStore();
+
+        StudentRecord[] replacement = new StudentRecord[501];
+        for (int roll = 0; roll < replacement.length; roll++) {
+            replacement[roll] = randomRecord(roll, random);
+        }
+        store.replaceAll(replacement);
+        assertMatchesStore();
+    }
+}
@@ -0,0 +1,130 @@
+import java.util.*;
+
+// The bitmap answer to each query must equal testing every live record
+class StudentQueryTest {
+    private static final String MATHS = SubjectSchema.ACTIVE.field(0);
+    private static final String SECOND = SubjectSchema.ACTIVE.field(1);
+    private static final String LAST = SubjectSchema.ACTIVE.field(SubjectSchema.ACTIVE.size() - 1);
+
+    private static final String[] QUERIES = {
+            "all",
+            "failed",
+            "pass",
+            "grade = A+",
+            "grade != F",
+            "department = cs",
+            "dept = MECH and failed",
+            "class = 10A or class = '11B'",
+            "class = \"12C\" and " + SECOND + " = 33",
+            MATHS + " < 40",
+            SECOND + " >= 75 and not department = Arts",
+            "!(failed || grade = A)",
+            LAST + " != 50",
+            LAST + " > 95 or " + MATHS + " <= 5",
+            MATHS + " > 20 and " + MATHS + " < 23",
+            "not all",
+            "department = Nowhere",
+            LAST + " > 2147483647",
+            LAST + " < -2147483648",
+            LAST + " >= -5 and " + MATHS + " <= 1000",
+            SECOND + " = 101",
+    };
+
+    private final RecordStore store = new RecordStore();
+    private final BitmapIndex index = new BitmapIndex();
+
+    private int[] bruteForce(StudentQuery q) {
+        List<Integer> slots = new ArrayList<>();
+        for (int slot = 0; slot < store.slotLimit(); slot++) {
+            StudentRecord rec = store.get(slot);
+            if (rec != null && q.test(rec)) {
+                slots.add(slot);
+            }
+        }
+        return slots.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private void checkAllQueries(String when) {
+        for (String text : QUERIES) {
+            StudentQuery q = StudentQuery.parse(text);
+            Assert.assertArrayEquals(bruteForce(q), q.evaluate(index, store).toArray(), text + " " + when);
+        }
+    }
+
+    public void testIndexAnswersMatchBruteForce() {
+        store.addListener(index);
+        StudentRecord[] recs = Fixtures.uniqueRoster(3000, 1);
+        store.replaceAll(recs);
+        checkAllQueries("after load");
+
+        SplittableRandom random = new SplittableRandom(2);
+        String[] departments = {"CS", "MECH", "Arts"};
+        for (int roll = 1; roll <= recs.length; roll++) {
+            int slot = store.find(roll);
+            switch (random.nextInt(6)) {
+                case 0 -> store.remove(slot);
+                case 1 -> {
+                    StudentRecord old = store.get(slot);
+                    int[] marks = Fixtures.marks(random.nextInt(101));
+                    store.set(slot, Fixtures.record(roll, old.getStudent().getName(), old.getStudent().getClassName(),
+                            departments[random.nextInt(departments.length)], marks));
+                }
+                default -> {
+                    // unchanged
+                }
+            }
+        }
+        for (int roll = recs.length + 1; roll <= recs.length + 200; roll++) {
+            store.add(Fixtures.record(roll, departments[random.nextInt(departments.length)], random.nextInt(101)));
+        }
+        checkAllQueries("after edits");
+
+        store.compact();
+        checkAllQueries("after compaction");
+    }
+
+    public void testMarksBeyondTheRangeMatchNobodyOrEverybody() {
+        store.addListener(index);
+        store.replaceAll(Fixtures.uniqueRoster(500, 4));
+        for (String text : new String[]{LAST + " > 2147483647", LAST + " < -2147483648", LAST + " = 200",
+                LAST + " > 100", LAST + " < 0"}) {
+            Assert.assertEquals(0, StudentQuery.parse(text).evaluate(index, store).cardinality(), text);
+        }
+        for (String text : new String[]{LAST + " <= 2147483647", LAST + " >= -2147483648", LAST + " != 200"}) {
+            Assert.assertEquals(store.size(), StudentQuery.parse(text).evaluate(index, store).cardinality(), text);
+        }
+    }
+
+    public void testAndBindsTighterThanOr() {
+        StudentQuery q = StudentQuery.parse("passed or failed and department = CS");
+        StudentQuery grouped = StudentQuery.parse("(passed or failed) and department = CS");
+        for (StudentRecord rec : Fixtures.uniqueRoster(500, 3)) {
+            boolean pass = rec.getResult().isPass();
+            boolean cs = rec.getStudent().getDepartment().equals("CS");
+            Assert.assertEquals(pass || cs, q.test(rec), "ungrouped " + Fixtures.describe(rec));
+            Assert.assertEquals(cs, grouped.test(rec), "grouped " + Fixtures.describe(rec));
+        }
+    }
+
+    public void testBadQueriesAreRejected() {
+        String[] bad = {
+                "",
+                "   ",
+                "height > 3",
+                "(failed",
+                "failed)",
+                "department = 'CS",
+                "grade < A",
+                "grade = Z",
+                MATHS + " > abc",
+                MATHS + " 40",
+                "failed and",
+                "department =",
+        };
+        for (String text : bad) {
+            IllegalArgumentException e = Assert.assertThrows(IllegalArgumentException.class,
+                    () -> StudentQuery.parse(text));
+            Assert.assertTrue(e.getMessage() != null && !e.getMessage().isEmpty(), "message for '" + text + "'");
+        }
+    }
+}
@@ -0,0 +1,25 @@
+import java.util.List;
+
+import static java.util.Arrays.asList;
+
+class SyntheticDataTest {
+    public void testSameSeedGivesSameRoster() {
+        List<String> first = Fixtures.describeAll(SyntheticData.generate(500, 7));
+        Assert.assertEquals(first, Fixtures.describeAll(SyntheticData.generate(500, 7)));
+        Assert.assertFalse(first.equals(Fixtures.describeAll(SyntheticData.generate(500, 8))),
+                "different seeds should give different rosters");
+    }
+
+    public void testRollNumbersAscendAndMarksAreValid() {
+        StudentRecord[] recs = SyntheticData.generate(2000);
+        for (int i = 0; i < recs.length; i++) {
+            Assert.assertEquals(i + 1, recs[i].getStudent().getRollNumber(), "roll number of record " + i);
+            for (int subject = 0; subject < Result.SUBJECT_COUNT; subject++) {
+                int mark = recs[i].getResult().getMark(subject);
+                Assert.assertTrue(mark >= 0 && mark <= 100, "mark " + mark + " out of range");
+            }
+        }
+        Assert.assertTrue(asList(recs).stream().anyMatch(r -> !r.getResult().isPass()), "expected some failures");
+        Assert.assertTrue(asList(recs).stream().anyMatch(r -> r.getResult().isPass()), "expected some passes");
+    }
+}
@@ -0,0 +1,98 @@
+import java.io.StringWriter;
+import java.util.*;
+
+class TableRendererTest {
+    // The printf tables the renderer replaced, with one "%-Nd" column per subject
+    private static String printfTable(List<StudentRecord> recs, boolean withRemarks) {
+        StringBuilder headerFormat = new StringBuilder("%-15s %-10s %-10s %-12s ");
+        StringBuilder rowFormat = new StringBuilder("%-15s %-10d %-10s %-12s ");
+        List<Object> headings = new ArrayList<>(List.of("Name", "Roll No", "Class", "Department"));
+        int rule = 110;
+        for (int subject = 0; subject < Result.SUBJECT_COUNT; subject++) {
+            SubjectSchema.Subject s = SubjectSchema.ACTIVE.subject(subject);
+            headerFormat.append("%-").append(s.width).append("s ");
+            rowFormat.append("%-").append(s.width).append("d ");
+            headings.add(s.heading);
+            rule += s.width + 1;
+        }
+        rule -= 37;
+        headerFormat.append("%-7s %-8s %-6s");
+        rowFormat.append("%-7d %-8.2f %-6s");
+        headings.addAll(List.of("Total", "Average", "Grade"));
+        if (withRemarks) {
+            headerFormat.append(" %-12s");
+            rowFormat.append(" %-12s");
+            headings.add("Remarks");
+            rule += 20;
+        }
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(headerFormat + "\n", headings.toArray()));
+        out.append("=".repeat(rule)).append('\n');
+        for (StudentRecord rec : recs) {
+            Student st = rec.getStudent();
+            Result r = rec.getResult();
+            List<Object> cells = new ArrayList<>(List.of(st.getName(), st.getRollNumber(), st.getClassName(), st.getDepartment()));
+            for (int subject = 0; subject < Result.SUBJECT_COUNT; subject++) {
+                cells.add(r.getMark(subject));
+            }
+            cells.addAll(List.of(r.totalMarks(), r.averageMarks(), r.grade()));
+            if (withRemarks) {
+                cells.add(r.getRemarks());
+            }
+            out.append(String.format(rowFormat + "\n", cells.toArray()));
+        }
+        return out.toString();
+    }
+
+    private static String rendered(List<StudentRecord> recs, boolean withRemarks) throws Exception {
+        StringWriter out = new StringWriter();
+        TableRenderer table = new TableRenderer(out, withRemarks);
+        table.header();
+        table.rows(recs);
+        table.flush();
+        return out.toString();
+    }
+
+    // One student for every possible total, so every average is rounded once
+    private static List<StudentRecord> everyTotal() {
+        List<StudentRecord> recs = new ArrayList<>();
+        for (int total = 0; total <= Result.SUBJECT_COUNT * 100; total++) {
+            int[] marks = new int[Result.SUBJECT_COUNT];
+            for (int subject = 0, left = total; subject < marks.length; subject++) {
+                marks[subject] = Math.min(100, left);
+                left -= marks[subject];
+            }
+            recs.add(Fixtures.record(total + 1, "Student " + total, "10A", "CS", marks));
+        }
+        return recs;
+    }
+
+    public void testMatchesThePrintfLayout() throws Exception {
+        List<StudentRecord> recs = new ArrayList<>(everyTotal());
+        recs.addAll(Arrays.asList(Fixtures.uniqueRoster(500, 1)));
+        for (boolean withRemarks : new boolean[] {true, false}) {
+            Assert.assertEquals(printfTable(recs, withRemarks), rendered(recs, withRemarks), "remarks " + withRemarks);
+        }
+    }
+
+    // Values wider than their column push the rest of the row right, as printf does
+    public void testOverlongCellsAreNotCut() throws Exception {
+        List<StudentRecord> recs = List.of(
+                Fixtures.record(Integer.MAX_VALUE, "A name much longer than fifteen", "Class 10 Section B",
+                        "Electronics and Communication", Fixtures.marks(100)),
+                Fixtures.record(0, "", "", "", Fixtures.marks(0)),
+                Fixtures.record(-42, "Neg", "9", "IT", Fixtures.marks(39)));
+        Assert.assertEquals(printfTable(recs, true), rendered(recs, true));
+    }
+
+    // The original four-subject table, as it was printed before the schema existed
+    public void testDefaultSchemaHeader() throws Exception {
+        if (!Arrays.equals(Result.SUBJECT_NAMES, new String[] {"Maths", "Science", "English", "Computer Science"})) {
+            return;
+        }
+        String header = String.format("%-15s %-10s %-10s %-12s %-7s %-8s %-8s %-10s %-7s %-8s %-6s %-12s\n",
+                "Name", "Roll No", "Class", "Department", "Maths", "Science", "English", "Comp Sci", "Total", "Average",
+                "Grade", "Remarks") + "=".repeat(130) + "\n";
+        Assert.assertEquals(header, rendered(List.of(), true));
+    }
+}
@@ -0,0 +1,72 @@
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Comparator;
+
+// Runs every test class listed below without a test framework, so the tests
+// build offline and from plain javac as well as from Gradle:
+//
+//   javac -d out *.java tests/*.java && java -ea -cp out TestRunner [ClassName...]
+//
+// A test is a public no-argument method whose name starts with "test"; each
+// one gets a fresh instance of its class. Failures are printed with their
+// stack traces and make the exit status non-zero.
+public class TestRunner {
+    private static final Class<?>[] TEST_CLASSES = {
+            SyntheticDataTest.class,
+            BinaryDataStorageTest.class,
+            ChangeJournalTest.class,
+            ShardedDataStorageTest.class,
+            MappedRecordStoreTest.class,
+            RecordStreamTest.class,
+            CompressedBitmapTest.class,
+            StudentQueryTest.class,
+            TableRendererTest.class,
+            ResultHistoryTest.class,
+            ReportCardCacheTest.class,
+            ResultTest.class,
+            CsvImporterTest.class,
+            GroupByAnalyticsTest.class,
+            GradeTest.class,
+            NameIndexTest.class,
+            RankIndexTest.class,
+            RecordStoreTest.class,
+            RollNumberIndexTest.class,
+            StatisticsEngineTest.class,
+    };
+
+    public static void main(String[] args) throws Exception {
+        int run = 0;
+        int failed = 0;
+        for (Class<?> type : TEST_CLASSES) {
+            if (args.length > 0 && !Arrays.asList(args).contains(type.getName())) {
+                continue;
+            }
+            Method[] methods = type.getDeclaredMethods();
+            Arrays.sort(methods, Comparator.comparing(Method::getName));
+            for (Method method : methods) {
+                if (!method.getName().startsWith("test") || method.getParameterCount() != 0
+                        || !Modifier.isPublic(method.getModifiers())) {
+                    continue;
+                }
+                run++;
+                String name = type.getName() + "." + method.getName();
+                try {
+                    method.invoke(type.getDeclaredConstructor().newInstance());
+                    System.out.println("ok    " + name);
+                } catch (InvocationTargetException e) {
+                    failed++;
+                    System.out.println("FAIL  " + name);
+                    e.getCause().printStackTrace(System.out);
+                } finally {
+                    Fixtures.deleteTempDirs();
+                }
+            }
+        }
+        System.out.printf("%d test(s), %d failed%n", run, failed);
+        if (failed > 0 || run == 0) {
+            System.exit(1);
+        }
+    }
+}